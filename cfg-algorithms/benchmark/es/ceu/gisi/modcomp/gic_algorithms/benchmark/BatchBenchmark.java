@@ -0,0 +1,77 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Compara el reconocimiento de un lote de palabras una a una con
+ * isDerivedBatch, que prepara la gramática una vez y reparte el lote entre
+ * los hilos del ForkJoinPool común.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    @Param({"16", "64"})
+    public int wordLength;
+
+    @Param({"1000"})
+    public int wordCount;
+
+    private CFGAlgorithms gica;
+    private List<String> palabras;
+
+
+
+    @Setup
+    public void preparar() throws CFGAlgorithmsException {
+        gica = Gramaticas.fnc(16);
+        // Sin modo paralelo por palabra, para comparar sólo el reparto del lote
+        gica.setCYKParallelThreshold(0);
+        palabras = new ArrayList<>();
+        for (int i = 0; i < wordCount; i++) {
+            palabras.add(Gramaticas.palabra(wordLength + i % 7));
+        }
+    }
+
+
+
+    @Benchmark
+    public int oneByOne() throws CFGAlgorithmsException {
+        int aceptadas = 0;
+        for (String palabra : palabras) {
+            if (gica.isDerivedUsignCYK(palabra)) {
+                aceptadas++;
+            }
+        }
+        return aceptadas;
+    }
+
+
+
+    @Benchmark
+    public BitSet isDerivedBatch() throws CFGAlgorithmsException {
+        return gica.isDerivedBatch(palabras);
+    }
+}
@@ -0,0 +1,65 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mide isDerivedUsignCYK e isDerivedUsingMatrixCYK en función de la longitud
+ * de la palabra y del tamaño de la gramática. La gramática se compila en el setup, así que se
+ * mide sólo el reconocimiento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CYKBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int wordLength;
+
+    @Param({"4", "16", "64"})
+    public int nonTerminals;
+
+    private CFGAlgorithms gica;
+    private String palabra;
+
+
+
+    @Setup
+    public void preparar() throws CFGAlgorithmsException {
+        gica = Gramaticas.fnc(nonTerminals);
+        palabra = Gramaticas.palabra(wordLength);
+        gica.isDerivedUsignCYK(palabra);
+        gica.isDerivedUsingMatrixCYK(palabra);
+    }
+
+
+
+    @Benchmark
+    public boolean isDerivedUsignCYK() throws CFGAlgorithmsException {
+        return gica.isDerivedUsignCYK(palabra);
+    }
+
+
+
+    @Benchmark
+    public boolean isDerivedUsingMatrixCYK() throws CFGAlgorithmsException {
+        return gica.isDerivedUsingMatrixCYK(palabra);
+    }
+}
@@ -0,0 +1,186 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarGenerator;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+
+
+/**
+ * Gramáticas de tamaño configurable para los benchmarks. Todas se construyen
+ * a partir de una semilla fija, de modo que dos ejecuciones miden lo mismo.
+ */
+final class Gramaticas {
+
+    private static final long SEMILLA = 0x5EED;
+
+    // Parejas de terminales que abren y cierran cada tipo de paréntesis
+    // ('l' no puede ser terminal)
+    private static final String PARENTESIS = "abcdefghijkmnopqrstuvwxy";
+
+    private Gramaticas() {
+    }
+
+
+
+    /**
+     * Gramática en FNC sobre {a, b} con el número de no terminales indicado:
+     * todos derivan a y b, y cada uno tiene además tres reglas binarias
+     * aleatorias. Las celdas de la tabla CYK quedan muy pobladas, que es el
+     * peor caso para el algoritmo.
+     */
+    static CFGAlgorithms fnc(int numNoTerminales) throws CFGAlgorithmsException {
+        Random azar = new Random(SEMILLA);
+        CFGAlgorithms gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        List<Character> nts = noTerminales(gica, numNoTerminales);
+        gica.setStartSymbol(nts.get(0));
+        for (char nt : nts) {
+            gica.addProduction(nt, "a");
+            gica.addProduction(nt, "b");
+            for (int r = 0; r < 3; r++) {
+                String cuerpo = "" + nts.get(azar.nextInt(nts.size())) + nts.get(azar.nextInt(nts.size()));
+                if (!gica.getProductions(nt).contains(cuerpo)) {
+                    gica.addProduction(nt, cuerpo);
+                }
+            }
+        }
+        return gica;
+    }
+
+
+
+    /**
+     * Gramática sin ninguna forma normal, con reglas lambda, unitarias y
+     * ambiguas, para medir las transformaciones.
+     */
+    static CFGAlgorithms general(int numNoTerminales) throws CFGAlgorithmsException {
+        return new GrammarGenerator(SEMILLA)
+                .setNonTerminalCount(numNoTerminales)
+                .setTerminals("abcd")
+                .setNullableRatio(0.25)
+                .setUnitChainDepth(numNoTerminales / 4)
+                .setAmbiguity(0.1)
+                .generate();
+    }
+
+
+
+    /**
+     * Lenguaje de Dyck con el número de tipos de paréntesis indicado, pasado
+     * a FNC: S::=BS|B, B::=aSb|ab|cSd|cd... Sólo unos pocos pares
+     * (no terminal, subcadena) de cada palabra derivan algo, así que las
+     * celdas de la tabla CYK quedan casi vacías.
+     */
+    static CFGAlgorithms dispersa(int tipos) throws CFGAlgorithmsException {
+        CFGAlgorithms gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('B');
+        gica.setStartSymbol('S');
+        for (int k = 0; k < 2 * tipos; k++) {
+            gica.addTerminal(PARENTESIS.charAt(k));
+        }
+        gica.addProduction('S', "BS");
+        gica.addProduction('S', "B");
+        for (int k = 0; k < tipos; k++) {
+            char abre = PARENTESIS.charAt(2 * k);
+            char cierra = PARENTESIS.charAt(2 * k + 1);
+            gica.addProduction('B', "" + abre + 'S' + cierra);
+            gica.addProduction('B', "" + abre + cierra);
+        }
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        return gica;
+    }
+
+
+
+    /**
+     * Palabra aleatoria de la longitud indicada con los paréntesis de
+     * {@link #dispersa(int)} bien anidados.
+     */
+    static String palabraDispersa(int longitud, int tipos) {
+        Random azar = new Random(SEMILLA + longitud);
+        StringBuilder sb = new StringBuilder(longitud);
+        Deque<Character> abiertos = new ArrayDeque<>();
+        while (sb.length() + abiertos.size() < longitud) {
+            if (!abiertos.isEmpty() && azar.nextInt(3) == 0) {
+                sb.append(abiertos.pop());
+            } else {
+                int k = azar.nextInt(tipos);
+                sb.append(PARENTESIS.charAt(2 * k));
+                abiertos.push(PARENTESIS.charAt(2 * k + 1));
+            }
+        }
+        while (!abiertos.isEmpty()) {
+            sb.append(abiertos.pop());
+        }
+        return sb.toString();
+    }
+
+
+
+    /**
+     * Gramática en FNC del lenguaje a+b+: S::=AB, A::=AA|a, B::=BB|b. Con
+     * palabras de {@link #palabraSeparada(int)}, A deriva casi todas las
+     * subcadenas y B casi ninguna, así que al combinarlas hay que recorrer
+     * todos los puntos de corte sin encontrar ninguno válido.
+     */
+    static CFGAlgorithms separada() throws CFGAlgorithmsException {
+        CFGAlgorithms gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "AA");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "BB");
+        gica.addProduction('B', "b");
+        return gica;
+    }
+
+
+
+    /**
+     * La palabra a...ab de la longitud indicada.
+     */
+    static String palabraSeparada(int longitud) {
+        return "a".repeat(longitud - 1) + "b";
+    }
+
+
+
+    /**
+     * Palabra aleatoria sobre {a, b} de la longitud indicada.
+     */
+    static String palabra(int longitud) {
+        Random azar = new Random(SEMILLA + longitud);
+        StringBuilder sb = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            sb.append(azar.nextBoolean() ? 'a' : 'b');
+        }
+        return sb.toString();
+    }
+
+
+
+    private static List<Character> noTerminales(CFGAlgorithms gica, int cuantos) throws CFGAlgorithmsException {
+        List<Character> nts = new ArrayList<>();
+        for (char c = 'A'; nts.size() < cuantos; c++) {
+            if (Character.isUpperCase(c)) {
+                gica.addNonTerminal(c);
+                nts.add(c);
+            }
+        }
+        return nts;
+    }
+}
@@ -0,0 +1,71 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Compara isDerivedUsignCYK con isDerivedUsingTopDown sobre una gramática
+ * dispersa (paréntesis anidados) y sobre la gramática densa de
+ * {@link CYKBenchmark}, en la que el reconocedor descendente no puede
+ * descartar casi ningún par.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopDownBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int wordLength;
+
+    @Param({"dispersa", "densa"})
+    public String grammar;
+
+    private CFGAlgorithms gica;
+    private String palabra;
+
+
+
+    @Setup
+    public void preparar() throws CFGAlgorithmsException {
+        if (grammar.equals("dispersa")) {
+            gica = Gramaticas.dispersa(6);
+            palabra = Gramaticas.palabraDispersa(wordLength, 6);
+        } else {
+            gica = Gramaticas.fnc(16);
+            palabra = Gramaticas.palabra(wordLength);
+        }
+        gica.isDerivedUsignCYK(palabra);
+        gica.isDerivedUsingTopDown(palabra);
+    }
+
+
+
+    @Benchmark
+    public boolean isDerivedUsignCYK() throws CFGAlgorithmsException {
+        return gica.isDerivedUsignCYK(palabra);
+    }
+
+
+
+    @Benchmark
+    public boolean isDerivedUsingTopDown() throws CFGAlgorithmsException {
+        return gica.isDerivedUsingTopDown(palabra);
+    }
+}
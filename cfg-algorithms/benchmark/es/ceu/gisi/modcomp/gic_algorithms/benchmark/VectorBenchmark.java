@@ -0,0 +1,65 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Compara isDerivedUsingMatrixCYK con y sin la Vector API: el mismo
+ * reconocimiento se mide en una JVM arrancada sin el módulo
+ * jdk.incubator.vector (bucle escalar) y en otra con él. Se usa la
+ * gramática de a+b+, en la que casi todo el tiempo se va en buscar puntos
+ * de corte comunes entre filas y columnas largas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VectorBenchmark {
+
+    @Param({"1024", "4096"})
+    public int wordLength;
+
+    private CFGAlgorithms gica;
+    private String palabra;
+
+
+
+    @Setup
+    public void preparar() throws CFGAlgorithmsException {
+        gica = Gramaticas.separada();
+        gica.setCYKParallelThreshold(0);
+        palabra = Gramaticas.palabraSeparada(wordLength);
+        gica.isDerivedUsingMatrixCYK(palabra);
+    }
+
+
+
+    @Benchmark
+    @Fork(1)
+    public boolean escalar() throws CFGAlgorithmsException {
+        return gica.isDerivedUsingMatrixCYK(palabra);
+    }
+
+
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public boolean vectorial() throws CFGAlgorithmsException {
+        return gica.isDerivedUsingMatrixCYK(palabra);
+    }
+}
@@ -0,0 +1,93 @@
+package es.ceu.gisi.modcomp.gic_algorithms.benchmark;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mide cada una de las pasadas de WFCFGInterface y la transformación a FNC.
+ * Las pasadas modifican la gramática, así que se reconstruye antes de cada
+ * invocación (fuera del tiempo medido).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WFCFGBenchmark {
+
+    @Param({"8", "32", "128"})
+    public int nonTerminals;
+
+    private CFGAlgorithms gica;
+    private CFGAlgorithms bienFormada;
+
+
+
+    @Setup(Level.Invocation)
+    public void preparar() throws CFGAlgorithmsException {
+        gica = Gramaticas.general(nonTerminals);
+        bienFormada = Gramaticas.general(nonTerminals);
+        bienFormada.transformToWellFormedGrammar();
+    }
+
+
+
+    @Benchmark
+    public List<String> removeUselessProductions() {
+        return gica.removeUselessProductions();
+    }
+
+
+
+    @Benchmark
+    public List<Character> removeLambdaProductions() {
+        return gica.removeLambdaProductions();
+    }
+
+
+
+    @Benchmark
+    public List<String> removeUnitProductions() {
+        return gica.removeUnitProductions();
+    }
+
+
+
+    @Benchmark
+    public List<Character> removeUselessSymbols() {
+        return gica.removeUselessSymbols();
+    }
+
+
+
+    @Benchmark
+    public CFGAlgorithms transformToWellFormedGrammar() {
+        gica.transformToWellFormedGrammar();
+        return gica;
+    }
+
+
+
+    @Benchmark
+    public CFGAlgorithms transformIntoCNF() throws CFGAlgorithmsException {
+        bienFormada.transformIntoCNF();
+        return bienFormada;
+    }
+}
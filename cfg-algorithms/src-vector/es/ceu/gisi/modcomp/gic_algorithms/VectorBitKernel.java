@@ -0,0 +1,42 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+
+/**
+ * Versión de {@link BitKernel} con la Vector API. Se compila aparte, con
+ * --add-modules jdk.incubator.vector, y BitKernel sólo la carga si el módulo
+ * está disponible en tiempo de ejecución.
+ */
+final class VectorBitKernel {
+
+    private static final VectorSpecies<Long> ESPECIE = LongVector.SPECIES_PREFERRED;
+
+    // Longs por vector
+    static final int LONGS = ESPECIE.length();
+
+    private VectorBitKernel() {
+    }
+
+
+
+    static boolean intersects(long[] a, int desdeA, long[] b, int desdeB, int longitud) {
+        int k = 0;
+        for (int limite = ESPECIE.loopBound(longitud); k < limite; k += LONGS) {
+            LongVector x = LongVector.fromArray(ESPECIE, a, desdeA + k);
+            LongVector y = LongVector.fromArray(ESPECIE, b, desdeB + k);
+            if (x.and(y).compare(VectorOperators.NE, 0L).anyTrue()) {
+                return true;
+            }
+        }
+        for (; k < longitud; k++) {
+            if ((a[desdeA + k] & b[desdeB + k]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
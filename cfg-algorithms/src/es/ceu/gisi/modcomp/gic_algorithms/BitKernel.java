@@ -0,0 +1,105 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+
+
+/**
+ * Operaciones sobre conjuntos de bits empaquetados en long[] que se repiten
+ * en los bucles internos de los reconocedores.
+ *
+ * Si la JVM se ha arrancado con --add-modules jdk.incubator.vector, las
+ * operaciones se hacen con la Vector API, procesando tantos longs por
+ * instrucción como permita el hardware (4 con AVX2, 8 con AVX-512). Si no,
+ * se usa el bucle escalar, que da el mismo resultado.
+ *
+ * La versión vectorial, VectorBitKernel, se compila aparte (carpeta
+ * src-vector) para que el resto del proyecto no dependa del módulo incubado,
+ * así que se carga por reflexión. Los MethodHandle son constantes, y el JIT
+ * los enlaza como una llamada directa.
+ */
+final class BitKernel {
+
+    private static final String CLASE_VECTORIAL = "es.ceu.gisi.modcomp.gic_algorithms.VectorBitKernel";
+
+    // VectorBitKernel.intersects, o null si no se usa la Vector API. Al ser
+    // una constante, el JIT elimina la rama que no se usa
+    private static final MethodHandle VECTORIAL;
+
+    // Longs por vector (0 si no se usa la Vector API)
+    private static final int LONGS;
+
+    static {
+        MethodHandle intersects = null;
+        int longs = 0;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            // Carga la clase ahora para no fallar después en mitad de un reconocimiento
+            try {
+                Class<?> clase = Class.forName(CLASE_VECTORIAL);
+                longs = clase.getDeclaredField("LONGS").getInt(null);
+                intersects = MethodHandles.lookup().findStatic(clase, "intersects",
+                        MethodType.methodType(boolean.class, long[].class, int.class, long[].class, int.class, int.class));
+            } catch (ReflectiveOperationException | LinkageError e) {
+                intersects = null;
+                longs = 0;
+            }
+        }
+        VECTORIAL = intersects;
+        LONGS = longs;
+    }
+
+    private BitKernel() {
+    }
+
+
+
+    /**
+     * @return true si algún par de longs a[desdeA + k], b[desdeB + k], con k
+     *         en [0, longitud), comparte algún bit. Es el OR sobre los puntos
+     *         de corte de (celda izquierda AND celda derecha).
+     */
+    static boolean intersects(long[] a, int desdeA, long[] b, int desdeB, int longitud) {
+        if (VECTORIAL != null && longitud >= LONGS) {
+            return intersectsVectorial(a, desdeA, b, desdeB, longitud);
+        }
+        for (int k = 0; k < longitud; k++) {
+            if ((a[desdeA + k] & b[desdeB + k]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    /**
+     * @return true si se usa la Vector API.
+     */
+    static boolean isVectorized() {
+        return VECTORIAL != null;
+    }
+
+
+
+    /**
+     * @return Longs por vector de la Vector API, o 0 si no se usa.
+     */
+    static int getVectorLongs() {
+        return LONGS;
+    }
+
+
+
+    private static boolean intersectsVectorial(long[] a, int desdeA, long[] b, int desdeB, int longitud) {
+        try {
+            return (boolean) VECTORIAL.invokeExact(a, desdeA, b, desdeB, longitud);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // VectorBitKernel.intersects no declara excepciones
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,6 +2,16 @@ package es.ceu.gisi.modcomp.gic_algorithms;
 
 import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
 import es.ceu.gisi.modcomp.gic_algorithms.interfaces.*;
+import java.io.IOException;
+import java.util.TreeMap;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
@@ -11,9 +21,7 @@ import java.util.Collections;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Objects;
-import java.util.Queue;
 
 
 
@@ -22,15 +30,69 @@ import java.util.Queue;
  * métodos necesarios para el correcto funcionamiento del
  * proyecto de programación de la asignatura Modelos de Computación.
  *
+ * Se puede compartir entre hilos: las modificaciones se hacen en exclusión
+ * mutua y las consultas (getGrammar, isCNF, los reconocedores...) leen una
+ * instantánea inmutable de la gramática, así que nunca ven una gramática a
+ * medio modificar. La instantánea se construye en la primera consulta tras
+ * una modificación, que es la única que toma el cerrojo; las siguientes la
+ * leen sin cerrojos y sin bloquear a los escritores.
+ *
  * @author Sergio Saugar García <sergio.saugargarcia@ceu.es>
  */
-public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface, CYKInterface {
-    
+public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface, CYKInterface, EarleyInterface, LL1Interface, LALRInterface {
+
+    /**
+     * Longitud de palabra por defecto a partir de la cual se usa el modo
+     * paralelo del algoritmo CYK.
+     */
+    public static final int DEFAULT_CYK_PARALLEL_THRESHOLD = 256;
+
     private Set<Character> noTerminales = new HashSet<>();
     private Set<Character> terminales = new HashSet<>();
     private Map<Character, Set<String>> producciones = new HashMap<>();
     private Character simboloInicio;
 
+    // Longitud de palabra a partir de la cual CYK rellena la tabla en paralelo
+    private volatile int umbralCYKParalelo = DEFAULT_CYK_PARALLEL_THRESHOLD;
+
+    // Ejecutor de isDerivedBatch (null para usar el ForkJoinPool común)
+    private volatile Executor ejecutorLotes;
+
+    // Si se usa el AFD en lugar de CYK cuando la gramática es regular
+    private volatile boolean atajoRegular = true;
+
+    // Gramática compilada a partir de los campos anteriores, para uso de las
+    // transformaciones. Se descarta cada vez que se modifica la gramática.
+    private CompiledGrammar compilada;
+
+    // Época de la gramática: se incrementa con cada modificación
+    private long epoca;
+
+    // Última instantánea publicada, sobre la que trabajan los lectores sin
+    // cerrojos. Los escritores modifican los campos anteriores en exclusión
+    // mutua (métodos synchronized) y, al terminar, sólo marcan la publicación
+    // como pendiente: copiar la gramática en cada modificación haría
+    // cuadrática su construcción. La primera consulta posterior construye y
+    // publica la instantánea. Mientras publicacionDiferida > 0 se espera al
+    // final de la operación que las engloba.
+    private final AtomicReference<GrammarSnapshot> publicada =
+            new AtomicReference<>(new GrammarSnapshot(0, noTerminales, terminales, producciones, null, null));
+    private volatile boolean publicacionPendiente;
+    private int publicacionDiferida;
+
+    // Caché de resultados de isDerivedUsignCYK (null si está desactivada)
+    private volatile MembershipCache cacheCYK;
+
+    // Índice inverso de apariciones: símbolo -> (no terminal -> producciones
+    // de ese no terminal en las que aparece el símbolo). Las transformaciones
+    // que reescriben las producciones en bloque lo marcan como no válido y se
+    // reconstruye la próxima vez que se consulta.
+    private final Map<Character, Map<Character, Set<String>>> apariciones = new HashMap<>();
+    private boolean aparicionesValidas = true;
+
+    // Destino de los eventos de instrumentación (por defecto, ninguno)
+    private volatile GrammarListener oyente = GrammarListener.NONE;
+
     /**
      * Método que añade los elementos no terminales de la gramática.
      *
@@ -39,7 +101,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @throws CFGAlgorithmsException Si el elemento no es una letra mayúscula o
      *                                si ya está en el conjunto.
      */
-    public void addNonTerminal(char nonterminal) throws CFGAlgorithmsException {
+    public synchronized void addNonTerminal(char nonterminal) throws CFGAlgorithmsException {
         if (!Character.isUpperCase(nonterminal)) {
             throw new CFGAlgorithmsException("Compruebo que sea mayúscula");
         }
@@ -49,7 +111,8 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
         }
 
         noTerminales.add(nonterminal);
-          
+        invalidar();
+        publicar();
     }
 
 
@@ -63,18 +126,19 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      *
      * @throws CFGAlgorithmsException Si el elemento no pertenece a la gramática
      */
-    public void removeNonTerminal(char nonterminal) throws CFGAlgorithmsException {
+    public synchronized void removeNonTerminal(char nonterminal) throws CFGAlgorithmsException {
         // Caracter en conjunto????
         if (!noTerminales.contains(nonterminal)) {
             throw new CFGAlgorithmsException("El elemento no pertenece a la gramática.");
         }
 
         noTerminales.remove(nonterminal);
+        invalidar();
 
-        //eliminamos producciones q tengan el terminal
-        for (Set<String> prods : producciones.values()) {
-            prods.removeIf(produccion -> produccion.indexOf(nonterminal) != -1);
-        }
+        // Sólo se visitan las producciones propias y las que contienen el no terminal
+        eliminarProducciones(nonterminal);
+        eliminarApariciones(nonterminal);
+        publicar();
     }
 
 
@@ -86,7 +150,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @return Un conjunto con los no terminales definidos.
      */
     public Set<Character> getNonTerminals() {
-        return new HashSet<>(noTerminales);
+        return new HashSet<>(instantanea().getNonTerminals());
     }
 
 
@@ -99,7 +163,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @throws CFGAlgorithmsException Si el elemento no es una letra minúscula o
      *                                si ya está en el conjunto.
      */
-    public void addTerminal(char terminal) throws CFGAlgorithmsException {
+    public synchronized void addTerminal(char terminal) throws CFGAlgorithmsException {
 
         if (!Character.isLowerCase(terminal)) {
             throw new CFGAlgorithmsException("UEPAAA! letra minúscula.");
@@ -109,6 +173,8 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
             throw new CFGAlgorithmsException("UEPAAA! El elemento ya está en el conjunto");
         }
         terminales.add(terminal);
+        invalidar();
+        publicar();
     }
 
 
@@ -121,18 +187,18 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      *
      * @throws CFGAlgorithmsException Si el elemento no pertenece a la gramática
      */
-    public void removeTerminal(char terminal) throws CFGAlgorithmsException {
+    public synchronized void removeTerminal(char terminal) throws CFGAlgorithmsException {
         // Caracter en conjunto????
         if (!terminales.contains(terminal)) {
             throw new CFGAlgorithmsException("El elemento no pertenece a la gramátic");
         }
 
         terminales.remove(terminal);
+        invalidar();
 
-        //eliminamos producciones q tengan el terminal
-        for (Set<String> prods : producciones.values()) {
-            prods.removeIf(produccion -> produccion.indexOf(terminal) != -1);
-        }
+        // Sólo se visitan las producciones que contienen el terminal
+        eliminarApariciones(terminal);
+        publicar();
     }
 
 
@@ -144,7 +210,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @return Un conjunto con los terminales definidos.
      */
     public Set<Character> getTerminals() {
-         return new HashSet<>(terminales);
+        return new HashSet<>(instantanea().getTerminals());
     }
 
 
@@ -158,13 +224,15 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @throws CFGAlgorithmsException Si el elemento insertado no forma parte
      *                                del conjunto de elementos no terminales.
      */
-    public void setStartSymbol(char nonterminal) throws CFGAlgorithmsException {
+    public synchronized void setStartSymbol(char nonterminal) throws CFGAlgorithmsException {
         // Ver si pertenece a no terminales
         if (!noTerminales.contains(nonterminal)) {
             throw new CFGAlgorithmsException("El elemento no forma parte del conjunto de los no terminales");
         }
 
         simboloInicio = nonterminal;
+        invalidar();
+        publicar();
     }
 
 
@@ -178,11 +246,12 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      *                                establecido.
      */
     public Character getStartSymbol() throws CFGAlgorithmsException {
-        if (simboloInicio == null) {
+        Character axioma = instantanea().getStartSymbol();
+        if (axioma == null) {
             throw new CFGAlgorithmsException("El axioma todavía no existe.");
         }
-        
-        return simboloInicio;
+
+        return axioma;
     }
 
 
@@ -199,7 +268,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @throws CFGAlgorithmsException Si está compuesta por elementos
      *                                (terminales o no terminales) no definidos previamente.
      */
-    public void addProduction(char nonterminal, String production) throws CFGAlgorithmsException {
+    public synchronized void addProduction(char nonterminal, String production) throws CFGAlgorithmsException {
 
        if (!noTerminales.contains(nonterminal)) {
             throw new CFGAlgorithmsException("El no terminal no forma parte del conjunto de no terminales");
@@ -219,8 +288,9 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
             throw new CFGAlgorithmsException("La prod ya existe este no terminal");
         }
         prodSet.add(production);  // Añade la producción al conjunto
-        
-        
+        indexar(nonterminal, production);
+        invalidar();
+        publicar();
     }
 
 
@@ -236,7 +306,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      * @throws CFGAlgorithmsException Si la producción no pertenecía a ese
      *                                elemento no terminal.
      */
-    public boolean removeProduction(char nonterminal, String production) throws CFGAlgorithmsException {
+    public synchronized boolean removeProduction(char nonterminal, String production) throws CFGAlgorithmsException {
         if (!noTerminales.contains(nonterminal)) {
             throw new CFGAlgorithmsException("El no terminal no está en la gramática");
         }
@@ -248,11 +318,14 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
         }
 
         boolean eliminado = prodSet.remove(production);
+        desindexar(nonterminal, production);
+        invalidar();
 
         // Verifica si el conjunto de producciones ha quedado vacío y elimina el no terminal del mapa si es necesario
         if (eliminado && prodSet.isEmpty()) {
             producciones.remove(nonterminal);
         }
+        publicar();
 
         return eliminado;
     }
@@ -270,7 +343,7 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      *         derecha de cada producción
      */
     public List<String> getProductions(char nonterminal) {
-        return new ArrayList<>(producciones.getOrDefault(nonterminal, new HashSet<>()));
+        return new ArrayList<>(instantanea().getProductions(nonterminal));
     }
 
 
@@ -290,19 +363,14 @@ public class CFGAlgorithms implements CFGInterface, WFCFGInterface, CNFInterface
      */
 
 public String getProductionsToString(char nonterminal) {
-    if (!producciones.containsKey(nonterminal) || producciones.get(nonterminal).isEmpty()) {
-        System.out.println("No hay producciones para: " + nonterminal);
+    Set<String> productionSet = instantanea().getProductions(nonterminal);
+    if (productionSet.isEmpty()) {
         return "";  // Retorna un string vacío si no existen producciones
     }
-    Set<String> productionSet = producciones.get(nonterminal);
     List<String> productionList = new ArrayList<>(productionSet);
     Collections.sort(productionList);
     StringBuilder result = new StringBuilder(nonterminal + "::=");
 
-    // Debug: Mostrar las producciones antes de ser formateadas
-    System.out.println("Producciones no ordenadas para " + nonterminal + ": " + productionSet);
-    System.out.println("Producciones ordenadas para " + nonterminal + ": " + productionList);
-
     for (int i = 0; i < productionList.size(); i++) {
         if (i > 0) {
             result.append("|");
@@ -310,9 +378,6 @@ public String getProductionsToString(char nonterminal) {
         result.append(productionList.get(i));
     }
 
-    // Debug: Mostrar el resultado final de la cadena de producciones
-    System.out.println("Cadena final de producciones para " + nonterminal + ": " + result.toString());
-
     return result.toString();
 }
 
@@ -328,19 +393,8 @@ public String getProductionsToString(char nonterminal) {
      *         los elementos no terminales ORDENADOS POR ORDEN ALFABÉTICO.
      */
     public String getGrammar() {
-        StringBuilder grammar = new StringBuilder();
-        
-        List<Character> noTerminalesOrdenados = new ArrayList<>(noTerminales);
-        Collections.sort(noTerminalesOrdenados);
-        for (Character nonTerminal : noTerminalesOrdenados){
-            grammar.append(nonTerminal).append(" ::= ");
-            
-            List<String> produccionesOrdenadas = new ArrayList<>(producciones.get(nonTerminal));
-            Collections.sort(produccionesOrdenadas);
-            grammar.append(String.join(" | ", produccionesOrdenadas));
-            grammar.append("\n");
-        }
-        return grammar.toString();
+        // El texto se genera una vez por instantánea
+        return instantanea().getGrammar();
     }
 
 
@@ -350,11 +404,15 @@ public String getProductionsToString(char nonterminal) {
      * gramática (elementos terminales, no terminales, axioma y producciones),
      * dejando el algoritmo listo para volver a insertar una gramática nueva.
      */
-    public void deleteGrammar() {
+    public synchronized void deleteGrammar() {
         noTerminales.clear();
         terminales.clear();
         producciones.clear();
         simboloInicio = null;
+        apariciones.clear();
+        aparicionesValidas = true;
+        invalidar();
+        publicar();
     }
 
 
@@ -364,7 +422,7 @@ public String getProductionsToString(char nonterminal) {
      *
      * @return true Si la gramática es una gramática independiente del contexto.
      */
-    public boolean isCFG() {
+    public synchronized boolean isCFG() {
          for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
         // solo debe tener unn no terminal como clave
         if (!noTerminales.contains(entry.getKey())) {
@@ -383,7 +441,7 @@ public String getProductionsToString(char nonterminal) {
      *
      * @return True si contiene ese tipo de reglas
      */
-    public boolean hasUselessProductions() {
+    public synchronized boolean hasUselessProductions() {
         for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
             char nonTerminal = entry.getKey();
             Set<String> productionSet = entry.getValue();
@@ -405,8 +463,12 @@ public String getProductionsToString(char nonterminal) {
      *         por cada producción), con todas las reglas innecesarias
      *         eliminadas.
      */
-    public List<String> removeUselessProductions() {
+    public synchronized List<String> removeUselessProductions() {
+        GrammarListener oyentePasada = oyente;
+        long inicio = empezarPasada(oyentePasada, "removeUselessProductions");
         List<String> removedProductions = new ArrayList<>();
+        invalidar();
+        aparicionesValidas = false;
         for (Character nonTerminal : new HashSet<>(producciones.keySet())) {
             Set<String> productions = producciones.get(nonTerminal);
             if (productions.remove(nonTerminal.toString())) {
@@ -416,6 +478,8 @@ public String getProductionsToString(char nonterminal) {
                 producciones.remove(nonTerminal);
             }
         }
+        terminarPasada(oyentePasada, "removeUselessProductions", inicio, 0, removedProductions.size());
+        publicar();
         return removedProductions;
     }
 
@@ -427,129 +491,165 @@ public String getProductionsToString(char nonterminal) {
      * @return Devuelve una lista con todos los símbolos no terminales y
      *         terminales eliminados.
      */
-    public List<Character> removeUselessSymbols() {
-    Set<Character> alcanzables = new HashSet<>();
-    Set<Character> generativos = new HashSet<>();
-    List<Character> eliminados = new ArrayList<>();
-
-    // Paso 1: Encontrar símbolos generativos
-    boolean changed;
-    do {
-        changed = false;
-        for (Character nt : noTerminales) {
-            for (String prod : producciones.getOrDefault(nt, new HashSet<>())) {
-                boolean esGenerativo = true;
-                for (char c : prod.toCharArray()) {
-                    if (!terminales.contains(c) && !generativos.contains(c)) {
-                        esGenerativo = false;
-                        break;
-                    }
+    public synchronized List<Character> removeUselessSymbols() {
+        GrammarListener oyentePasada = oyente;
+        long inicio = empezarPasada(oyentePasada, "removeUselessSymbols");
+        int produccionesAntes = contarProducciones();
+        List<Character> eliminados = new ArrayList<>();
+
+        // Paso 1: los generativos se calculan al compilar la gramática, con un
+        // contador de símbolos pendientes por producción (lineal en |G|)
+        CompiledGrammar g = compilar();
+        int numNoTerminales = g.getNonTerminalCount();
+
+        // Paso 2: alcanzables desde el axioma usando sólo producciones cuyos
+        // no terminales son todos generativos. En el mismo recorrido se
+        // marcan los terminales que siguen en uso.
+        boolean[] alcanzable = new boolean[numNoTerminales];
+        boolean[] terminalUsado = new boolean[g.getTerminalCount()];
+        int[] porProcesar = new int[numNoTerminales];
+        int fin = 0;
+        int axioma = g.getStartSymbol();
+        if (axioma >= 0 && g.isGenerating(axioma)) {
+            alcanzable[axioma] = true;
+            porProcesar[fin++] = axioma;
+        }
+        for (int pos = 0; pos < fin; pos++) {
+            int a = porProcesar[pos];
+            for (int p = g.getProductionsStart(a); p < g.getProductionsEnd(a); p++) {
+                if (!g.isGeneratingProduction(p)) {
+                    continue;
                 }
-                if (esGenerativo && generativos.add(nt)) {
-                    changed = true;
+                for (int k = 0; k < g.getProductionLength(p); k++) {
+                    int x = g.getProductionSymbol(p, k);
+                    if (x < 0) {
+                        // 'l' dentro de la parte derecha: la palabra vacía
+                        continue;
+                    }
+                    if (!g.isNonTerminal(x)) {
+                        terminalUsado[x - numNoTerminales] = true;
+                    } else if (!alcanzable[x]) {
+                        alcanzable[x] = true;
+                        porProcesar[fin++] = x;
+                    }
                 }
             }
         }
-    } while (changed);
 
-    // Paso 2: Encontrar símbolos alcanzables
-    Queue<Character> porProcesar = new LinkedList<>();
-    alcanzables.add(simboloInicio);
-    porProcesar.add(simboloInicio);
-    while (!porProcesar.isEmpty()) {
-        char actual = porProcesar.poll();
-        for (String prod : producciones.getOrDefault(actual, new HashSet<>())) {
-            for (char c : prod.toCharArray()) {
-                if (noTerminales.contains(c) && alcanzables.add(c)) {
-                    porProcesar.add(c);
-                }
+        // Paso 3: eliminar los no terminales no generativos o no alcanzables,
+        // sus producciones y las producciones en las que aparecen
+        for (int a = 0; a < numNoTerminales; a++) {
+            if (!alcanzable[a]) {
+                char nt = g.getSymbol(a);
+                eliminados.add(nt);
+                noTerminales.remove(nt);
+                eliminarProducciones(nt);
             }
         }
-    }
-
-    // Paso 3: Eliminar símbolos no generativos o no alcanzables
-    for (Character nt : new HashSet<>(noTerminales)) {
-        boolean tieneLambda = producciones.getOrDefault(nt, new HashSet<>()).contains("l");
-        if ((!generativos.contains(nt) || !alcanzables.contains(nt)) && !tieneLambda) {
-            eliminados.add(nt);
-            noTerminales.remove(nt);
-            producciones.remove(nt);
-        } else {
-            System.out.println("No terminal " + nt + " tiene lambda: " + tieneLambda);
+        for (Character nt : eliminados) {
+            eliminarApariciones(nt);
         }
-    }
 
-    for (Character t : new HashSet<>(terminales)) {
-        boolean usado = false;
-        for (Set<String> prods : producciones.values()) {
-            for (String prod : prods) {
-                if (prod.indexOf(t) != -1) {
-                    usado = true;
-                    break;
-                }
+        for (int t = 0; t < g.getTerminalCount(); t++) {
+            if (!terminalUsado[t]) {
+                char terminal = g.getSymbol(numNoTerminales + t);
+                eliminados.add(terminal);
+                terminales.remove(terminal);
             }
         }
-        if (!usado) {
-            eliminados.add(t);
-            terminales.remove(t);
+        invalidar();
+
+        for (Character simbolo : eliminados) {
+            oyentePasada.symbolRemoved("removeUselessSymbols", simbolo);
         }
+        terminarPasada(oyentePasada, "removeUselessSymbols", inicio, eliminados.size(), produccionesAntes - contarProducciones());
+        publicar();
+        return eliminados;
     }
 
 
-    // Paso 4: Eliminar símbolos redundantes (los que producen algo que ya se puede producir de otra manera)
-    Map<Character, Set<String>> produccionesSinRedundancias = new HashMap<>(producciones);
-    for (Character nt : new HashSet<>(noTerminales)) {
-        if (!nt.equals(simboloInicio) && esRedundante(nt, simboloInicio)) {
-            eliminados.add(nt);
-            noTerminales.remove(nt);
-            produccionesSinRedundancias.remove(nt);
-            for (Set<String> prods : produccionesSinRedundancias.values()) {
-                prods.removeIf(prod -> prod.indexOf(nt) != -1);
-            }
+
+private boolean tieneProduccionLambda(char nt) {
+    Set<String> produccionesNt = producciones.getOrDefault(nt, Collections.emptySet());
+    return produccionesNt.contains("l");
+}
+
+
+    /**
+     * Método que vuelca el estado actual de las producciones en el oyente
+     * configurado con {@link #setGrammarListener(GrammarListener)}, un no
+     * terminal cada vez y por orden.
+     */
+    public synchronized void debugProductions() {
+        GrammarListener oyenteVolcado = oyente;
+        if (oyenteVolcado == GrammarListener.NONE) {
+            return;
+        }
+        for (Map.Entry<Character, Set<String>> entry : new TreeMap<>(producciones).entrySet()) {
+            oyenteVolcado.productions(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
         }
     }
 
-    producciones = produccionesSinRedundancias;
 
-    // Eliminar símbolos de eliminados de las producciones
-    for (Character nt : eliminados) {
-        producciones.values().forEach(prodSet -> prodSet.removeIf(prod -> prod.indexOf(nt) != -1));
+
+    /**
+     * Método que establece el oyente que recibe los eventos de las
+     * transformaciones de la gramática (duración de cada pasada, símbolos y
+     * producciones eliminados...). Sin oyente no se genera ningún evento.
+     *
+     * @param listener El oyente, o null para no usar ninguno.
+     */
+    public void setGrammarListener(GrammarListener listener) {
+        oyente = listener != null ? listener : GrammarListener.NONE;
     }
 
-    // Imprimir los símbolos eliminados
-    System.out.println("Símbolos eliminados: " + eliminados);
 
-    return eliminados;
-}
-   
-private boolean esRedundante(char nt1, char nt2) {
-    Set<String> produccionesNt1 = producciones.getOrDefault(nt1, new HashSet<>());
-    Set<String> produccionesNt2 = producciones.getOrDefault(nt2, new HashSet<>());
-
-    // Verificar si las producciones de nt1 están todas contenidas en las de nt2
-    for (String prod : produccionesNt1) {
-        if (!produccionesNt2.contains(prod)) {
-            return false;
+
+    /**
+     * @return El oyente configurado, o {@link GrammarListener#NONE}.
+     */
+    public GrammarListener getGrammarListener() {
+        return oyente;
+    }
+
+
+
+    /**
+     * Avisa del comienzo de una pasada. Cada pasada lee el oyente una sola
+     * vez y usa esa copia para todos sus eventos, de modo que un
+     * setGrammarListener concurrente no reparte una pasada entre dos oyentes
+     * ni envía passFinished a uno que no recibió passStarted.
+     *
+     * @return El instante de inicio, o 0 si no hay oyente.
+     */
+    private static long empezarPasada(GrammarListener oyentePasada, String pasada) {
+        if (oyentePasada == GrammarListener.NONE) {
+            return 0;
         }
+        oyentePasada.passStarted(pasada);
+        return System.nanoTime();
     }
 
-    return true;
-}
-private boolean tieneProduccionLambda(char nt) {
-    Set<String> produccionesNt = producciones.getOrDefault(nt, Collections.emptySet());
-    return produccionesNt.contains("l");
-}
 
 
-    public void debugProductions() {
-        System.out.println("Estado actual de las producciones:");
-        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
-            System.out.println(entry.getKey() + "::=" + String.join("|", entry.getValue()));
+    private static void terminarPasada(GrammarListener oyentePasada, String pasada, long inicio, int simbolos, int eliminadas) {
+        if (oyentePasada != GrammarListener.NONE) {
+            oyentePasada.passFinished(pasada, System.nanoTime() - inicio, simbolos, eliminadas);
         }
     }
 
 
 
+    private int contarProducciones() {
+        int total = 0;
+        for (Set<String> cuerpos : producciones.values()) {
+            total += cuerpos.size();
+        }
+        return total;
+    }
+
+
+
     /**
      * Método que comprueba si la gramática almacenada tiene reglas no
      * generativas (reglas lambda). Excepto S::=l si sólo es para reconocer la
@@ -557,7 +657,7 @@ private boolean tieneProduccionLambda(char nt) {
      *
      * @return True si contiene ese tipo de reglas
      */
-    public boolean hasLambdaProductions() {
+    public synchronized boolean hasLambdaProductions() {
         for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
             if (!entry.getKey().equals(simboloInicio) || entry.getValue().size() > 1) {
                 if (entry.getValue().contains("l")) {
@@ -576,81 +676,243 @@ private boolean tieneProduccionLambda(char nt) {
      * sustituida (y, por lo tanto, devuelta en la lista de producciones
      * "eliminadas").
      *
+     * Cada producción se expande en todas las variantes que omiten sus
+     * símbolos anulables, por lo que una producción con k de ellos da lugar a
+     * 2^k producciones. Para gramáticas con producciones largas conviene usar
+     * {@link #removeLambdaProductions(boolean, int, long)}.
+     *
      * @return Devuelve una lista de no terminales que tenían reglas no
      *         generativas y han sido tratadas.
      */
-public List<Character> removeLambdaProductions() {
-    List<Character> modifiedNonTerminals = new ArrayList<>();
-    Set<Character> lambdaProducingNonTerminals = new HashSet<>();
+    public List<Character> removeLambdaProductions() {
+        try {
+            return removeLambdaProductions(false, Integer.MAX_VALUE, Long.MAX_VALUE);
+        } catch (CFGAlgorithmsException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
 
-    // iidentificar todos los no terminales que producen lambda directamente
-    for (Map.Entry<Character, Set<String>> entry : new HashMap<>(producciones).entrySet()) {
-        if (entry.getValue().remove("l")) {
-            lambdaProducingNonTerminals.add(entry.getKey());
-            modifiedNonTerminals.add(entry.getKey());
-            if (entry.getValue().isEmpty()) {
-                producciones.remove(entry.getKey());
+
+
+    /**
+     * Método que elimina todas las reglas no generativas de la gramática
+     * almacenada respetando un presupuesto de tamaño para el resultado.
+     *
+     * Si se pide binarizar, antes de expandir se parte cada producción con más
+     * de dos símbolos anulables en una cadena de producciones que tienen como
+     * mucho dos posiciones anulables cada una, introduciendo nuevos no
+     * terminales para los sufijos (compartidos entre producciones con el mismo
+     * sufijo). Así cada producción genera como mucho 4 variantes y el
+     * resultado crece de forma lineal en lugar de exponencial.
+     *
+     * Si el resultado supera el presupuesto se lanza una excepción y la
+     * gramática queda como estaba.
+     *
+     * @param binarize       true para partir antes las producciones con más de
+     *                       dos símbolos anulables.
+     * @param maxProductions Número máximo de producciones que se pueden
+     *                       generar al expandir los símbolos anulables.
+     * @param maxSymbols     Número máximo de símbolos que pueden sumar las
+     *                       partes derechas generadas, que acota la memoria
+     *                       que ocupa el resultado.
+     *
+     * @return Devuelve una lista de no terminales que tenían reglas no
+     *         generativas y han sido tratadas.
+     *
+     * @throws CFGAlgorithmsException Si el resultado excede el presupuesto o
+     *                                si no quedan símbolos libres para los
+     *                                nuevos no terminales.
+     */
+    public synchronized List<Character> removeLambdaProductions(boolean binarize, int maxProductions, long maxSymbols) throws CFGAlgorithmsException {
+        GrammarListener oyentePasada = oyente;
+        long inicio = empezarPasada(oyentePasada, "removeLambdaProductions");
+        CompiledGrammar gramatica = compilar();
+        List<Character> modificados = new ArrayList<>();
+        Set<Character> anulables = new HashSet<>();
+
+        // Primero los no terminales con regla lambda, después el resto de
+        // anulables en el orden de la gramática compilada
+        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
+            if (entry.getValue().contains("l")) {
+                anulables.add(entry.getKey());
+                modificados.add(entry.getKey());
             }
         }
-    }
-    
-    boolean changes = true;
-    while (changes) {
-        changes = false;
-        for (Map.Entry<Character, Set<String>> entry : new HashMap<>(producciones).entrySet()) {
-            for (String production : entry.getValue()) {
-                if (production.chars().allMatch(c -> lambdaProducingNonTerminals.contains((char) c))) {
-                    if (!lambdaProducingNonTerminals.contains(entry.getKey())) {
-                        lambdaProducingNonTerminals.add(entry.getKey());
-                        modifiedNonTerminals.add(entry.getKey());
-                        changes = true;
+        // Sólo el axioma conserva su regla lambda
+        int eliminadas = modificados.size() - (modificados.contains(simboloInicio) ? 1 : 0);
+        for (int a = 0; a < gramatica.getNonTerminalCount(); a++) {
+            char nt = gramatica.getSymbol(a);
+            if (gramatica.isNullable(a) && anulables.add(nt)) {
+                modificados.add(nt);
+            }
+        }
+
+        Map<Character, Set<String>> partidas = new HashMap<>();
+        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
+            Set<String> cuerpos = new HashSet<>(entry.getValue());
+            cuerpos.remove("l");
+            partidas.put(entry.getKey(), cuerpos);
+        }
+
+        List<Character> creados = new ArrayList<>();
+        try {
+            if (binarize) {
+                Map<String, Character> sufijos = new HashMap<>();
+                for (Character nt : new ArrayList<>(partidas.keySet())) {
+                    Set<String> cuerpos = new HashSet<>();
+                    for (String cuerpo : partidas.get(nt)) {
+                        cuerpos.add(partirAnulables(cuerpo, anulables, sufijos, partidas, creados));
                     }
+                    partidas.put(nt, cuerpos);
+                }
+            }
+
+            long[] consumo = new long[2];
+            Map<Character, Set<String>> nuevas = new HashMap<>();
+            for (Map.Entry<Character, Set<String>> entry : partidas.entrySet()) {
+                Set<String> cuerpos = new HashSet<>();
+                for (String cuerpo : entry.getValue()) {
+                    expandirAnulables(cuerpo, anulables, cuerpos, consumo, maxProductions, maxSymbols);
                 }
+                if (!cuerpos.isEmpty()) {
+                    nuevas.put(entry.getKey(), cuerpos);
+                }
+            }
+
+            // caso especial para el símbolo de inicio
+            if (simboloInicio != null && anulables.contains(simboloInicio)) {
+                nuevas.computeIfAbsent(simboloInicio, k -> new HashSet<>()).add("l");
             }
+
+            producciones.clear();
+            producciones.putAll(nuevas);
+        } catch (CFGAlgorithmsException e) {
+            noTerminales.removeAll(creados);
+            throw e;
+        } finally {
+            invalidar();
+            aparicionesValidas = false;
         }
+        terminarPasada(oyentePasada, "removeLambdaProductions", inicio, 0, eliminadas);
+        publicar();
+        return modificados;
     }
 
-    // aactualizar todas las producciones que incluyen estos no terminales
-    for (Character nonTerminal : new HashSet<>(producciones.keySet())) {
-        Set<String> updatedProductions = new HashSet<>(producciones.get(nonTerminal));
-        
-        for (String production : new HashSet<>(producciones.get(nonTerminal))) {
-            // Generar nuevas producciones omitiendo los no terminales que producen lambda
-            Set<String> combinations = generateCombinations(production, lambdaProducingNonTerminals);
-            updatedProductions.addAll(combinations);
+
+
+    /**
+     * Parte el cuerpo indicado para que ninguna producción tenga más de dos
+     * posiciones anulables. Si las posiciones anulables son n1 < n2 < ... < nk
+     * con k > 2, el cuerpo se sustituye por α·Y1, donde α llega hasta n1 e Y1
+     * deriva el resto; a su vez Y1 deriva lo que hay hasta n2 seguido de Y2, y
+     * así hasta que el sufijo sólo tiene dos posiciones anulables. Un Yj es
+     * anulable si todo su sufijo lo es, de modo que cuenta como una de las dos
+     * posiciones de la producción en la que aparece.
+     *
+     * @return El nuevo cuerpo de la producción.
+     */
+    private String partirAnulables(String cuerpo, Set<Character> anulables, Map<String, Character> sufijos,
+                                   Map<Character, Set<String>> partidas, List<Character> creados) throws CFGAlgorithmsException {
+        List<Integer> posiciones = new ArrayList<>();
+        for (int i = 0; i < cuerpo.length(); i++) {
+            if (anulables.contains(cuerpo.charAt(i))) {
+                posiciones.add(i);
+            }
+        }
+        int k = posiciones.size();
+        if (k <= 2) {
+            return cuerpo;
         }
-        
-        producciones.put(nonTerminal, updatedProductions);
-    }
 
-    // caso especial para el símbolo de inicio
-    if (lambdaProducingNonTerminals.contains(simboloInicio)) {
-        producciones.putIfAbsent(simboloInicio, new HashSet<>());
-        producciones.get(simboloInicio).add("l");
+        // Se recorren los sufijos de más corto a más largo, de forma que cada
+        // uno se apoya en el no terminal del siguiente
+        String cola = cuerpo.substring(posiciones.get(k - 3) + 1);
+        boolean todoAnulable = true;
+        for (int i = posiciones.get(k - 3) + 1; i < cuerpo.length(); i++) {
+            todoAnulable &= anulables.contains(cuerpo.charAt(i));
+        }
+        for (int j = k - 3; j >= 0; j--) {
+            String sufijo = cuerpo.substring(posiciones.get(j) + 1);
+            Character nt = sufijos.get(sufijo);
+            if (nt == null) {
+                nt = nuevoNoTerminal();
+                creados.add(nt);
+                partidas.put(nt, new HashSet<>(Collections.singleton(cola)));
+                sufijos.put(sufijo, nt);
+            }
+            if (todoAnulable) {
+                anulables.add(nt);
+            }
+            int desde = j > 0 ? posiciones.get(j - 1) + 1 : 0;
+            for (int i = desde; i <= posiciones.get(j); i++) {
+                todoAnulable &= anulables.contains(cuerpo.charAt(i));
+            }
+            cola = cuerpo.substring(desde, posiciones.get(j) + 1) + nt;
+        }
+        return cola;
     }
 
-    return modifiedNonTerminals;
-}
 
-// Método auxiliar para generar todas las combinaciones de una producción omitiendo ciertos no terminales
-private Set<String> generateCombinations(String production, Set<Character> removableNonTerminals) {
-    Set<String> combinations = new HashSet<>();
-    combinations.add(production);  // Agregar la producción original
 
-    for (int i = 0; i < production.length(); i++) {
-        if (removableNonTerminals.contains(production.charAt(i))) {
-            // Para cada carácter que se puede eliminar, generar nuevas versiones de la producción sin ese carácter
-            String withoutChar = production.substring(0, i) + production.substring(i + 1);
-            combinations.add(withoutChar);
-            combinations.addAll(generateCombinations(withoutChar, removableNonTerminals));
+    /**
+     * Añade a destino todas las variantes no vacías del cuerpo que resultan de
+     * omitir cualquier subconjunto de sus símbolos anulables. Cada subconjunto
+     * se visita una única vez, recorriéndolos como un contador binario sobre
+     * las posiciones anulables.
+     *
+     * El presupuesto se cobra por variante generada, antes de descartar las
+     * repetidas, para que también acote el trabajo: el número de variantes
+     * se conoce de antemano y se comprueba antes de empezar.
+     *
+     * @param consumo Producciones y símbolos generados hasta ahora.
+     */
+    private void expandirAnulables(String cuerpo, Set<Character> anulables, Set<String> destino,
+                                   long[] consumo, int maxProducciones, long maxSimbolos) throws CFGAlgorithmsException {
+        List<Integer> posiciones = new ArrayList<>();
+        for (int i = 0; i < cuerpo.length(); i++) {
+            if (anulables.contains(cuerpo.charAt(i))) {
+                posiciones.add(i);
+            }
+        }
+
+        if (posiciones.size() >= Long.SIZE - 1 || consumo[0] + (1L << posiciones.size()) > maxProducciones) {
+            throw new CFGAlgorithmsException("La eliminación de reglas lambda supera el máximo de "
+                    + maxProducciones + " producciones.");
+        }
+        consumo[0] += 1L << posiciones.size();
+
+        boolean[] omitida = new boolean[cuerpo.length()];
+        StringBuilder variante = new StringBuilder(cuerpo.length());
+        while (true) {
+            variante.setLength(0);
+            for (int i = 0; i < cuerpo.length(); i++) {
+                if (!omitida[i]) {
+                    variante.append(cuerpo.charAt(i));
+                }
+            }
+            consumo[1] += variante.length();
+            if (consumo[1] > maxSimbolos) {
+                throw new CFGAlgorithmsException("La eliminación de reglas lambda supera el máximo de "
+                        + maxSimbolos + " símbolos.");
+            }
+            if (variante.length() > 0) {
+                destino.add(variante.toString());
+            }
+
+            // Siguiente subconjunto: se incrementa el contador binario
+            int x = 0;
+            while (x < posiciones.size() && omitida[posiciones.get(x)]) {
+                omitida[posiciones.get(x)] = false;
+                x++;
+            }
+            if (x == posiciones.size()) {
+                return;
+            }
+            omitida[posiciones.get(x)] = true;
         }
     }
 
-    // Remover producciones vacías si no son el símbolo de inicio
-    combinations.remove("");
-    
-    return combinations;
-}
+
 
     /**
      * Método que comprueba si la gramática almacenada tiene reglas unitarias
@@ -658,7 +920,7 @@ private Set<String> generateCombinations(String production, Set<Character> remov
      *
      * @return True si contiene ese tipo de reglas
      */
-    public boolean hasUnitProductions() {
+    public synchronized boolean hasUnitProductions() {
         for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
         for (String prod : entry.getValue()) {
             if (prod.length() == 1 && noTerminales.contains(prod.charAt(0))) {
@@ -674,67 +936,68 @@ private Set<String> generateCombinations(String production, Set<Character> remov
     /**
      * Método que elimina las reglas unitarias de la gramática almacenada.
      *
+     * Se apoya en el cierre unitario de la gramática compilada (calculado
+     * sobre las componentes fuertemente conexas del grafo de reglas
+     * unitarias): cada no terminal A recibe las producciones no unitarias de
+     * cada B con A =>* B, copiándolas una sola vez por par (A, B). Cuentan
+     * también las derivaciones A::=αBβ con αβ anulable (por ejemplo, cuando
+     * aparece el axioma con S::=l). La regla lambda sólo se conserva en el no
+     * terminal que la tenía.
+     *
      * @return Devuelve una lista de producciones (un String de la forma "A::=B"
      *         por cada producción), con todas las reglas unitarias eliminadas.
      */
-public List<String> removeUnitProductions() {
-    List<String> removedUnitProductions = new ArrayList<>();
-    Map<Character, Set<String>> newProductions = new HashMap<>();
-    Map<Character, Set<Character>> unitChains = new HashMap<>();
-
-    // Inicialización de estructuras y primer registro del estado de las producciones
-    for (Character nonTerminal : producciones.keySet()) {
-        newProductions.put(nonTerminal, new HashSet<>());  // Preparar nuevo conjunto de producciones
-        unitChains.put(nonTerminal, new HashSet<>());  // Cadenas de unidades para cada no terminal
-        for (String prod : producciones.get(nonTerminal)) {
-            if (prod.length() == 1 && noTerminales.contains(prod.charAt(0))) {
-                unitChains.get(nonTerminal).add(prod.charAt(0));  // Agregar a la cadena de unidad
-            } else {
-                newProductions.get(nonTerminal).add(prod);  // Agregar producciones no unitarias inicialmente
+    public synchronized List<String> removeUnitProductions() {
+        GrammarListener oyentePasada = oyente;
+        long inicio = empezarPasada(oyentePasada, "removeUnitProductions");
+        CompiledGrammar gramatica = compilar();
+        int numNoTerminales = gramatica.getNonTerminalCount();
+        List<String> eliminadas = new ArrayList<>();
+
+        // Producciones no unitarias de cada no terminal, separadas una vez
+        List<List<String>> noUnitarias = new ArrayList<>();
+        for (int b = 0; b < numNoTerminales; b++) {
+            char nt = gramatica.getSymbol(b);
+            List<String> propias = new ArrayList<>();
+            for (String prod : producciones.getOrDefault(nt, Collections.emptySet())) {
+                if (prod.length() == 1 && noTerminales.contains(prod.charAt(0))) {
+                    eliminadas.add(nt + "::=" + prod);
+                } else {
+                    propias.add(prod);
+                }
             }
+            noUnitarias.add(propias);
         }
-    }
-
-    System.out.println("Inicialización de nuevas producciones: " + newProductions);
-    System.out.println("Cadenas unitarias detectadas: " + unitChains);
 
-    // Procesamiento de producciones unitarias para propagación
-    boolean changes;
-    do {
-        changes = false;
-        for (Character nonTerminal : new HashSet<>(unitChains.keySet())) {
-            Set<Character> currentChain = unitChains.get(nonTerminal);
-            Set<Character> toAdd = new HashSet<>();
-            for (Character target : new HashSet<>(currentChain)) {
-                if (unitChains.containsKey(target)) {
-                    for (Character expansion : unitChains.get(target)) {
-                        if (!currentChain.contains(expansion) && expansion != nonTerminal) {
-                            toAdd.add(expansion);  // Prevenir ciclos
-                            changes = true;
+        Map<Character, Set<String>> nuevas = new HashMap<>();
+        for (int a = 0; a < numNoTerminales; a++) {
+            char nt = gramatica.getSymbol(a);
+            if (!producciones.containsKey(nt)) {
+                continue;
+            }
+            Set<String> cuerpos = new HashSet<>(noUnitarias.get(a));
+            for (int b = 0; b < numNoTerminales; b++) {
+                if (b != a && gramatica.isUnitReachable(a, b)) {
+                    for (String prod : noUnitarias.get(b)) {
+                        if (!prod.equals("l")) {
+                            cuerpos.add(prod);
                         }
                     }
                 }
-                // Transferir producciones no unitarias desde el objetivo al origen
-                for (String prod : newProductions.get(target)) {
-                    if (prod.length() != 1 || !noTerminales.contains(prod.charAt(0)) || prod.charAt(0) != nonTerminal) {
-                        newProductions.get(nonTerminal).add(prod);
-                    }
-                }
             }
-            currentChain.addAll(toAdd);  // Añadir nuevos objetivos unitarios
+            nuevas.put(nt, cuerpos);
         }
-    } while (changes);
 
-    // Registro de cambios después de propagar producciones unitarias
-    System.out.println("Estado final de nuevas producciones: " + newProductions);
-    System.out.println("Estado final de cadenas unitarias: " + unitChains);
-
-    // Actualizar las producciones originales para remover las unitarias completamente
-    producciones.clear();
-    producciones.putAll(newProductions);
-
-    return removedUnitProductions;
-}
+        producciones.clear();
+        producciones.putAll(nuevas);
+        invalidar();
+        aparicionesValidas = false;
+
+        Collections.sort(eliminadas);
+        terminarPasada(oyentePasada, "removeUnitProductions", inicio, 0, eliminadas.size());
+        publicar();
+        return eliminadas;
+    }
 
 
 
@@ -748,12 +1011,24 @@ public List<String> removeUnitProductions() {
      * - 2. Elimina las reglas no generativas.
      * - 3. Elimina las reglas unitarias.
      * - 4. Elimina los símbolo inútiles.
+     *
+     * Los lectores de otros hilos sólo ven la gramática resultante, no la de
+     * los pasos intermedios.
      */
-    public void transformToWellFormedGrammar() {
-        removeUselessProductions();
-        removeLambdaProductions();
-        removeUnitProductions();
-        removeUselessSymbols();
+    public synchronized void transformToWellFormedGrammar() {
+        // Los lectores siguen con la gramática de partida, sin esperar al
+        // cerrojo, hasta que termine la transformación
+        publicarPendiente();
+        publicacionDiferida++;
+        try {
+            removeUselessProductions();
+            removeLambdaProductions();
+            removeUnitProductions();
+            removeUselessSymbols();
+        } finally {
+            publicacionDiferida--;
+            publicar();
+        }
     }
 
 
@@ -771,7 +1046,7 @@ public List<String> removeUnitProductions() {
      *                                (terminales o no terminales) no definidos
      *                                previamente.
      */
-    public void checkCNFProduction(char nonterminal, String production) throws CFGAlgorithmsException {
+    public synchronized void checkCNFProduction(char nonterminal, String production) throws CFGAlgorithmsException {
         if (!noTerminales.contains(nonterminal)) {
             throw new CFGAlgorithmsException("EL no terminal no definido");
         }
@@ -797,26 +1072,8 @@ public List<String> removeUnitProductions() {
      * @return true Si la gramática está en Forma Normal de Chomsky
      */
     public boolean isCNF() {
-        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
-        for (String prod : entry.getValue()) {
-            // Ignora la producción lambda específicamente para el símbolo de inicio si hay más producciones
-            if (prod.equals("l") && entry.getKey().equals(simboloInicio)) {
-                continue;
-            }
-            // Verifica si la producción es de un terminal solo
-            if (prod.length() == 1 && terminales.contains(prod.charAt(0))) {
-                continue;
-            }
-            // Verifica si la producción consta de dos no terminales
-            if (prod.length() == 2 && noTerminales.contains(prod.charAt(0)) && noTerminales.contains(prod.charAt(1))) {
-                continue;
-            }
-            // Si no cumple las condiciones de CNF, devuelve false
-            return false;
-        }
-    }
-    // Si todas las producciones pasan las verificaciones, devuelve true
-    return true;
+        // La comprobación se hace una sola vez al compilar la gramática
+        return instantanea().getCompiled().isCNF();
     }
 
 
@@ -828,8 +1085,142 @@ public List<String> removeUnitProductions() {
      * @throws CFGAlgorithmsException Si la gramática de la que partimos no es
      *                                una gramática bien formada.
      */
-    public void transformIntoCNF() throws CFGAlgorithmsException {
-        throw new UnsupportedOperationException("Not supported yet."); // Generated from nbfs://nbhost/SystemFileSystem/Templates/Classes/Code/GeneratedMethodBody
+    public synchronized void transformIntoCNF() throws CFGAlgorithmsException {
+        comprobarBienFormada();
+        GrammarListener oyentePasada = oyente;
+        long inicio = empezarPasada(oyentePasada, "transformIntoCNF");
+        invalidar();
+        aparicionesValidas = false;
+
+        // Un único no terminal "proxy" por terminal y uno por cada sufijo
+        // distinto, compartidos por todas las producciones que los usan: la
+        // gramática resultante crece linealmente con la original.
+        Map<Character, Character> proxies = new HashMap<>();
+        Map<String, Character> sufijos = new HashMap<>();
+
+        List<Character> ordenados = new ArrayList<>(producciones.keySet());
+        Collections.sort(ordenados);
+
+        // Un no terminal que ya es X::=a sirve como proxy de a
+        for (Character nt : ordenados) {
+            Set<String> prods = producciones.get(nt);
+            if (!nt.equals(simboloInicio) && prods.size() == 1) {
+                String unica = prods.iterator().next();
+                if (unica.length() == 1 && terminales.contains(unica.charAt(0))) {
+                    proxies.putIfAbsent(unica.charAt(0), nt);
+                }
+            }
+        }
+
+        Map<Character, Set<String>> nuevas = new HashMap<>();
+        for (Character nt : ordenados) {
+            List<String> prods = new ArrayList<>(producciones.get(nt));
+            Collections.sort(prods);
+            Set<String> resultado = new HashSet<>();
+            for (String prod : prods) {
+                if (prod.length() == 1) {
+                    resultado.add(prod);
+                    continue;
+                }
+                StringBuilder cuerpo = new StringBuilder(prod.length());
+                for (int i = 0; i < prod.length(); i++) {
+                    char c = prod.charAt(i);
+                    cuerpo.append(terminales.contains(c) ? proxy(c, proxies, nuevas) : c);
+                }
+                resultado.add(binarizar(cuerpo.toString(), sufijos, nuevas));
+            }
+            nuevas.computeIfAbsent(nt, k -> new HashSet<>()).addAll(resultado);
+        }
+
+        producciones.clear();
+        producciones.putAll(nuevas);
+        terminarPasada(oyentePasada, "transformIntoCNF", inicio, 0, 0);
+        publicar();
+    }
+
+
+
+    /**
+     * Devuelve el no terminal que sustituye al terminal indicado dentro de las
+     * producciones largas, creándolo la primera vez (X::=a).
+     */
+    private char proxy(char terminal, Map<Character, Character> proxies,
+                       Map<Character, Set<String>> nuevas) throws CFGAlgorithmsException {
+        Character existente = proxies.get(terminal);
+        if (existente != null) {
+            return existente;
+        }
+        char nt = nuevoNoTerminal();
+        nuevas.computeIfAbsent(nt, k -> new HashSet<>()).add(String.valueOf(terminal));
+        proxies.put(terminal, nt);
+        return nt;
+    }
+
+
+
+    /**
+     * Reduce una parte derecha formada sólo por no terminales a dos símbolos:
+     * X1X2...Xk pasa a ser X1 Y, con Y::=X2...Xk binarizado a su vez. Cada
+     * sufijo distinto recibe un único no terminal, compartido por todas las
+     * producciones que terminan igual.
+     */
+    private String binarizar(String cuerpo, Map<String, Character> sufijos,
+                             Map<Character, Set<String>> nuevas) throws CFGAlgorithmsException {
+        if (cuerpo.length() <= 2) {
+            return cuerpo;
+        }
+        // Se recorren los sufijos de más corto a más largo, de forma que cada
+        // uno se apoya en el no terminal del anterior
+        String cola = cuerpo.substring(cuerpo.length() - 2);
+        for (int i = cuerpo.length() - 2; i >= 1; i--) {
+            String sufijo = cuerpo.substring(i);
+            Character nt = sufijos.get(sufijo);
+            if (nt == null) {
+                nt = nuevoNoTerminal();
+                nuevas.computeIfAbsent(nt, k -> new HashSet<>()).add(cola);
+                sufijos.put(sufijo, nt);
+            }
+            cola = cuerpo.charAt(i - 1) + String.valueOf(nt);
+        }
+        return cola;
+    }
+
+
+
+    /**
+     * Da de alta un nuevo no terminal que no esté ya en la gramática. Se
+     * prueban primero las letras mayúsculas A-Z y después el resto de
+     * caracteres en mayúscula de Unicode.
+     */
+    private char nuevoNoTerminal() throws CFGAlgorithmsException {
+        for (char c = 'A'; c < Character.MAX_VALUE; c++) {
+            if (Character.isUpperCase(c) && !noTerminales.contains(c) && !terminales.contains(c)) {
+                noTerminales.add(c);
+                return c;
+            }
+        }
+        throw new CFGAlgorithmsException("No quedan símbolos libres para nuevos no terminales.");
+    }
+
+
+
+    /**
+     * Comprueba que la gramática almacenada está bien formada, tal y como se
+     * exige antes de transformarla a FNC: sin reglas unitarias (y, por tanto,
+     * sin reglas innecesarias) y sin reglas lambda salvo la del axioma.
+     */
+    private void comprobarBienFormada() throws CFGAlgorithmsException {
+        if (simboloInicio == null) {
+            throw new CFGAlgorithmsException("La gramática carece de axioma.");
+        }
+        if (hasUnitProductions()) {
+            throw new CFGAlgorithmsException("La gramática no está bien formada: tiene reglas unitarias.");
+        }
+        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
+            if (!entry.getKey().equals(simboloInicio) && entry.getValue().contains("l")) {
+                throw new CFGAlgorithmsException("La gramática no está bien formada: tiene reglas lambda.");
+            }
+        }
     }
 
 
@@ -849,33 +1240,858 @@ public List<String> removeUnitProductions() {
      * @throws CFGAlgorithmsException Si la palabra proporcionada no está
      *                                formada sólo por terminales, si está formada por terminales que no
      *                                pertenecen al conjunto de terminales definido para la gramática
-     *                                introducida, si la gramática es vacía o si el autómata carece de axioma.
+     *                                introducida, si la gramática es vacía, si el autómata carece de axioma
+     *                                o si la palabra es demasiado larga para la tabla CYK.
      */
     public boolean isDerivedUsignCYK(String word) throws CFGAlgorithmsException {
-        throw new UnsupportedOperationException("Not supported yet."); // Generated from nbfs://nbhost/SystemFileSystem/Templates/Classes/Code/GeneratedMethodBody
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, word);
+
+        MembershipCache cache = cacheCYK;
+        if (cache == null) {
+            return reconocerCYK(gramatica, word);
+        }
+        Boolean guardado = cache.get(word, gramatica.getEpoch());
+        if (guardado != null) {
+            return guardado;
+        }
+        boolean resultado = reconocerCYK(gramatica, word);
+        cache.put(word, resultado, gramatica.getEpoch());
+        return resultado;
     }
 
 
 
     /**
-     * Método que, para una palabra, devuelve un String que contiene todas las
-     * celdas calculadas por el algoritmo CYK (la visualización debe ser similar
-     * al ejemplo proporcionado en el PDF que contiene el paso a paso del
-     * algoritmo).
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. En lugar de rellenar la tabla CYK
+     * completa, se parte del axioma sobre la palabra entera y sólo se
+     * resuelven los pares (no terminal, subcadena) a los que se llega desde
+     * él, guardando el resultado de cada uno para no repetirlo.
+     *
+     * La gramática deberá estar en FNC.
      *
      * @param word La palabra a verificar, tiene que estar formada sólo por
-     *             elementos no terminales.
+     *             elementos terminales.
      *
-     * @return Un String donde se vea la tabla calculada de manera completa,
-     *         todas las celdas que ha calculado el algoritmo.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
      *
      * @throws CFGAlgorithmsException Si la palabra proporcionada no está
      *                                formada sólo por terminales, si está formada por terminales que no
      *                                pertenecen al conjunto de terminales definido para la gramática
-     *                                introducida, si la gramática es vacía o si carece de axioma.
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                está en FNC.
      */
-    public String algorithmCYKStateToString(String word) throws CFGAlgorithmsException {
-        throw new UnsupportedOperationException("Not supported yet."); // Generated from nbfs://nbhost/SystemFileSystem/Templates/Classes/Code/GeneratedMethodBody
+    public boolean isDerivedUsingTopDown(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, word);
+
+        return gramatica.getTopDown().recognize(word);
+    }
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido, usando el algoritmo CYK expresado como
+     * producto de matrices booleanas: para cada no terminal se guarda qué
+     * subcadenas deriva en matrices de bits, de modo que cada regla A::=BC
+     * prueba 64 puntos de corte con una sola operación AND. La tabla se
+     * calcula por bloques de 64x64 celdas, en paralelo a partir de la
+     * longitud de palabra de {@link #setCYKParallelThreshold(int)}.
+     *
+     * Compensa con gramáticas cuyas celdas contienen muchos no terminales;
+     * la memoria crece con el cuadrado de la longitud de la palabra.
+     *
+     * La gramática deberá estar en FNC.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma, si no
+     *                                está en FNC o si las matrices de la palabra no caben en memoria.
+     */
+    public boolean isDerivedUsingMatrixCYK(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, word);
+        MatrixCYKRecognizer matricial = gramatica.getMatrixCYK();
+        if (!matricial.cabe(word.length())) {
+            throw new CFGAlgorithmsException("La palabra es demasiado larga para el CYK matricial: " + word.length() + " caracteres.");
+        }
+
+        return matricial.recognize(word, umbralCYKParalelo);
+    }
+
+
+
+    /**
+     * Reconoce la palabra con el AFD de la gramática si es regular y el atajo
+     * está activado, y con CYK en otro caso.
+     */
+    private boolean reconocerCYK(GrammarSnapshot gramatica, String word) throws CFGAlgorithmsException {
+        RegularRecognizer afd = atajoRegular ? gramatica.getRegular() : null;
+        if (afd != null) {
+            return afd.recognize(word);
+        }
+        comprobarTablaCYK(gramatica, word);
+        return gramatica.getCYK().recognize(word, umbralCYKParalelo);
+    }
+
+
+
+    /**
+     * Método que abre una sesión de reconocimiento CYK para una palabra que
+     * llega carácter a carácter. Cada carácter añadido calcula sólo su
+     * columna de la tabla CYK, y tras cada uno la sesión indica si el prefijo
+     * leído pertenece al lenguaje.
+     *
+     * La gramática deberá estar en FNC. La sesión trabaja sobre la gramática
+     * actual: no le afectan las modificaciones posteriores.
+     *
+     * @return Una sesión nueva, sin caracteres leídos.
+     *
+     * @throws CFGAlgorithmsException Si la gramática es vacía, si carece de
+     *                                axioma o si no está en FNC.
+     */
+    public StreamingRecognizer newStreamingRecognizer() throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, "");
+
+        return new StreamingRecognizer(gramatica.getCYK());
+    }
+
+
+
+    /**
+     * Método que calcula la tabla CYK de una palabra y la conserva para
+     * poder sustituir después sus caracteres uno a uno. Tras cada
+     * sustitución sólo se recalculan las celdas cuya subcadena contiene la
+     * posición modificada.
+     *
+     * La gramática deberá estar en FNC. La tabla trabaja sobre la gramática
+     * actual: no le afectan las modificaciones posteriores.
+     *
+     * @param word La palabra inicial, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return La tabla CYK de la palabra.
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma, si no
+     *                                está en FNC o si la palabra es demasiado larga para la tabla CYK.
+     */
+    public CYKTable newCYKTable(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, word);
+        comprobarTablaCYK(gramatica, word);
+
+        return new CYKTable(gramatica.getCYK(), word);
+    }
+
+
+
+    /**
+     * Método que indica si la gramática genera un lenguaje regular. Se
+     * detectan las gramáticas fuertemente regulares, aquellas en las que los
+     * no terminales mutuamente recursivos sólo aparecen al final de las
+     * producciones de su grupo (lineales por la derecha) o sólo al principio
+     * (lineales por la izquierda). Es una condición suficiente que cumplen
+     * todas las gramáticas lineales y sus equivalentes en FNC; una gramática
+     * que no la cumpla puede generar, aun así, un lenguaje regular.
+     *
+     * @return true si la gramática es fuertemente regular.
+     */
+    public boolean isRegular() {
+        return RegularRecognizer.isStronglyRegular(instantanea().getCompiled());
+    }
+
+
+
+    /**
+     * Activa o desactiva el atajo para gramáticas regulares: si la gramática
+     * es fuertemente regular (ver {@link #isRegular()}),
+     * {@link #isDerivedUsignCYK(String)} y
+     * {@link #isDerivedBatch(Collection)} construyen una vez su autómata
+     * finito determinista mínimo y reconocen cada palabra en tiempo lineal en
+     * lugar de rellenar la tabla CYK. Está activado por defecto.
+     *
+     * @param enabled true para usar el autómata cuando sea posible.
+     */
+    public void setRegularFastPath(boolean enabled) {
+        atajoRegular = enabled;
+    }
+
+
+
+    /**
+     * Activa una caché acotada de resultados delante de
+     * {@link #isDerivedUsignCYK(String)}, útil cuando las mismas palabras se
+     * consultan muchas veces. Al llenarse expulsa con la política CLOCK, una
+     * aproximación de LRU, y las consultas que aciertan no toman cerrojos. Cualquier modificación de la gramática
+     * incrementa su época (ver {@link #getGrammarEpoch()}) y vacía la caché.
+     * Cada llamada crea una caché nueva, con los contadores a cero.
+     *
+     * @param maxEntries Número máximo de palabras guardadas. Un valor menor o
+     *                   igual que 0 desactiva la caché.
+     */
+    public void setMembershipCacheSize(int maxEntries) {
+        cacheCYK = maxEntries > 0 ? new MembershipCache(maxEntries) : null;
+    }
+
+
+
+    /**
+     * @return Número de consultas a isDerivedUsignCYK resueltas por la caché
+     *         (0 si está desactivada).
+     */
+    public long getMembershipCacheHits() {
+        MembershipCache cache = cacheCYK;
+        return cache != null ? cache.getHits() : 0;
+    }
+
+
+
+    /**
+     * @return Número de consultas a isDerivedUsignCYK que no estaban en la
+     *         caché y hubo que calcular (0 si está desactivada).
+     */
+    public long getMembershipCacheMisses() {
+        MembershipCache cache = cacheCYK;
+        return cache != null ? cache.getMisses() : 0;
+    }
+
+
+
+    /**
+     * Devuelve la época de la gramática, un contador que se incrementa cada
+     * vez que se modifica (al añadir o eliminar símbolos o producciones, al
+     * cambiar el axioma o al aplicar cualquier transformación).
+     *
+     * @return La época actual.
+     */
+    public long getGrammarEpoch() {
+        return instantanea().getEpoch();
+    }
+
+
+
+    /**
+     * Método que indica, para cada palabra de la colección, si pertenece al
+     * lenguaje generado por la gramática, usando el algoritmo CYK. La
+     * gramática se compila y se comprueba una única vez y las palabras se
+     * reparten en bloques entre los hilos del ejecutor configurado con
+     * {@link #setBatchExecutor(Executor)}.
+     *
+     * La gramática deberá estar en FNC. Todas las palabras se reconocen con
+     * la misma versión de la gramática, aunque otro hilo la modifique
+     * mientras dura la llamada.
+     *
+     * @param words Las palabras a verificar, formadas sólo por terminales.
+     *
+     * @return Un BitSet con el bit i activo si y sólo si la palabra i (en el
+     *         orden de iteración de la colección) pertenece al lenguaje.
+     *
+     * @throws CFGAlgorithmsException Si alguna palabra no está formada sólo
+     *                                por terminales de la gramática o es
+     *                                demasiado larga para la tabla CYK, si la
+     *                                gramática es vacía, no está en FNC o si
+     *                                carece de axioma.
+     */
+    public BitSet isDerivedBatch(Collection<? extends CharSequence> words) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        CharSequence[] palabras = words.toArray(new CharSequence[0]);
+        for (CharSequence palabra : palabras) {
+            comprobarPalabraCYK(gramatica, palabra);
+        }
+        RegularRecognizer afd = atajoRegular ? gramatica.getRegular() : null;
+        if (afd == null) {
+            for (CharSequence palabra : palabras) {
+                comprobarTablaCYK(gramatica, palabra);
+            }
+        }
+        Predicate<CharSequence> reconocedor = afd != null ? afd::recognize : gramatica.getCYK()::recognize;
+
+        // Cada bloque ocupa longs completos del resultado, así que los hilos
+        // nunca escriben en la misma palabra de 64 bits
+        long[] resultado = new long[(palabras.length + 63) >>> 6];
+        int hilos = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int bloque = Math.max(64, ((palabras.length / (4 * hilos)) + 63) & ~63);
+        Executor ejecutor = ejecutorLotes != null ? ejecutorLotes : ForkJoinPool.commonPool();
+
+        List<CompletableFuture<Void>> tareas = new ArrayList<>();
+        for (int desde = 0; desde < palabras.length; desde += bloque) {
+            int inicio = desde;
+            int fin = Math.min(palabras.length, desde + bloque);
+            tareas.add(CompletableFuture.runAsync(() -> {
+                for (int i = inicio; i < fin; i++) {
+                    if (reconocedor.test(palabras[i])) {
+                        resultado[i >>> 6] |= 1L << i;
+                    }
+                }
+            }, ejecutor));
+        }
+        try {
+            CompletableFuture.allOf(tareas.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return BitSet.valueOf(resultado);
+    }
+
+
+
+    /**
+     * Establece el ejecutor en el que {@link #isDerivedBatch(Collection)}
+     * reparte las palabras.
+     *
+     * @param executor El ejecutor, o null para usar el ForkJoinPool común.
+     */
+    public void setBatchExecutor(Executor executor) {
+        ejecutorLotes = executor;
+    }
+
+
+
+    /**
+     * Compila la gramática almacenada en una instantánea inmutable, con los
+     * símbolos numerados de forma densa y las producciones en arrays planos.
+     * Mientras la gramática no se modifique, se devuelve siempre la misma
+     * instantánea.
+     *
+     * @return La gramática compilada.
+     */
+    public CompiledGrammar compile() {
+        return instantanea().getCompiled();
+    }
+
+
+
+    /**
+     * Compila el estado actual de la gramática para las transformaciones,
+     * que pueden necesitarlo antes de que se publique.
+     */
+    private CompiledGrammar compilar() {
+        if (compilada == null) {
+            compilada = new CompiledGrammar(noTerminales, terminales, producciones, simboloInicio);
+        }
+        return compilada;
+    }
+
+
+
+    /**
+     * Devuelve la última instantánea de la gramática. Si hay una publicación
+     * pendiente, toma el cerrojo para construirla; si no, no bloquea.
+     *
+     * @return La instantánea de la última modificación terminada.
+     */
+    private GrammarSnapshot instantanea() {
+        if (publicacionPendiente) {
+            synchronized (this) {
+                publicarPendiente();
+            }
+        }
+        return publicada.get();
+    }
+
+
+
+    /**
+     * Marca como pendiente la publicación del estado actual de la gramática,
+     * salvo que ya esté publicado o que la operación en curso forme parte de
+     * otra que lo publicará al terminar. Debe llamarse con el cerrojo del
+     * objeto al final de cada operación que modifique la gramática.
+     */
+    private void publicar() {
+        if (publicacionDiferida > 0 || publicada.get().getEpoch() == epoca) {
+            return;
+        }
+        publicacionPendiente = true;
+    }
+
+
+
+    /**
+     * Construye y publica la instantánea pendiente, si la hay. Debe llamarse
+     * con el cerrojo del objeto.
+     */
+    private void publicarPendiente() {
+        if (!publicacionPendiente) {
+            return;
+        }
+        publicada.set(new GrammarSnapshot(epoca, noTerminales, terminales, producciones, simboloInicio, compilada));
+        publicacionPendiente = false;
+    }
+
+
+
+    /**
+     * Descarta la gramática compilada e incrementa la época, con lo que
+     * también queda invalidada la caché de resultados. Debe llamarse tras
+     * cualquier modificación de la gramática.
+     */
+    private void invalidar() {
+        epoca++;
+        compilada = null;
+    }
+
+
+
+    /**
+     * Devuelve el índice inverso de apariciones, reconstruyéndolo si alguna
+     * transformación lo ha dejado desactualizado.
+     */
+    private Map<Character, Map<Character, Set<String>>> indiceApariciones() {
+        if (!aparicionesValidas) {
+            apariciones.clear();
+            aparicionesValidas = true;
+            for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
+                for (String prod : entry.getValue()) {
+                    indexar(entry.getKey(), prod);
+                }
+            }
+        }
+        return apariciones;
+    }
+
+
+
+    private void indexar(char nonterminal, String production) {
+        if (!aparicionesValidas || production.equals("l")) {
+            return;
+        }
+        for (int i = 0; i < production.length(); i++) {
+            apariciones.computeIfAbsent(production.charAt(i), k -> new HashMap<>())
+                       .computeIfAbsent(nonterminal, k -> new HashSet<>())
+                       .add(production);
+        }
+    }
+
+
+
+    private void desindexar(char nonterminal, String production) {
+        if (!aparicionesValidas || production.equals("l")) {
+            return;
+        }
+        for (int i = 0; i < production.length(); i++) {
+            Map<Character, Set<String>> porCabeza = apariciones.get(production.charAt(i));
+            if (porCabeza == null) {
+                continue;
+            }
+            Set<String> prods = porCabeza.get(nonterminal);
+            if (prods != null && prods.remove(production) && prods.isEmpty()) {
+                porCabeza.remove(nonterminal);
+            }
+            if (porCabeza.isEmpty()) {
+                apariciones.remove(production.charAt(i));
+            }
+        }
+    }
+
+
+
+    /**
+     * Elimina todas las producciones en las que aparece el símbolo indicado,
+     * visitando sólo las que recoge el índice inverso.
+     */
+    private void eliminarApariciones(char simbolo) {
+        Map<Character, Set<String>> porCabeza = indiceApariciones().remove(simbolo);
+        if (porCabeza == null) {
+            return;
+        }
+        for (Map.Entry<Character, Set<String>> entry : porCabeza.entrySet()) {
+            Set<String> prodSet = producciones.get(entry.getKey());
+            for (String prod : entry.getValue()) {
+                if (prodSet != null) {
+                    prodSet.remove(prod);
+                }
+                desindexar(entry.getKey(), prod);
+            }
+        }
+    }
+
+
+
+    /**
+     * Elimina todas las producciones del no terminal indicado.
+     */
+    private void eliminarProducciones(char nonterminal) {
+        Set<String> prods = producciones.remove(nonterminal);
+        if (prods != null) {
+            for (String prod : prods) {
+                desindexar(nonterminal, prod);
+            }
+        }
+    }
+
+
+
+    /**
+     * Establece la longitud de palabra a partir de la cual el algoritmo CYK
+     * rellena la tabla en paralelo, repartiendo cada diagonal de la tabla
+     * entre los núcleos disponibles. Las palabras más cortas se reconocen de
+     * forma secuencial.
+     *
+     * @param threshold Longitud mínima de palabra para el modo paralelo. Un
+     *                  valor menor o igual que 0 desactiva el modo paralelo.
+     */
+    public void setCYKParallelThreshold(int threshold) {
+        umbralCYKParalelo = threshold;
+    }
+
+
+
+    /**
+     * Devuelve la longitud de palabra a partir de la cual el algoritmo CYK
+     * rellena la tabla en paralelo.
+     *
+     * @return El umbral actual (menor o igual que 0 si está desactivado).
+     */
+    public int getCYKParallelThreshold() {
+        return umbralCYKParalelo;
+    }
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará el algoritmo de Earley
+     * para decidir si la palabra pertenece al lenguaje.
+     *
+     * La gramática no necesita estar en FNC ni ser bien formada.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía o si carece de axioma.
+     */
+    public boolean isDerivedUsingEarley(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabra(gramatica, word);
+
+        return gramatica.getEarley().recognize(word);
+    }
+
+
+
+    /**
+     * Método que devuelve el conjunto PRIMERO de un no terminal: los
+     * terminales con los que pueden empezar las palabras que deriva, más
+     * lambda ('l') si deriva la palabra vacía.
+     *
+     * @param nonterminal No terminal de la gramática.
+     *
+     * @return El conjunto PRIMERO del no terminal.
+     *
+     * @throws CFGAlgorithmsException Si el no terminal no forma parte de la
+     *                                gramática.
+     */
+    public Set<Character> getFirst(char nonterminal) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        return gramatica.getLL1().getFirst(idNoTerminal(gramatica, nonterminal));
+    }
+
+
+
+    /**
+     * Método que devuelve el conjunto SIGUIENTE de un no terminal: los
+     * terminales que pueden aparecer justo a su derecha en alguna forma
+     * sentencial, más '$' si puede aparecer al final.
+     *
+     * @param nonterminal No terminal de la gramática.
+     *
+     * @return El conjunto SIGUIENTE del no terminal.
+     *
+     * @throws CFGAlgorithmsException Si el no terminal no forma parte de la
+     *                                gramática.
+     */
+    public Set<Character> getFollow(char nonterminal) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        return gramatica.getLL1().getFollow(idNoTerminal(gramatica, nonterminal));
+    }
+
+
+
+    /**
+     * Método que indica si la gramática es LL(1), es decir, si ninguna celda
+     * de su tabla de análisis predictivo contiene más de una producción.
+     *
+     * @return TRUE si la gramática es LL(1), FALSE en caso contrario.
+     */
+    public boolean isLL1() {
+        return instantanea().getLL1().isLL1();
+    }
+
+
+
+    /**
+     * Método que devuelve las celdas de la tabla de análisis predictivo que
+     * contienen más de una producción, una por línea y con el formato
+     * "M[A, a]: A::=aB | A::=ab". La columna del fin de palabra se escribe
+     * '$'.
+     *
+     * @return Las celdas en conflicto (vacía si la gramática es LL(1)).
+     */
+    public List<String> getLL1Conflicts() {
+        return instantanea().getLL1().getConflicts();
+    }
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará el análisis predictivo
+     * LL(1) con pila explícita, lineal en la longitud de la palabra.
+     *
+     * La gramática no necesita estar en FNC, pero debe ser LL(1).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                es LL(1).
+     */
+    public boolean isDerivedUsingLL1(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabra(gramatica, word);
+
+        LL1Recognizer ll1 = gramatica.getLL1();
+        if (!ll1.isLL1()) {
+            throw new CFGAlgorithmsException("La gramática no es LL(1): " + String.join("; ", ll1.getConflicts()));
+        }
+        return ll1.recognize(word);
+    }
+
+
+
+    /**
+     * Método que indica si la gramática es LALR(1), es decir, si ninguna
+     * celda de su tabla de acciones LALR(1) contiene más de una acción.
+     *
+     * @return TRUE si la gramática es LALR(1), FALSE en caso contrario.
+     */
+    public boolean isLALR1() {
+        return instantanea().getLALR().isLALR1();
+    }
+
+
+
+    /**
+     * Método que devuelve las celdas de la tabla de acciones LALR(1) que
+     * contienen más de una acción, una por línea y con el formato
+     * "ACCION[3, a]: desplazar 5 | reducir A::=a". Los estados se numeran
+     * desde 0, que es el estado inicial, y la columna del fin de palabra se
+     * escribe '$'.
+     *
+     * @return Las celdas en conflicto (vacía si la gramática es LALR(1)).
+     */
+    public List<String> getLALR1Conflicts() {
+        return instantanea().getLALR().getConflicts();
+    }
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará un analizador ascendente
+     * por desplazamiento y reducción con tablas LALR(1), lineal en la
+     * longitud de la palabra.
+     *
+     * La gramática no necesita estar en FNC, pero debe ser LALR(1).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                es LALR(1).
+     */
+    public boolean isDerivedUsingLALR1(String word) throws CFGAlgorithmsException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabra(gramatica, word);
+
+        LALRRecognizer lalr = gramatica.getLALR();
+        if (!lalr.isLALR1()) {
+            throw new CFGAlgorithmsException("La gramática no es LALR(1): " + String.join("; ", lalr.getConflicts()));
+        }
+        return lalr.recognize(word);
+    }
+
+
+
+    /**
+     * @return El identificador del no terminal en la gramática compilada.
+     *
+     * @throws CFGAlgorithmsException Si no es un no terminal de la gramática.
+     */
+    private static int idNoTerminal(GrammarSnapshot instantanea, char nonterminal) throws CFGAlgorithmsException {
+        int id = instantanea.getCompiled().getSymbolId(nonterminal);
+        if (!instantanea.getCompiled().isNonTerminal(id)) {
+            throw new CFGAlgorithmsException("El no terminal no forma parte del conjunto de no terminales");
+        }
+        return id;
+    }
+
+
+
+    /**
+     * Comprueba las precondiciones del algoritmo CYK: las comunes a todos los
+     * reconocedores y, además, que la gramática esté en FNC.
+     */
+    private static void comprobarPalabraCYK(GrammarSnapshot instantanea, CharSequence word) throws CFGAlgorithmsException {
+        comprobarPalabra(instantanea, word);
+        if (!instantanea.getCompiled().isCNF()) {
+            throw new CFGAlgorithmsException("La gramática no está en Forma Normal de Chomsky.");
+        }
+    }
+
+
+
+    /**
+     * Comprueba que la tabla CYK de la palabra quepa en un array.
+     */
+    private static void comprobarTablaCYK(GrammarSnapshot instantanea, CharSequence word) throws CFGAlgorithmsException {
+        if (!instantanea.getCYK().cabe(word.length())) {
+            throw new CFGAlgorithmsException("La palabra es demasiado larga para la tabla CYK: " + word.length() + " caracteres.");
+        }
+    }
+
+
+
+    /**
+     * Comprueba las precondiciones comunes a todos los reconocedores: que la
+     * gramática no sea vacía, que tenga axioma y que la palabra esté formada
+     * sólo por terminales de la gramática.
+     */
+    private static void comprobarPalabra(GrammarSnapshot instantanea, CharSequence word) throws CFGAlgorithmsException {
+        if (instantanea.getStartSymbol() == null) {
+            throw new CFGAlgorithmsException("La gramática carece de axioma.");
+        }
+        CompiledGrammar gramatica = instantanea.getCompiled();
+        if (gramatica.getProductionCount() == 0) {
+            throw new CFGAlgorithmsException("La gramática es vacía.");
+        }
+        for (int i = 0; i < word.length(); i++) {
+            int id = gramatica.getSymbolId(word.charAt(i));
+            if (id < gramatica.getNonTerminalCount()) {
+                throw new CFGAlgorithmsException("La palabra contiene elementos que no son terminales de la gramática: " + word.charAt(i));
+            }
+        }
+    }
+
+
+
+    /**
+     * Método que, para una palabra, devuelve un String que contiene todas las
+     * celdas calculadas por el algoritmo CYK (la visualización debe ser similar
+     * al ejemplo proporcionado en el PDF que contiene el paso a paso del
+     * algoritmo).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos no terminales.
+     *
+     * @return Un String donde se vea la tabla calculada de manera completa,
+     *         todas las celdas que ha calculado el algoritmo.
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía o si carece de axioma.
+     */
+    public String algorithmCYKStateToString(String word) throws CFGAlgorithmsException {
+        StringBuilder salida = new StringBuilder();
+        try {
+            algorithmCYKStateToString(word, salida);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return salida.toString();
+    }
+
+
+
+    /**
+     * Método que escribe en out la tabla completa calculada por el algoritmo
+     * CYK para una palabra, sin construirla antes en memoria como String.
+     * Para palabras largas conviene que out tenga su propio búfer (por
+     * ejemplo, un BufferedWriter).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     * @param out  Destino de la tabla.
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, no está en FNC o si carece de axioma.
+     * @throws IOException            Si falla la escritura en out.
+     */
+    public void algorithmCYKStateToString(String word, Appendable out) throws CFGAlgorithmsException, IOException {
+        algorithmCYKStateToString(word, out, 1, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+
+
+    /**
+     * Método que escribe en out una ventana de la tabla calculada por el
+     * algoritmo CYK para una palabra. Las filas corresponden a la longitud de
+     * la subcadena (de 1 a la longitud de la palabra) y las columnas a la
+     * posición en la que empieza (desde 0). Los límites que se salen de la
+     * tabla se ajustan a ella.
+     *
+     * Sólo se calculan las celdas de las que dependen las de la ventana, así
+     * que la memoria necesaria crece con el tamaño de la ventana y no con el
+     * de la palabra completa.
+     *
+     * @param word       La palabra a verificar, tiene que estar formada sólo
+     *                   por elementos terminales.
+     * @param out        Destino de la tabla.
+     * @param fromRow    Primera fila (longitud de subcadena) que se escribe.
+     * @param toRow      Fila siguiente a la última que se escribe.
+     * @param fromColumn Primera columna (posición inicial) que se escribe.
+     * @param toColumn   Columna siguiente a la última que se escribe.
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, no está en FNC o si carece de axioma.
+     * @throws IOException            Si falla la escritura en out.
+     */
+    public void algorithmCYKStateToString(String word, Appendable out, int fromRow, int toRow,
+                                          int fromColumn, int toColumn) throws CFGAlgorithmsException, IOException {
+        GrammarSnapshot gramatica = instantanea();
+        comprobarPalabraCYK(gramatica, word);
+
+        int n = word.length();
+        int desdeColumna = Math.max(0, fromColumn);
+        int hastaColumna = Math.max(desdeColumna, Math.min(n, toColumn));
+        int desdeFila = Math.max(1, fromRow);
+        int hastaFila = Math.max(desdeFila, Math.min(n + 1, toRow));
+        gramatica.getCYK().render(word, out, desdeFila, hastaFila, desdeColumna, hastaColumna);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,538 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+
+/**
+ * Motor del algoritmo CYK sobre una gramática en Forma Normal de Chomsky.
+ *
+ * Los no terminales se numeran de forma densa (0..N-1) y cada celda de la
+ * tabla se guarda como un conjunto de bits dentro de un único long[], de forma
+ * que combinar dos celdas en un punto de corte cuesta unas pocas operaciones
+ * AND/OR sobre palabras de 64 bits en lugar de uniones de Set<Character>.
+ *
+ * La celda (i, len) representa la subcadena que empieza en la posición i y
+ * tiene longitud len. Las celdas se almacenan por filas de longitud: primero
+ * todas las de longitud 1, después las de longitud 2, etc.
+ *
+ * Para no crear una tabla por palabra, {@link #recognize(CharSequence, int)}
+ * toma la tabla de una arena propia de cada hilo, con una tabla reutilizable
+ * por cada tamaño potencia de dos. Una vez que el hilo ha visto palabras de
+ * una longitud, reconocer otras de esa longitud o menor no reserva memoria,
+ * mientras la tabla no pase de 2^MAX_CLASE longs (unos 5800 caracteres con
+ * un long por celda).
+ * Las tablas pequeñas se conservan mientras viva el hilo; las grandes sólo a
+ * través de un SoftReference, para que un hilo de un pool que reconoció una
+ * vez una palabra larga no retenga esa memoria para siempre.
+ */
+final class CYKRecognizer {
+
+    // Número de puntos de corte por debajo del cual no compensa dividir una tarea
+    private static final int CORTES_POR_TAREA = 4096;
+
+    // Las tablas de más de 2^24 longs (128 MiB, unos 5800 caracteres con un
+    // long por celda) no se guardan en la arena
+    private static final int MAX_CLASE = 24;
+
+    // Las de más de 2^16 longs (512 KiB) se guardan sólo como SoftReference
+    private static final int MAX_CLASE_FUERTE = 16;
+
+    // Tamaño máximo de una tabla: algunas JVM reservan unas pocas posiciones
+    // de cabecera en los arrays
+    static final long MAX_TABLA = Integer.MAX_VALUE - 8;
+
+    private static final ThreadLocal<Arena> ARENAS = ThreadLocal.withInitial(Arena::new);
+
+    private final CompiledGrammar gramatica;
+    private final int numNoTerminales;
+    private final int palabras;
+    private final int axioma;
+    private final long[][] porTerminal;
+    private final long[] izquierdos;
+    private final long[][] derechosDe;
+    private final long[][] cabezas;
+
+
+
+    /**
+     * Prepara el algoritmo sobre las tablas de pares de la gramática
+     * compilada, que debe estar en FNC.
+     *
+     * @param gramatica Gramática compilada en FNC.
+     */
+    CYKRecognizer(CompiledGrammar gramatica) {
+        if (!gramatica.isCNF()) {
+            throw new IllegalArgumentException("La gramática no está en Forma Normal de Chomsky.");
+        }
+        this.gramatica = gramatica;
+        numNoTerminales = gramatica.getNonTerminalCount();
+        palabras = gramatica.getWords();
+        axioma = gramatica.getStartSymbol();
+        porTerminal = gramatica.porTerminal;
+        izquierdos = gramatica.izquierdos;
+        derechosDe = gramatica.derechosDe;
+        cabezas = gramatica.cabezas;
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje de la gramática compilada.
+     *
+     * @param word Palabra formada sólo por terminales de la gramática.
+     *
+     * @return true si el axioma deriva la palabra.
+     */
+    boolean recognize(CharSequence word) {
+        return recognize(word, 0);
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje de la gramática compilada,
+     * rellenando la tabla en paralelo si la palabra es suficientemente larga.
+     *
+     * @param word   Palabra formada sólo por terminales de la gramática.
+     * @param umbral Longitud mínima de palabra a partir de la cual se usa el
+     *               modo paralelo. Un valor menor o igual que 0 lo desactiva.
+     *
+     * @return true si el axioma deriva la palabra.
+     */
+    boolean recognize(CharSequence word, int umbral) {
+        int n = word.length();
+        if (n == 0) {
+            return gramatica.acceptsEmptyWord();
+        }
+        if (axioma < 0) {
+            return false;
+        }
+        Arena arena = ARENAS.get();
+        long[] tabla = arena.tomar(tamanoTabla(n));
+        try {
+            if (umbral > 0 && n >= umbral) {
+                rellenarParalelo(word, tabla);
+            } else {
+                rellenar(word, tabla);
+            }
+            return estaActivo(tabla, celda(n, 0, n), axioma);
+        } finally {
+            arena.devolver(tabla);
+        }
+    }
+
+
+
+    /**
+     * Calcula la tabla CYK completa para la palabra indicada.
+     *
+     * @param word Palabra no vacía formada sólo por terminales.
+     *
+     * @return La tabla, con una celda de {@link #getWords()} longs por cada
+     *         par (i, len).
+     */
+    long[] fill(CharSequence word) {
+        long[] tabla = new long[tamanoTabla(word.length())];
+        rellenar(word, tabla);
+        return tabla;
+    }
+
+
+
+    /**
+     * Calcula sólo las filas de la tabla CYK de longitud menor o igual que
+     * maxLength. La tabla resultante ocupa únicamente esas filas, con la misma
+     * disposición que la de {@link #fill(CharSequence)}.
+     *
+     * @param word      Palabra no vacía formada sólo por terminales.
+     * @param maxLength Longitud máxima de subcadena (entre 1 y la de la
+     *                  palabra).
+     *
+     * @return La tabla con las filas de longitud 1..maxLength.
+     */
+    long[] fill(CharSequence word, int maxLength) {
+        int n = word.length();
+        long filas = (long) maxLength * n - (long) maxLength * (maxLength - 1) / 2;
+        long[] tabla = new long[comprobarTamano(filas * palabras, n)];
+        copiarTerminales(word, tabla);
+
+        for (int len = 2; len <= maxLength; len++) {
+            for (int i = 0; i + len <= n; i++) {
+                fillCell(tabla, n, i, len);
+            }
+        }
+        return tabla;
+    }
+
+
+
+    /**
+     * Escribe las celdas de la tabla CYK de la palabra que caen dentro de la
+     * ventana indicada, en texto separado por tabuladores: una cabecera con
+     * los terminales de las columnas y después una línea por fila (longitud
+     * de subcadena) con el número de fila y una celda por columna. Cada celda
+     * muestra sus no terminales por orden alfabético, por ejemplo {A,S}, o
+     * {} si está vacía. Las filas largas se quedan sin las celdas que no caben
+     * en la palabra.
+     *
+     * Sólo se calcula la parte de la tabla de la que dependen las celdas de
+     * la ventana: las filas hasta hastaFila - 1 de la subcadena que empieza
+     * en desdeColumna y alcanza a la última celda de la ventana.
+     *
+     * @param word         Palabra formada sólo por terminales.
+     * @param out          Destino del texto.
+     * @param desdeFila    Primera fila, entre 1 y n.
+     * @param hastaFila    Fila siguiente a la última, entre 1 y n + 1.
+     * @param desdeColumna Primera columna (posición inicial de la subcadena,
+     *                     desde 0).
+     * @param hastaColumna Columna siguiente a la última, como mucho n.
+     *
+     * @throws IOException Si falla la escritura en out.
+     */
+    void render(CharSequence word, Appendable out, int desdeFila, int hastaFila,
+                int desdeColumna, int hastaColumna) throws IOException {
+        for (int c = desdeColumna; c < hastaColumna; c++) {
+            out.append('\t').append(word.charAt(c));
+        }
+        out.append('\n');
+        if (desdeFila >= hastaFila || desdeColumna >= hastaColumna) {
+            return;
+        }
+
+        int fin = Math.min(word.length(), hastaColumna + hastaFila - 2);
+        CharSequence trozo = word.subSequence(desdeColumna, fin);
+        int m = trozo.length();
+        long[] tabla = fill(trozo, Math.min(m, hastaFila - 1));
+
+        for (int len = desdeFila; len < hastaFila; len++) {
+            out.append(Integer.toString(len));
+            for (int i = 0; i < hastaColumna - desdeColumna && i + len <= m; i++) {
+                out.append('\t');
+                escribirCelda(tabla, celda(m, i, len), out);
+            }
+            out.append('\n');
+        }
+    }
+
+
+
+    private void escribirCelda(long[] tabla, int desde, Appendable out) throws IOException {
+        out.append('{');
+        boolean primero = true;
+        for (int w = 0; w < palabras; w++) {
+            long bs = tabla[desde + w];
+            while (bs != 0) {
+                int a = (w << 6) + Long.numberOfTrailingZeros(bs);
+                bs &= bs - 1;
+                if (!primero) {
+                    out.append(',');
+                }
+                out.append(gramatica.getSymbol(a));
+                primero = false;
+            }
+        }
+        out.append('}');
+    }
+
+
+
+    private void rellenar(CharSequence word, long[] tabla) {
+        int n = word.length();
+        tablaInicial(word, tabla);
+
+        for (int len = 2; len <= n; len++) {
+            for (int i = 0; i + len <= n; i++) {
+                fillCell(tabla, n, i, len);
+            }
+        }
+    }
+
+
+
+    /**
+     * Calcula la tabla CYK completa por frentes de onda: todas las celdas de
+     * una misma longitud (una diagonal del triángulo) son independientes entre
+     * sí, así que cada diagonal se reparte en un ForkJoinPool y no se empieza
+     * la siguiente hasta que ha terminado la anterior.
+     *
+     * @param word Palabra no vacía formada sólo por terminales.
+     *
+     * @return La misma tabla que {@link #fill(CharSequence)}.
+     */
+    long[] fillParallel(CharSequence word) {
+        long[] tabla = new long[tamanoTabla(word.length())];
+        rellenarParalelo(word, tabla);
+        return tabla;
+    }
+
+
+
+    private void rellenarParalelo(CharSequence word, long[] tabla) {
+        int n = word.length();
+        tablaInicial(word, tabla);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (int len = 2; len <= n; len++) {
+            pool.invoke(new Diagonal(tabla, n, len, 0, n - len + 1));
+        }
+    }
+
+
+
+    /**
+     * Deja a cero la parte de la tabla que ocupa la palabra y copia en la
+     * fila de longitud 1 los no terminales que derivan cada terminal.
+     */
+    private void tablaInicial(CharSequence word, long[] tabla) {
+        Arrays.fill(tabla, 0, tamanoTabla(word.length()), 0L);
+        copiarTerminales(word, tabla);
+    }
+
+
+
+    /**
+     * Copia en la fila de longitud 1, que debe estar a cero, los no
+     * terminales que derivan cada terminal.
+     */
+    private void copiarTerminales(CharSequence word, long[] tabla) {
+        int n = word.length();
+        for (int i = 0; i < n; i++) {
+            long[] as = getTerminalCell(word.charAt(i));
+            if (as != null) {
+                System.arraycopy(as, 0, tabla, celda(n, i, 1), palabras);
+            }
+        }
+    }
+
+
+
+    /**
+     * @return Los no terminales A tales que A::=t, o null si no hay ninguno.
+     */
+    long[] getTerminalCell(char t) {
+        return t < porTerminal.length ? porTerminal[t] : null;
+    }
+
+
+
+    /**
+     * @return true si la tabla de una palabra de longitud n cabe en un array.
+     */
+    boolean cabe(int n) {
+        return (long) n * (n + 1) / 2 * palabras <= MAX_TABLA;
+    }
+
+
+
+    /**
+     * @return Número de longs que ocupa la tabla de una palabra de longitud n.
+     *
+     * @throws IllegalArgumentException Si la tabla no cabe en un array.
+     */
+    int tamanoTabla(int n) {
+        return comprobarTamano((long) n * (n + 1) / 2 * palabras, n);
+    }
+
+
+
+    private static int comprobarTamano(long tamano, int n) {
+        if (tamano > MAX_TABLA) {
+            throw new IllegalArgumentException("La palabra es demasiado larga para la tabla CYK: " + n + " caracteres necesitan " + tamano + " longs.");
+        }
+        return (int) tamano;
+    }
+
+
+
+    /**
+     * Calcula la celda (i, len) a partir de las celdas de longitud menor, que
+     * deben estar ya calculadas.
+     */
+    void fillCell(long[] tabla, int n, int i, int len) {
+        int destino = celda(n, i, len);
+        for (int k = 1; k < len; k++) {
+            combine(tabla, celda(n, i, k), tabla, celda(n, i + k, len - k), tabla, destino);
+        }
+    }
+
+
+
+    /**
+     * Añade a la celda destino los A tales que A::=BC, con B en la celda
+     * izquierda y C en la derecha. Las celdas pueden estar en arrays
+     * distintos.
+     */
+    void combine(long[] izquierda, int desdeIzquierda, long[] derecha, int desdeDerecha,
+                 long[] destino, int desdeDestino) {
+        for (int w = 0; w < palabras; w++) {
+            long bs = izquierda[desdeIzquierda + w] & izquierdos[w];
+            while (bs != 0) {
+                int b = (w << 6) + Long.numberOfTrailingZeros(bs);
+                bs &= bs - 1;
+                combinar(derecha, desdeDerecha, b, destino, desdeDestino);
+            }
+        }
+    }
+
+
+
+    private void combinar(long[] derecha, int der, int b, long[] destino, int desdeDestino) {
+        long[] derechos = derechosDe[b];
+        int fila = b * numNoTerminales;
+        for (int w = 0; w < palabras; w++) {
+            long cs = derecha[der + w] & derechos[w];
+            while (cs != 0) {
+                int c = (w << 6) + Long.numberOfTrailingZeros(cs);
+                cs &= cs - 1;
+                long[] as = cabezas[fila + c];
+                for (int x = 0; x < palabras; x++) {
+                    destino[desdeDestino + x] |= as[x];
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Devuelve la posición en la tabla de la celda (i, len) para una palabra
+     * de longitud n.
+     */
+    int celda(int n, int i, int len) {
+        // Las filas de longitud 1..len-1 ocupan (len-1)*n - (len-1)*(len-2)/2
+        // celdas. Se calcula en long porque (len-1)*n no cabe en un int
+        // aunque la tabla sí quepa; el resultado es menor que tamanoTabla(n).
+        long previas = (long) (len - 1) * n - (long) (len - 1) * (len - 2) / 2;
+        return (int) ((previas + i) * palabras);
+    }
+
+
+
+    /**
+     * @return Número de longs que ocupa cada celda de la tabla.
+     */
+    int getWords() {
+        return palabras;
+    }
+
+
+
+    /**
+     * @return La gramática compilada sobre la que trabaja el algoritmo.
+     */
+    CompiledGrammar getGrammar() {
+        return gramatica;
+    }
+
+
+
+    /**
+     * Tarea que rellena las celdas [desde, hasta) de la diagonal de longitud
+     * len, dividiéndose mientras quede trabajo suficiente para repartir.
+     */
+    private final class Diagonal extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] tabla;
+        private final int n;
+        private final int len;
+        private final int desde;
+        private final int hasta;
+
+
+
+        Diagonal(long[] tabla, int n, int len, int desde, int hasta) {
+            this.tabla = tabla;
+            this.n = n;
+            this.len = len;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+
+
+        @Override
+        protected void compute() {
+            // Cada celda de esta diagonal prueba len-1 puntos de corte
+            if ((long) (hasta - desde) * (len - 1) <= CORTES_POR_TAREA || hasta - desde == 1) {
+                for (int i = desde; i < hasta; i++) {
+                    fillCell(tabla, n, i, len);
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Diagonal(tabla, n, len, desde, medio),
+                      new Diagonal(tabla, n, len, medio, hasta));
+        }
+    }
+
+
+
+    static boolean estaActivo(long[] bits, int desde, int id) {
+        return (bits[desde + (id >>> 6)] & (1L << id)) != 0;
+    }
+
+
+
+    /**
+     * Tablas reutilizables de un hilo, una por cada tamaño potencia de dos.
+     * Si la tabla de su tamaño ya está en uso (por ejemplo, porque el hilo
+     * ejecuta otro reconocimiento mientras espera en el ForkJoinPool) o la
+     * palabra es demasiado larga, se reserva una tabla nueva. Las tablas de
+     * más de 2^MAX_CLASE_FUERTE longs se guardan como SoftReference, y el
+     * recolector puede liberarlas si falta memoria.
+     */
+    private static final class Arena {
+
+        private final long[][] porClase = new long[MAX_CLASE_FUERTE + 1][];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final SoftReference<long[]>[] blandas = new SoftReference[MAX_CLASE + 1];
+        private final boolean[] enUso = new boolean[MAX_CLASE + 1];
+
+
+
+        long[] tomar(int tamano) {
+            int clase = tamano <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(tamano - 1);
+            if (clase > MAX_CLASE || enUso[clase]) {
+                return new long[tamano];
+            }
+            long[] tabla;
+            if (clase <= MAX_CLASE_FUERTE) {
+                tabla = porClase[clase];
+                if (tabla == null) {
+                    tabla = new long[1 << clase];
+                    porClase[clase] = tabla;
+                }
+            } else {
+                tabla = blandas[clase] != null ? blandas[clase].get() : null;
+                if (tabla == null) {
+                    tabla = new long[1 << clase];
+                    blandas[clase] = new SoftReference<>(tabla);
+                }
+            }
+            enUso[clase] = true;
+            return tabla;
+        }
+
+
+
+        void devolver(long[] tabla) {
+            int clase = Integer.numberOfTrailingZeros(tabla.length);
+            if (clase > MAX_CLASE || tabla.length != 1 << clase) {
+                return;
+            }
+            boolean propia = clase <= MAX_CLASE_FUERTE
+                             ? porClase[clase] == tabla
+                             : blandas[clase] != null && blandas[clase].get() == tabla;
+            if (propia) {
+                enUso[clase] = false;
+            }
+        }
+    }
+}
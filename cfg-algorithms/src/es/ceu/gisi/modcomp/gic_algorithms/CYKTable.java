@@ -0,0 +1,173 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+
+/**
+ * Tabla CYK de una palabra que se conserva para poder modificar la palabra
+ * carácter a carácter, como en un editor que vuelve a comprobar el texto
+ * tras cada pulsación.
+ *
+ * Al sustituir el carácter de la posición p sólo pueden cambiar las celdas
+ * cuya subcadena contiene p; las demás (los subtriángulos a su izquierda y a
+ * su derecha) se reutilizan tal cual. Además, en cada punto de corte de una
+ * celda que contiene p exactamente una de las dos celdas de las que depende
+ * contiene también p, así que una celda sólo se recalcula si alguna de esas
+ * ha cambiado realmente. El resultado es siempre la misma tabla que se
+ * obtendría rellenándola desde cero.
+ *
+ * La tabla trabaja sobre la gramática (en FNC) que había cuando se creó con
+ * {@link CFGAlgorithms#newCYKTable(String)}: las modificaciones posteriores
+ * de la gramática no le afectan. No se puede compartir entre hilos sin
+ * sincronización externa.
+ */
+public final class CYKTable {
+
+    private final CYKRecognizer cyk;
+    private final CompiledGrammar gramatica;
+    private final int palabras;
+    private final int axioma;
+
+    private final char[] palabra;
+    private final long[] tabla;
+
+    // Celdas (por su posición / palabras) que cambiaron en la última edición
+    private final BitSet cambiadas = new BitSet();
+    private final long[] anterior;
+
+
+
+    /**
+     * @param cyk  Reconocedor CYK de la gramática en FNC, con axioma.
+     * @param word Palabra formada sólo por terminales de la gramática.
+     */
+    CYKTable(CYKRecognizer cyk, CharSequence word) {
+        this.cyk = cyk;
+        this.gramatica = cyk.getGrammar();
+        this.palabras = cyk.getWords();
+        this.axioma = gramatica.getStartSymbol();
+        this.palabra = word.toString().toCharArray();
+        this.tabla = cyk.fill(word);
+        this.anterior = new long[palabras];
+    }
+
+
+
+    /**
+     * Sustituye el carácter de la posición indicada y actualiza sólo las
+     * celdas de la tabla que dependen de él.
+     *
+     * @param position Posición del carácter, desde 0.
+     * @param terminal Carácter nuevo.
+     *
+     * @return true si la palabra resultante pertenece al lenguaje.
+     *
+     * @throws CFGAlgorithmsException Si el carácter no es un terminal de la
+     *                                gramática. En ese caso la palabra no cambia.
+     * @throws IndexOutOfBoundsException Si la posición no está en la palabra.
+     */
+    public boolean replace(int position, char terminal) throws CFGAlgorithmsException {
+        if (position < 0 || position >= palabra.length) {
+            throw new IndexOutOfBoundsException("Posición " + position + " fuera de una palabra de longitud " + palabra.length);
+        }
+        if (gramatica.getSymbolId(terminal) < gramatica.getNonTerminalCount()) {
+            throw new CFGAlgorithmsException("La palabra contiene elementos que no son terminales de la gramática: " + terminal);
+        }
+        if (palabra[position] == terminal) {
+            return isMember();
+        }
+        palabra[position] = terminal;
+
+        int n = palabra.length;
+        int unitaria = cyk.celda(n, position, 1);
+        System.arraycopy(tabla, unitaria, anterior, 0, palabras);
+        long[] as = cyk.getTerminalCell(terminal);
+        if (as != null) {
+            System.arraycopy(as, 0, tabla, unitaria, palabras);
+        } else {
+            Arrays.fill(tabla, unitaria, unitaria + palabras, 0L);
+        }
+        marcar(unitaria);
+
+        for (int len = 2; len <= n; len++) {
+            int desde = Math.max(0, position - len + 1);
+            int hasta = Math.min(position, n - len);
+            for (int i = desde; i <= hasta; i++) {
+                int destino = cyk.celda(n, i, len);
+                if (!dependeDeCambios(n, i, len, position)) {
+                    cambiadas.clear(destino / palabras);
+                    continue;
+                }
+                System.arraycopy(tabla, destino, anterior, 0, palabras);
+                Arrays.fill(tabla, destino, destino + palabras, 0L);
+                cyk.fillCell(tabla, n, i, len);
+                marcar(destino);
+            }
+        }
+        return isMember();
+    }
+
+
+
+    /**
+     * @return true si la palabra actual pertenece al lenguaje.
+     */
+    public boolean isMember() {
+        if (palabra.length == 0) {
+            return gramatica.acceptsEmptyWord();
+        }
+        return CYKRecognizer.estaActivo(tabla, cyk.celda(palabra.length, 0, palabra.length), axioma);
+    }
+
+
+
+    /**
+     * @return La palabra actual.
+     */
+    public String getWord() {
+        return new String(palabra);
+    }
+
+
+
+    /**
+     * @return Longitud de la palabra.
+     */
+    public int length() {
+        return palabra.length;
+    }
+
+
+
+    /**
+     * @return true si alguna de las celdas de las que depende (i, len) y que
+     *         contienen la posición editada ha cambiado en esta edición.
+     */
+    private boolean dependeDeCambios(int n, int i, int len, int position) {
+        for (int k = 1; k < len; k++) {
+            // Si el corte queda a la derecha de la posición, la contiene la
+            // parte izquierda; si no, la derecha
+            int hijo = i + k > position ? cyk.celda(n, i, k) : cyk.celda(n, i + k, len - k);
+            if (cambiadas.get(hijo / palabras)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    /**
+     * Anota si la celda ha cambiado respecto a la copia guardada en anterior.
+     */
+    private void marcar(int desde) {
+        boolean cambiada = false;
+        for (int w = 0; w < palabras; w++) {
+            cambiada |= tabla[desde + w] != anterior[w];
+        }
+        cambiadas.set(desde / palabras, cambiada);
+    }
+}
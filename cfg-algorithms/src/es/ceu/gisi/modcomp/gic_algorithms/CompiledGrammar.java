@@ -0,0 +1,728 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * Instantánea inmutable de una gramática, compilada a partir de los conjuntos
+ * y mapas de CFGAlgorithms.
+ *
+ * Los símbolos se numeran de forma densa: primero los no terminales (en orden
+ * alfabético, 0..N-1) y después los terminales (N..N+T-1). Las producciones se
+ * guardan ordenadas por su parte izquierda en arrays planos de int, de modo
+ * que las producciones de A son las de índice [getProductionsStart(A),
+ * getProductionsEnd(A)). La producción lambda ("l") tiene longitud 0.
+ *
+ * Al compilar se precalculan los no terminales anulables, generativos y
+ * alcanzables, el cierre de las reglas unitarias y, si la gramática está en
+ * FNC, las tablas de pares que usa el algoritmo CYK. Una vez construida, la
+ * instantánea no cambia aunque se modifique la gramática de la que procede y
+ * puede compartirse entre hilos.
+ */
+public final class CompiledGrammar {
+
+    private final char[] simbolos;
+    private final int numNoTerminales;
+    private final int numTerminales;
+    private final int axioma;
+
+    // char -> id + 1 (0 si el carácter no es un símbolo de la gramática)
+    private final int[] idPorCaracter;
+
+    // Producciones ordenadas por parte izquierda
+    private final int[] cabezaProduccion;
+    private final int[] inicioCuerpo;
+    private final int[] cuerpos;
+    private final int[] primeraProduccion;
+
+    // Conjuntos de no terminales, como bits sobre su identificador
+    private final int palabras;
+    private final long[] anulables;
+    private final long[] generativos;
+    private final long[] alcanzables;
+    private final long[][] cierreUnitario;
+
+    private final boolean fnc;
+    private final boolean aceptaVacia;
+
+    // Tablas de pares de la FNC (null si la gramática no está en FNC):
+    // char terminal -> conjunto de A tales que A::=a
+    final long[][] porTerminal;
+    // Conjunto de B que aparecen como primer símbolo de alguna A::=BC
+    final long[] izquierdos;
+    // B -> conjunto de C tales que existe A::=BC
+    final long[][] derechosDe;
+    // B * N + C -> conjunto de A tales que A::=BC
+    final long[][] cabezas;
+
+
+
+    /**
+     * Compila la gramática formada por los elementos indicados.
+     *
+     * @param noTerminales Conjunto de no terminales.
+     * @param terminales   Conjunto de terminales.
+     * @param producciones Producciones de cada no terminal.
+     * @param axioma       Axioma de la gramática, o null si no tiene.
+     */
+    CompiledGrammar(Set<Character> noTerminales, Set<Character> terminales,
+                    Map<Character, Set<String>> producciones, Character axioma) {
+        List<Character> nts = new ArrayList<>(noTerminales);
+        Collections.sort(nts);
+        List<Character> ts = new ArrayList<>(terminales);
+        Collections.sort(ts);
+
+        numNoTerminales = nts.size();
+        numTerminales = ts.size();
+        simbolos = new char[numNoTerminales + numTerminales];
+        char maxCaracter = 0;
+        for (int id = 0; id < simbolos.length; id++) {
+            simbolos[id] = id < numNoTerminales ? nts.get(id) : ts.get(id - numNoTerminales);
+            maxCaracter = (char) Math.max(maxCaracter, simbolos[id]);
+        }
+        idPorCaracter = new int[maxCaracter + 1];
+        for (int id = 0; id < simbolos.length; id++) {
+            idPorCaracter[simbolos[id]] = id + 1;
+        }
+        this.axioma = axioma != null ? getSymbolId(axioma) : -1;
+
+        // Producciones planas, agrupadas por parte izquierda
+        int numProducciones = 0;
+        int numSimbolos = 0;
+        for (Character nt : nts) {
+            for (String prod : producciones.getOrDefault(nt, Collections.emptySet())) {
+                numProducciones++;
+                numSimbolos += prod.equals("l") ? 0 : prod.length();
+            }
+        }
+        cabezaProduccion = new int[numProducciones];
+        inicioCuerpo = new int[numProducciones + 1];
+        cuerpos = new int[numSimbolos];
+        primeraProduccion = new int[numNoTerminales + 1];
+
+        int p = 0;
+        int s = 0;
+        for (int a = 0; a < numNoTerminales; a++) {
+            primeraProduccion[a] = p;
+            List<String> prods = new ArrayList<>(producciones.getOrDefault(nts.get(a), Collections.emptySet()));
+            Collections.sort(prods);
+            for (String prod : prods) {
+                cabezaProduccion[p] = a;
+                inicioCuerpo[p] = s;
+                if (!prod.equals("l")) {
+                    for (int i = 0; i < prod.length(); i++) {
+                        cuerpos[s++] = getSymbolId(prod.charAt(i));
+                    }
+                }
+                p++;
+            }
+        }
+        primeraProduccion[numNoTerminales] = p;
+        inicioCuerpo[numProducciones] = s;
+
+        palabras = Math.max(1, (numNoTerminales + 63) >>> 6);
+        anulables = calcularAnulables();
+        generativos = calcularGenerativos();
+        alcanzables = calcularAlcanzables();
+        cierreUnitario = calcularCierreUnitario();
+
+        fnc = calcularFNC();
+        boolean vacia = false;
+        if (this.axioma >= 0) {
+            for (int q = primeraProduccion[this.axioma]; q < primeraProduccion[this.axioma + 1]; q++) {
+                vacia |= getProductionLength(q) == 0;
+            }
+        }
+        aceptaVacia = vacia;
+
+        if (fnc) {
+            porTerminal = new long[maxCaracter + 1][];
+            izquierdos = new long[palabras];
+            derechosDe = new long[numNoTerminales][];
+            cabezas = new long[numNoTerminales * numNoTerminales][];
+            compilarPares();
+        } else {
+            porTerminal = null;
+            izquierdos = null;
+            derechosDe = null;
+            cabezas = null;
+        }
+    }
+
+
+
+    /**
+     * @return Número de no terminales (identificadores 0..N-1).
+     */
+    public int getNonTerminalCount() {
+        return numNoTerminales;
+    }
+
+
+
+    /**
+     * @return Número de terminales (identificadores N..N+T-1).
+     */
+    public int getTerminalCount() {
+        return numTerminales;
+    }
+
+
+
+    /**
+     * @return El carácter del símbolo con el identificador indicado.
+     */
+    public char getSymbol(int id) {
+        return simbolos[id];
+    }
+
+
+
+    /**
+     * @return El identificador del símbolo, o -1 si el carácter no es un
+     *         símbolo de la gramática.
+     */
+    public int getSymbolId(char c) {
+        return c < idPorCaracter.length ? idPorCaracter[c] - 1 : -1;
+    }
+
+
+
+    /**
+     * @return true si el identificador corresponde a un no terminal.
+     */
+    public boolean isNonTerminal(int id) {
+        return id >= 0 && id < numNoTerminales;
+    }
+
+
+
+    /**
+     * @return El identificador del axioma, o -1 si la gramática no tiene.
+     */
+    public int getStartSymbol() {
+        return axioma;
+    }
+
+
+
+    /**
+     * @return Número total de producciones.
+     */
+    public int getProductionCount() {
+        return cabezaProduccion.length;
+    }
+
+
+
+    /**
+     * @return Primera producción del no terminal indicado.
+     */
+    public int getProductionsStart(int nonterminal) {
+        return primeraProduccion[nonterminal];
+    }
+
+
+
+    /**
+     * @return Posición siguiente a la última producción del no terminal.
+     */
+    public int getProductionsEnd(int nonterminal) {
+        return primeraProduccion[nonterminal + 1];
+    }
+
+
+
+    /**
+     * @return Parte izquierda de la producción indicada.
+     */
+    public int getProductionHead(int production) {
+        return cabezaProduccion[production];
+    }
+
+
+
+    /**
+     * @return Número de símbolos de la parte derecha (0 para lambda).
+     */
+    public int getProductionLength(int production) {
+        return inicioCuerpo[production + 1] - inicioCuerpo[production];
+    }
+
+
+
+    /**
+     * @return El símbolo k-ésimo de la parte derecha de la producción.
+     */
+    public int getProductionSymbol(int production, int k) {
+        return cuerpos[inicioCuerpo[production] + k];
+    }
+
+
+
+    /**
+     * @return true si el no terminal deriva la palabra vacía.
+     */
+    public boolean isNullable(int nonterminal) {
+        return contiene(anulables, nonterminal);
+    }
+
+
+
+    /**
+     * @return true si el no terminal deriva alguna palabra de terminales.
+     */
+    public boolean isGenerating(int nonterminal) {
+        return contiene(generativos, nonterminal);
+    }
+
+
+
+    /**
+     * Indica si la producción deriva alguna palabra de terminales, es decir,
+     * si todos los no terminales de su parte derecha son generativos. Es la
+     * misma regla con la que se calculan los no terminales generativos: los
+     * terminales y los símbolos ajenos a la gramática (la 'l' dentro de una
+     * parte derecha más larga, que representa la palabra vacía) no impiden
+     * que lo sea.
+     *
+     * @param production Índice de la producción.
+     *
+     * @return true si la producción es generativa.
+     */
+    public boolean isGeneratingProduction(int production) {
+        for (int k = 0; k < getProductionLength(production); k++) {
+            int x = getProductionSymbol(production, k);
+            if (isNonTerminal(x) && !isGenerating(x)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    /**
+     * @return true si el no terminal es alcanzable desde el axioma.
+     */
+    public boolean isReachable(int nonterminal) {
+        return contiene(alcanzables, nonterminal);
+    }
+
+
+
+    /**
+     * @return true si desde from se llega a to usando sólo derivaciones
+     *         unitarias: reglas A::=B o, en general, A::=αBβ con αβ anulable.
+     *         Todo no terminal se alcanza a sí mismo.
+     */
+    public boolean isUnitReachable(int from, int to) {
+        return contiene(cierreUnitario[from], to);
+    }
+
+
+
+    /**
+     * @return true si la gramática está en Forma Normal de Chomsky.
+     */
+    public boolean isCNF() {
+        return fnc;
+    }
+
+
+
+    /**
+     * @return true si el axioma tiene la producción lambda.
+     */
+    public boolean acceptsEmptyWord() {
+        return aceptaVacia;
+    }
+
+
+
+    /**
+     * @return Número de longs que ocupa un conjunto de no terminales.
+     */
+    int getWords() {
+        return palabras;
+    }
+
+
+
+    /**
+     * @return La producción escrita como "A::=α" ("A::=l" si es lambda).
+     */
+    String productionToString(int production) {
+        StringBuilder texto = new StringBuilder();
+        texto.append(simbolos[cabezaProduccion[production]]).append("::=");
+        int longitud = getProductionLength(production);
+        if (longitud == 0) {
+            texto.append('l');
+        }
+        for (int k = 0; k < longitud; k++) {
+            int s = getProductionSymbol(production, k);
+            // El único carácter admitido fuera de la gramática es la 'l'
+            texto.append(s >= 0 ? simbolos[s] : 'l');
+        }
+        return texto.toString();
+    }
+
+
+
+    private long[] calcularAnulables() {
+        long[] resultado = new long[palabras];
+        int[] pendientes = new int[getProductionCount()];
+        int[][] apariciones = calcularApariciones();
+        int[] cola = new int[numNoTerminales];
+        int fin = 0;
+
+        for (int p = 0; p < getProductionCount(); p++) {
+            for (int k = 0; k < getProductionLength(p); k++) {
+                if (!isNonTerminal(getProductionSymbol(p, k))) {
+                    pendientes[p] = -1;
+                    break;
+                }
+                pendientes[p]++;
+            }
+            if (pendientes[p] == 0 && marcar(resultado, cabezaProduccion[p])) {
+                cola[fin++] = cabezaProduccion[p];
+            }
+        }
+        return propagar(resultado, pendientes, apariciones, cola, fin);
+    }
+
+
+
+    private long[] calcularGenerativos() {
+        long[] resultado = new long[palabras];
+        int[] pendientes = new int[getProductionCount()];
+        int[][] apariciones = calcularApariciones();
+        int[] cola = new int[numNoTerminales];
+        int fin = 0;
+
+        for (int p = 0; p < getProductionCount(); p++) {
+            for (int k = 0; k < getProductionLength(p); k++) {
+                if (isNonTerminal(getProductionSymbol(p, k))) {
+                    pendientes[p]++;
+                }
+            }
+            if (pendientes[p] == 0 && marcar(resultado, cabezaProduccion[p])) {
+                cola[fin++] = cabezaProduccion[p];
+            }
+        }
+        return propagar(resultado, pendientes, apariciones, cola, fin);
+    }
+
+
+
+    /**
+     * Propaga un conjunto de no terminales con un contador de símbolos
+     * pendientes por producción: cuando el contador llega a 0, la parte
+     * izquierda entra en el conjunto. Cada aparición se visita una sola vez.
+     */
+    private long[] propagar(long[] resultado, int[] pendientes, int[][] apariciones, int[] cola, int fin) {
+        for (int inicio = 0; inicio < fin; inicio++) {
+            for (int p : apariciones[cola[inicio]]) {
+                if (pendientes[p] > 0 && --pendientes[p] == 0 && marcar(resultado, cabezaProduccion[p])) {
+                    cola[fin++] = cabezaProduccion[p];
+                }
+            }
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * @return Para cada no terminal, las producciones en cuya parte derecha
+     *         aparece (una vez por aparición).
+     */
+    private int[][] calcularApariciones() {
+        int[] cuantas = new int[numNoTerminales];
+        for (int s : cuerpos) {
+            if (isNonTerminal(s)) {
+                cuantas[s]++;
+            }
+        }
+        int[][] apariciones = new int[numNoTerminales][];
+        for (int a = 0; a < numNoTerminales; a++) {
+            apariciones[a] = new int[cuantas[a]];
+            cuantas[a] = 0;
+        }
+        for (int p = 0; p < getProductionCount(); p++) {
+            for (int k = 0; k < getProductionLength(p); k++) {
+                int s = getProductionSymbol(p, k);
+                if (isNonTerminal(s)) {
+                    apariciones[s][cuantas[s]++] = p;
+                }
+            }
+        }
+        return apariciones;
+    }
+
+
+
+    private long[] calcularAlcanzables() {
+        long[] resultado = new long[palabras];
+        if (axioma < 0) {
+            return resultado;
+        }
+        int[] cola = new int[numNoTerminales];
+        int fin = 0;
+        marcar(resultado, axioma);
+        cola[fin++] = axioma;
+        for (int inicio = 0; inicio < fin; inicio++) {
+            int a = cola[inicio];
+            for (int x = inicioCuerpo[primeraProduccion[a]]; x < inicioCuerpo[primeraProduccion[a + 1]]; x++) {
+                if (isNonTerminal(cuerpos[x]) && marcar(resultado, cuerpos[x])) {
+                    cola[fin++] = cuerpos[x];
+                }
+            }
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * Calcula el cierre de las derivaciones unitarias. El grafo A -> B (una
+     * arista por cada A::=αBβ con αβ anulable, lo que incluye las reglas
+     * unitarias A::=B) se condensa en sus componentes fuertemente conexas:
+     * todos los no terminales de una misma componente comparten cierre, y
+     * como las componentes se numeran en orden topológico inverso, el cierre
+     * de cada una es la unión de sus miembros y de los cierres (ya
+     * calculados) de las componentes a las que llega.
+     */
+    private long[][] calcularCierreUnitario() {
+        int[][] sucesores = calcularSucesoresUnitarios();
+        int[] componente = new int[numNoTerminales];
+        int numComponentes = calcularComponentes(sucesores, componente);
+        List<long[]> cierres = new ArrayList<>();
+        for (int c = 0; c < numComponentes; c++) {
+            cierres.add(new long[palabras]);
+        }
+        for (int a = 0; a < numNoTerminales; a++) {
+            marcar(cierres.get(componente[a]), a);
+        }
+
+        // Las componentes se numeraron de sumideros a fuentes, así que
+        // recorriéndolas en ese orden los cierres de las sucesoras ya están
+        // completos. Se agrupan los miembros de cada componente por orden.
+        int[] orden = new int[numNoTerminales];
+        int[] primero = new int[cierres.size() + 1];
+        for (int a = 0; a < numNoTerminales; a++) {
+            primero[componente[a] + 1]++;
+        }
+        for (int c = 0; c < cierres.size(); c++) {
+            primero[c + 1] += primero[c];
+        }
+        int[] ocupados = Arrays.copyOf(primero, cierres.size());
+        for (int a = 0; a < numNoTerminales; a++) {
+            orden[ocupados[componente[a]]++] = a;
+        }
+
+        long[][] resultado = new long[numNoTerminales][];
+        for (int c = 0; c < cierres.size(); c++) {
+            long[] cierre = cierres.get(c);
+            for (int x = primero[c]; x < primero[c + 1]; x++) {
+                int a = orden[x];
+                for (int b : sucesores[a]) {
+                    if (componente[b] != c) {
+                        long[] otro = cierres.get(componente[b]);
+                        for (int w = 0; w < palabras; w++) {
+                            cierre[w] |= otro[w];
+                        }
+                    }
+                }
+                resultado[a] = cierre;
+            }
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * Algoritmo de Tarjan, iterativo para no depender de la profundidad de la
+     * pila de Java: calcula las componentes fuertemente conexas del grafo
+     * dado por sus listas de sucesores. Las componentes se numeran en el
+     * orden en que Tarjan las termina, que es un orden topológico inverso:
+     * si hay una arista de la componente c a otra c', entonces c' < c.
+     *
+     * @param sucesores  Sucesores de cada nodo (0..n-1).
+     * @param componente Array de n posiciones donde se deja la componente de
+     *                   cada nodo.
+     *
+     * @return Número de componentes.
+     */
+    static int calcularComponentes(int[][] sucesores, int[] componente) {
+        int n = sucesores.length;
+        int[] indice = new int[n];
+        int[] minimo = new int[n];
+        Arrays.fill(indice, -1);
+        boolean[] enPila = new boolean[n];
+        int[] pila = new int[n];
+        int cima = 0;
+        // Pila de llamadas explícita: nodo y siguiente arista por mirar
+        int[] llamadas = new int[n];
+        int[] siguiente = new int[n];
+        int contador = 0;
+        int numComponentes = 0;
+
+        for (int raiz = 0; raiz < n; raiz++) {
+            if (indice[raiz] >= 0) {
+                continue;
+            }
+            int profundidad = 0;
+            llamadas[0] = raiz;
+            siguiente[0] = 0;
+            indice[raiz] = minimo[raiz] = contador++;
+            pila[cima++] = raiz;
+            enPila[raiz] = true;
+
+            while (profundidad >= 0) {
+                int a = llamadas[profundidad];
+                if (siguiente[profundidad] < sucesores[a].length) {
+                    int b = sucesores[a][siguiente[profundidad]++];
+                    if (indice[b] < 0) {
+                        indice[b] = minimo[b] = contador++;
+                        pila[cima++] = b;
+                        enPila[b] = true;
+                        profundidad++;
+                        llamadas[profundidad] = b;
+                        siguiente[profundidad] = 0;
+                    } else if (enPila[b]) {
+                        minimo[a] = Math.min(minimo[a], indice[b]);
+                    }
+                    continue;
+                }
+
+                // Se han recorrido todas las aristas de a
+                if (minimo[a] == indice[a]) {
+                    int b;
+                    do {
+                        b = pila[--cima];
+                        enPila[b] = false;
+                        componente[b] = numComponentes;
+                    } while (b != a);
+                    numComponentes++;
+                }
+                profundidad--;
+                if (profundidad >= 0) {
+                    int padre = llamadas[profundidad];
+                    minimo[padre] = Math.min(minimo[padre], minimo[a]);
+                }
+            }
+        }
+        return numComponentes;
+    }
+
+
+
+    /**
+     * Aristas del grafo de derivaciones unitarias: B es sucesor de A si hay
+     * una producción A::=αBβ en la que todo lo demás (αβ) es anulable.
+     */
+    private int[][] calcularSucesoresUnitarios() {
+        int[][] resultado = new int[numNoTerminales][];
+        long[] vistos = new long[palabras];
+        int[] destinos = new int[numNoTerminales];
+        for (int a = 0; a < numNoTerminales; a++) {
+            int num = 0;
+            for (int p = primeraProduccion[a]; p < primeraProduccion[a + 1]; p++) {
+                int obligatorios = 0;
+                int unico = -1;
+                for (int x = inicioCuerpo[p]; x < inicioCuerpo[p + 1]; x++) {
+                    if (!isNonTerminal(cuerpos[x]) || !contiene(anulables, cuerpos[x])) {
+                        obligatorios++;
+                        unico = cuerpos[x];
+                    }
+                }
+                for (int x = inicioCuerpo[p]; x < inicioCuerpo[p + 1]; x++) {
+                    int b = cuerpos[x];
+                    boolean destino = obligatorios == 0 ? isNonTerminal(b) : obligatorios == 1 && b == unico && isNonTerminal(b);
+                    if (destino && marcar(vistos, b)) {
+                        destinos[num++] = b;
+                    }
+                }
+            }
+            resultado[a] = Arrays.copyOf(destinos, num);
+            for (int x = 0; x < num; x++) {
+                vistos[destinos[x] >>> 6] &= ~(1L << destinos[x]);
+            }
+        }
+        return resultado;
+    }
+
+
+
+    private boolean calcularFNC() {
+        for (int p = 0; p < getProductionCount(); p++) {
+            int longitud = getProductionLength(p);
+            if (longitud == 0 && cabezaProduccion[p] == axioma) {
+                continue;
+            }
+            if (longitud == 1 && getProductionSymbol(p, 0) >= numNoTerminales) {
+                continue;
+            }
+            if (longitud == 2 && isNonTerminal(getProductionSymbol(p, 0)) && isNonTerminal(getProductionSymbol(p, 1))) {
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+
+
+
+    private void compilarPares() {
+        for (int p = 0; p < getProductionCount(); p++) {
+            int a = cabezaProduccion[p];
+            if (getProductionLength(p) == 1) {
+                char t = simbolos[getProductionSymbol(p, 0)];
+                if (porTerminal[t] == null) {
+                    porTerminal[t] = new long[palabras];
+                }
+                marcar(porTerminal[t], a);
+            } else if (getProductionLength(p) == 2) {
+                int b = getProductionSymbol(p, 0);
+                int c = getProductionSymbol(p, 1);
+                marcar(izquierdos, b);
+                if (derechosDe[b] == null) {
+                    derechosDe[b] = new long[palabras];
+                }
+                marcar(derechosDe[b], c);
+                int par = b * numNoTerminales + c;
+                if (cabezas[par] == null) {
+                    cabezas[par] = new long[palabras];
+                }
+                marcar(cabezas[par], a);
+            }
+        }
+    }
+
+
+
+    private static boolean contiene(long[] bits, int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+
+
+    /**
+     * Activa el bit indicado.
+     *
+     * @return true si el bit no estaba activo.
+     */
+    private static boolean marcar(long[] bits, int id) {
+        long antes = bits[id >>> 6];
+        bits[id >>> 6] = antes | (1L << id);
+        return (antes & (1L << id)) == 0;
+    }
+}
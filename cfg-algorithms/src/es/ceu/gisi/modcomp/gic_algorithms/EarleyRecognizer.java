@@ -0,0 +1,350 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+
+/**
+ * Reconocedor de Earley que trabaja directamente sobre las producciones de la
+ * gramática, sin necesidad de pasarla a FNC ni de eliminar las reglas lambda.
+ *
+ * Incorpora dos mejoras clásicas sobre el algoritmo original:
+ * - Las reglas anulables se tratan como proponen Aycock y Horspool: al predecir
+ * un no terminal anulable se avanza el punto directamente, de modo que nunca
+ * hay que completar ítems que empiezan y acaban en el mismo conjunto.
+ * - La recursividad por la derecha se resuelve con los ítems de Leo, que
+ * sustituyen cada cadena determinista de compleciones por su ítem superior.
+ * Con ello el reconocedor es lineal para las gramáticas LR-regulares (y, en
+ * particular, para las LR(k) no ambiguas).
+ *
+ * Cada ítem [A::=α·β, j] se representa por un "estado" (la regla con el punto
+ * en una posición concreta) y su origen j.
+ */
+final class EarleyRecognizer {
+
+    // Símbolo tras el punto cuando el ítem está completo
+    private static final int COMPLETO = Integer.MIN_VALUE;
+
+    // Valores especiales de la memoria de ítems de Leo
+    private static final int SIN_CALCULAR = -2;
+    private static final int NINGUNO = -1;
+
+    private final int numNoTerminales;
+    private final boolean conAxioma;
+    private final int inicial;
+    private final int aceptacion;
+
+    // estado -> símbolo tras el punto: >= 0 no terminal, < 0 terminal -(c+1)
+    private final int[] postdot;
+
+    // estado -> no terminal de la parte izquierda de la regla
+    private final int[] cabeza;
+
+    // no terminal -> estados iniciales de sus reglas
+    private final int[][] predicciones;
+
+    private final boolean[] anulable;
+
+
+
+    /**
+     * Prepara el reconocedor sobre la gramática compilada indicada. No se
+     * exige ninguna forma normal: las producciones lambda tienen longitud 0.
+     *
+     * @param gramatica Gramática compilada.
+     */
+    EarleyRecognizer(CompiledGrammar gramatica) {
+        // El último no terminal es el axioma aumentado S'::=S
+        int aumentado = gramatica.getNonTerminalCount();
+        numNoTerminales = aumentado + 1;
+
+        List<int[]> reglas = new ArrayList<>();
+        List<Integer> cabezas = new ArrayList<>();
+        conAxioma = gramatica.getStartSymbol() >= 0;
+        reglas.add(conAxioma ? new int[]{gramatica.getStartSymbol()} : new int[0]);
+        cabezas.add(aumentado);
+        for (int p = 0; p < gramatica.getProductionCount(); p++) {
+            int[] regla = new int[gramatica.getProductionLength(p)];
+            for (int k = 0; k < regla.length; k++) {
+                int s = gramatica.getProductionSymbol(p, k);
+                // Los terminales se codifican como -(c+1); un símbolo que no
+                // es de la gramática no puede coincidir con ningún carácter
+                if (gramatica.isNonTerminal(s)) {
+                    regla[k] = s;
+                } else {
+                    regla[k] = s >= 0 ? -(gramatica.getSymbol(s) + 1) : -(Character.MAX_VALUE + 2);
+                }
+            }
+            reglas.add(regla);
+            cabezas.add(gramatica.getProductionHead(p));
+        }
+
+        int numEstados = 0;
+        for (int[] regla : reglas) {
+            numEstados += regla.length + 1;
+        }
+        postdot = new int[numEstados];
+        cabeza = new int[numEstados];
+
+        List<List<Integer>> porCabeza = new ArrayList<>();
+        for (int a = 0; a < numNoTerminales; a++) {
+            porCabeza.add(new ArrayList<>());
+        }
+
+        int estado = 0;
+        for (int r = 0; r < reglas.size(); r++) {
+            int[] regla = reglas.get(r);
+            porCabeza.get(cabezas.get(r)).add(estado);
+            for (int punto = 0; punto <= regla.length; punto++) {
+                postdot[estado] = punto < regla.length ? regla[punto] : COMPLETO;
+                cabeza[estado] = cabezas.get(r);
+                estado++;
+            }
+        }
+
+        predicciones = new int[numNoTerminales][];
+        for (int a = 0; a < numNoTerminales; a++) {
+            List<Integer> inicios = porCabeza.get(a);
+            predicciones[a] = new int[inicios.size()];
+            for (int x = 0; x < inicios.size(); x++) {
+                predicciones[a][x] = inicios.get(x);
+            }
+        }
+
+        inicial = 0;
+        aceptacion = 1;
+        anulable = new boolean[numNoTerminales];
+        for (int a = 0; a < aumentado; a++) {
+            anulable[a] = gramatica.isNullable(a);
+        }
+        anulable[aumentado] = conAxioma && gramatica.isNullable(gramatica.getStartSymbol());
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje de la gramática compilada.
+     *
+     * @param word Palabra formada sólo por terminales de la gramática.
+     *
+     * @return true si el axioma deriva la palabra.
+     */
+    boolean recognize(CharSequence word) {
+        if (!conAxioma) {
+            return false;
+        }
+        return new Ejecucion(word).reconocer();
+    }
+
+
+
+    /**
+     * Estado de un reconocimiento concreto. Todos los ítems de todos los
+     * conjuntos se guardan seguidos en arrays globales; el conjunto i ocupa
+     * las posiciones [inicio[i], inicio[i+1]).
+     */
+    private final class Ejecucion {
+
+        private final CharSequence word;
+
+        private int[] estados = new int[64];
+        private int[] origenes = new int[64];
+        // Siguiente ítem del mismo conjunto que espera al mismo no terminal
+        private int[] siguiente = new int[64];
+        private int numItems;
+
+        // Ítems escaneados hacia el conjunto siguiente
+        private int[] escaneados = new int[16];
+        private int numEscaneados;
+
+        // (estado, origen) ya presentes en el conjunto actual
+        private final LongIntHashMap vistos = new LongIntHashMap(64);
+
+        // (conjunto, no terminal) -> primer ítem que espera a ese no terminal
+        private final LongIntHashMap esperando = new LongIntHashMap(256);
+
+        // (conjunto, no terminal) -> ítem de Leo (índice en leoEstado/leoOrigen)
+        private final LongIntHashMap leo = new LongIntHashMap(256);
+        private int[] leoEstado = new int[16];
+        private int[] leoOrigen = new int[16];
+        private int numLeo;
+
+        // Último conjunto (+1) en el que se ha predicho cada no terminal
+        private final int[] predicho = new int[numNoTerminales];
+
+
+
+        Ejecucion(CharSequence word) {
+            this.word = word;
+        }
+
+
+
+        boolean reconocer() {
+            int n = word.length();
+            for (int i = 0; i <= n; i++) {
+                vistos.clear();
+                int inicio = numItems;
+                if (i == 0) {
+                    anadir(inicial, 0);
+                }
+                for (int x = 0; x < numEscaneados; x += 2) {
+                    anadir(escaneados[x], escaneados[x + 1]);
+                }
+                numEscaneados = 0;
+
+                if (numItems == inicio) {
+                    return false;
+                }
+
+                char actual = i < n ? word.charAt(i) : 0;
+                for (int p = inicio; p < numItems; p++) {
+                    int e = estados[p];
+                    int o = origenes[p];
+                    int s = postdot[e];
+                    if (s == COMPLETO) {
+                        completar(i, cabeza[e], o);
+                    } else if (s >= 0) {
+                        predecir(i, p, s);
+                        if (anulable[s]) {
+                            anadir(e + 1, o);
+                        }
+                    } else if (i < n && -(s + 1) == actual) {
+                        escanear(e + 1, o);
+                    }
+                }
+            }
+            return vistos.get(clave(aceptacion, 0), NINGUNO) != NINGUNO;
+        }
+
+
+
+        private void predecir(int i, int p, int b) {
+            long k = clave(i, b);
+            siguiente[p] = esperando.get(k, NINGUNO);
+            esperando.put(k, p);
+
+            if (predicho[b] != i + 1) {
+                predicho[b] = i + 1;
+                for (int e : predicciones[b]) {
+                    anadir(e, i);
+                }
+            }
+        }
+
+
+
+        private void completar(int i, int b, int j) {
+            // Con el tratamiento de Aycock-Horspool, si j == i el avance ya se
+            // hizo al predecir b
+            if (j == i) {
+                return;
+            }
+            int l = itemLeo(j, b);
+            if (l != NINGUNO) {
+                anadir(leoEstado[l], leoOrigen[l]);
+                return;
+            }
+            for (int q = esperando.get(clave(j, b), NINGUNO); q != NINGUNO; q = siguiente[q]) {
+                anadir(estados[q] + 1, origenes[q]);
+            }
+        }
+
+
+
+        /**
+         * Devuelve el ítem de Leo del conjunto j para el no terminal b: si en
+         * j hay un único ítem que espera a b y b es el último símbolo de su
+         * regla, la compleción es determinista y puede saltarse hasta el ítem
+         * superior de la cadena. Se calcula de forma iterativa y se memoriza
+         * para cada par (conjunto, no terminal) de la cadena.
+         */
+        private int itemLeo(int j, int b) {
+            int memo = leo.get(clave(j, b), SIN_CALCULAR);
+            if (memo != SIN_CALCULAR) {
+                return memo;
+            }
+
+            List<long[]> cadena = new ArrayList<>();
+            int superior = NINGUNO;
+            while (true) {
+                int q = esperando.get(clave(j, b), NINGUNO);
+                if (q == NINGUNO || siguiente[q] != NINGUNO || postdot[estados[q] + 1] != COMPLETO) {
+                    cadena.add(new long[]{clave(j, b), NINGUNO});
+                    break;
+                }
+                int candidato = nuevoLeo(estados[q] + 1, origenes[q]);
+                cadena.add(new long[]{clave(j, b), candidato});
+
+                int k = origenes[q];
+                int a = cabeza[estados[q]];
+                if (k >= j) {
+                    break;
+                }
+                int arriba = leo.get(clave(k, a), SIN_CALCULAR);
+                if (arriba != SIN_CALCULAR) {
+                    superior = arriba;
+                    break;
+                }
+                j = k;
+                b = a;
+            }
+
+            for (int x = cadena.size() - 1; x >= 0; x--) {
+                long[] paso = cadena.get(x);
+                if (superior == NINGUNO) {
+                    superior = (int) paso[1];
+                }
+                leo.put(paso[0], superior);
+            }
+            return superior;
+        }
+
+
+
+        private int nuevoLeo(int estado, int origen) {
+            if (numLeo == leoEstado.length) {
+                leoEstado = Arrays.copyOf(leoEstado, numLeo * 2);
+                leoOrigen = Arrays.copyOf(leoOrigen, numLeo * 2);
+            }
+            leoEstado[numLeo] = estado;
+            leoOrigen[numLeo] = origen;
+            return numLeo++;
+        }
+
+
+
+        private void anadir(int estado, int origen) {
+            if (vistos.putIfAbsent(clave(estado, origen), numItems, NINGUNO) != NINGUNO) {
+                return;
+            }
+            if (numItems == estados.length) {
+                estados = Arrays.copyOf(estados, numItems * 2);
+                origenes = Arrays.copyOf(origenes, numItems * 2);
+                siguiente = Arrays.copyOf(siguiente, numItems * 2);
+            }
+            estados[numItems] = estado;
+            origenes[numItems] = origen;
+            siguiente[numItems] = NINGUNO;
+            numItems++;
+        }
+
+
+
+        private void escanear(int estado, int origen) {
+            if (numEscaneados + 2 > escaneados.length) {
+                escaneados = Arrays.copyOf(escaneados, escaneados.length * 2);
+            }
+            escaneados[numEscaneados++] = estado;
+            escaneados[numEscaneados++] = origen;
+        }
+    }
+
+
+
+    private static long clave(int alto, int bajo) {
+        return ((long) alto << 32) | (bajo & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,487 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+
+/**
+ * Generador de gramáticas aleatorias y de corpus de palabras para pruebas de
+ * escala. Todo lo que genera depende sólo de la semilla y de la
+ * configuración, de modo que dos generadores con la misma semilla producen
+ * exactamente las mismas gramáticas y palabras.
+ *
+ * Las gramáticas generadas tienen siempre todos sus no terminales
+ * generativos y alcanzables desde el axioma: cada no terminal i tiene una
+ * producción "base" que sólo usa terminales y los no terminales 2i+1 y 2i+2,
+ * de modo que forman un árbol de profundidad logarítmica. Sobre esa base se
+ * añaden producciones aleatorias, reglas lambda, una cadena de reglas
+ * unitarias y reglas ambiguas según la configuración.
+ */
+public final class GrammarGenerator {
+
+    private final Random azar;
+
+    private int numNoTerminales = 8;
+    private String alfabeto = "ab";
+    private int longitudMaxima = 4;
+    private int produccionesPorNoTerminal = 3;
+    private double proporcionAnulables = 0.0;
+    private int profundidadUnitaria = 0;
+    private double ambiguedad = 0.0;
+
+
+
+    /**
+     * @param seed Semilla de la que dependen todas las elecciones aleatorias.
+     */
+    public GrammarGenerator(long seed) {
+        azar = new Random(seed);
+    }
+
+
+
+    /**
+     * @param count Número de no terminales de las gramáticas (al menos 1).
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setNonTerminalCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Hace falta al menos un no terminal.");
+        }
+        numNoTerminales = count;
+        return this;
+    }
+
+
+
+    /**
+     * @param terminals Terminales de las gramáticas, por ejemplo "ab". No
+     *                  puede incluir 'l', que representa lambda.
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setTerminals(String terminals) {
+        if (terminals.isEmpty() || terminals.indexOf('l') >= 0) {
+            throw new IllegalArgumentException("Los terminales no pueden estar vacíos ni incluir 'l'.");
+        }
+        alfabeto = terminals;
+        return this;
+    }
+
+
+
+    /**
+     * @param length Longitud máxima de la parte derecha de las producciones
+     *               (al menos 2).
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setMaxProductionLength(int length) {
+        if (length < 2) {
+            throw new IllegalArgumentException("La longitud máxima debe ser al menos 2.");
+        }
+        longitudMaxima = length;
+        return this;
+    }
+
+
+
+    /**
+     * @param count Número de producciones no lambda de cada no terminal,
+     *              contando la producción base (al menos 1).
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setProductionsPerNonTerminal(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Cada no terminal necesita al menos una producción.");
+        }
+        produccionesPorNoTerminal = count;
+        return this;
+    }
+
+
+
+    /**
+     * @param ratio Probabilidad (entre 0 y 1) de que un no terminal tenga
+     *              una regla lambda.
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setNullableRatio(double ratio) {
+        proporcionAnulables = comprobarProbabilidad(ratio);
+        return this;
+    }
+
+
+
+    /**
+     * @param depth Longitud de la cadena de reglas unitarias X0::=X1,
+     *              X1::=X2... que se añade entre no terminales distintos
+     *              elegidos al azar (como mucho, el número de no terminales
+     *              menos uno).
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setUnitChainDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("La profundidad no puede ser negativa.");
+        }
+        profundidadUnitaria = depth;
+        return this;
+    }
+
+
+
+    /**
+     * @param ratio Probabilidad (entre 0 y 1) de que un no terminal A reciba
+     *              la regla ambigua A::=AA.
+     *
+     * @return Este mismo generador.
+     */
+    public GrammarGenerator setAmbiguity(double ratio) {
+        ambiguedad = comprobarProbabilidad(ratio);
+        return this;
+    }
+
+
+
+    /**
+     * Genera una nueva gramática con la configuración actual. El axioma es
+     * el primer no terminal ('A').
+     *
+     * @return La gramática generada.
+     *
+     * @throws CFGAlgorithmsException Si no hay caracteres suficientes para
+     *                                los no terminales pedidos.
+     */
+    public CFGAlgorithms generate() throws CFGAlgorithmsException {
+        CFGAlgorithms gica = new CFGAlgorithms();
+        for (char t : alfabeto.toCharArray()) {
+            gica.addTerminal(t);
+        }
+        char[] nts = new char[numNoTerminales];
+        int n = 0;
+        for (char c = 'A'; n < numNoTerminales; c++) {
+            if (c == Character.MAX_VALUE) {
+                throw new CFGAlgorithmsException("No hay caracteres suficientes para " + numNoTerminales + " no terminales.");
+            }
+            if (Character.isUpperCase(c)) {
+                gica.addNonTerminal(c);
+                nts[n++] = c;
+            }
+        }
+        gica.setStartSymbol(nts[0]);
+
+        List<Set<String>> producciones = new ArrayList<>();
+        for (int i = 0; i < numNoTerminales; i++) {
+            Set<String> propias = new LinkedHashSet<>();
+            propias.add(produccionBase(i, nts));
+            for (int intento = 0; propias.size() < produccionesPorNoTerminal && intento < 4 * produccionesPorNoTerminal; intento++) {
+                propias.add(produccionAleatoria(nts));
+            }
+            if (azar.nextDouble() < proporcionAnulables) {
+                propias.add("l");
+            }
+            if (azar.nextDouble() < ambiguedad) {
+                propias.add(nts[i] + String.valueOf(nts[i]));
+            }
+            producciones.add(propias);
+        }
+
+        // Cadena de reglas unitarias entre no terminales distintos
+        int[] orden = permutacion(numNoTerminales);
+        for (int k = 0; k < Math.min(profundidadUnitaria, numNoTerminales - 1); k++) {
+            producciones.get(orden[k]).add(String.valueOf(nts[orden[k + 1]]));
+        }
+
+        for (int i = 0; i < numNoTerminales; i++) {
+            for (String prod : producciones.get(i)) {
+                gica.addProduction(nts[i], prod);
+            }
+        }
+        return gica;
+    }
+
+
+
+    /**
+     * Genera palabras del lenguaje de la gramática mediante derivaciones
+     * aleatorias desde el axioma. Sirve para cualquier gramática cuyo axioma
+     * sea generativo, no sólo para las de este generador.
+     *
+     * @param grammar   Gramática de la que se toman las palabras.
+     * @param count     Número de palabras.
+     * @param maxLength Longitud máxima de las palabras (al menos la de la
+     *                  palabra más corta del lenguaje).
+     *
+     * @return Palabras no vacías del lenguaje (puede haber repetidas si el
+     *         lenguaje tiene pocas palabras de esa longitud).
+     *
+     * @throws CFGAlgorithmsException Si el axioma no genera ninguna palabra no
+     *                                vacía de longitud maxLength o menor.
+     */
+    public List<String> positiveWords(CFGAlgorithms grammar, int count, int maxLength) throws CFGAlgorithmsException {
+        Derivador derivador = new Derivador(grammar.compile());
+        List<String> palabras = new ArrayList<>(count);
+        int fallos = 0;
+        while (palabras.size() < count) {
+            String palabra = derivador.derivar(maxLength);
+            if (palabra != null && !palabra.isEmpty() && palabra.length() <= maxLength) {
+                palabras.add(palabra);
+            } else if (++fallos > 100 + 10 * count) {
+                throw new CFGAlgorithmsException("El axioma no genera palabras no vacías de longitud " + maxLength + " o menor.");
+            }
+        }
+        return palabras;
+    }
+
+
+
+    /**
+     * Genera palabras aleatorias sobre los terminales de la gramática que no
+     * pertenecen a su lenguaje, comprobándolo con el algoritmo de Earley.
+     *
+     * @param grammar   Gramática de la que se toman los terminales.
+     * @param count     Número de palabras.
+     * @param maxLength Longitud máxima de las palabras.
+     *
+     * @return Palabras no vacías que no están en el lenguaje. Si el lenguaje
+     *         contiene casi todas las palabras de esas longitudes pueden
+     *         devolverse menos de count.
+     *
+     * @throws CFGAlgorithmsException Si la gramática carece de axioma o de
+     *                                producciones.
+     */
+    public List<String> negativeWords(CFGAlgorithms grammar, int count, int maxLength) throws CFGAlgorithmsException {
+        CompiledGrammar compilada = grammar.compile();
+        char[] terminales = new char[compilada.getTerminalCount()];
+        for (int t = 0; t < terminales.length; t++) {
+            terminales[t] = compilada.getSymbol(compilada.getNonTerminalCount() + t);
+        }
+        List<String> palabras = new ArrayList<>(count);
+        if (terminales.length == 0 || maxLength < 1) {
+            return palabras;
+        }
+        StringBuilder sb = new StringBuilder(maxLength);
+        for (int intento = 0; palabras.size() < count && intento < 100 * count; intento++) {
+            sb.setLength(0);
+            int longitud = 1 + azar.nextInt(maxLength);
+            for (int i = 0; i < longitud; i++) {
+                sb.append(terminales[azar.nextInt(terminales.length)]);
+            }
+            String palabra = sb.toString();
+            if (!grammar.isDerivedUsingEarley(palabra)) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+
+
+    private String produccionBase(int i, char[] nts) {
+        int hijos = 0;
+        StringBuilder sb = new StringBuilder();
+        for (int h = 2 * i + 1; h <= 2 * i + 2 && h < numNoTerminales; h++) {
+            sb.append(nts[h]);
+            hijos++;
+        }
+        // Al menos un terminal si no hay hijos, para que la producción genere
+        int longitud = Math.max(hijos, 1) + azar.nextInt(longitudMaxima - Math.max(hijos, 1) + 1);
+        while (sb.length() < longitud) {
+            sb.insert(azar.nextInt(sb.length() + 1), alfabeto.charAt(azar.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+
+
+
+    private String produccionAleatoria(char[] nts) {
+        int longitud = 1 + azar.nextInt(longitudMaxima);
+        StringBuilder sb = new StringBuilder(longitud);
+        for (int k = 0; k < longitud; k++) {
+            if (azar.nextBoolean()) {
+                sb.append(alfabeto.charAt(azar.nextInt(alfabeto.length())));
+            } else {
+                sb.append(nts[azar.nextInt(nts.length)]);
+            }
+        }
+        return sb.toString();
+    }
+
+
+
+    private int[] permutacion(int n) {
+        int[] orden = new int[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = azar.nextInt(i + 1);
+            int tmp = orden[i];
+            orden[i] = orden[j];
+            orden[j] = tmp;
+        }
+        return orden;
+    }
+
+
+
+    private static double comprobarProbabilidad(double p) {
+        if (!(p >= 0.0 && p <= 1.0)) {
+            throw new IllegalArgumentException("La probabilidad debe estar entre 0 y 1.");
+        }
+        return p;
+    }
+
+
+
+    /**
+     * Derivaciones aleatorias por la izquierda sobre una gramática compilada.
+     * Para cada no terminal se precalcula la longitud mínima de las palabras
+     * que genera y la altura mínima de sus árboles de derivación: la primera
+     * permite no pasarse de la longitud pedida y la segunda garantiza que la
+     * derivación termina cuando se agota el número de pasos.
+     */
+    private final class Derivador {
+
+        private static final int INFINITO = Integer.MAX_VALUE / 4;
+
+        private final CompiledGrammar g;
+        private final int[] longitudMinima;
+        private final int[] alturaMinima;
+        // Producción con la que se alcanza la altura mínima
+        private final int[] produccionMinima;
+
+
+
+        Derivador(CompiledGrammar g) throws CFGAlgorithmsException {
+            this.g = g;
+            int n = g.getNonTerminalCount();
+            longitudMinima = new int[n];
+            alturaMinima = new int[n];
+            produccionMinima = new int[n];
+            Arrays.fill(longitudMinima, INFINITO);
+            Arrays.fill(alturaMinima, INFINITO);
+
+            // Punto fijo de Bellman-Ford: basta con n+1 rondas
+            boolean cambios = true;
+            for (int ronda = 0; cambios && ronda <= n; ronda++) {
+                cambios = false;
+                for (int p = 0; p < g.getProductionCount(); p++) {
+                    int a = g.getProductionHead(p);
+                    int longitud = longitudDe(p);
+                    if (longitud < longitudMinima[a]) {
+                        longitudMinima[a] = longitud;
+                        cambios = true;
+                    }
+                    int altura = 1;
+                    for (int k = 0; k < g.getProductionLength(p); k++) {
+                        int s = g.getProductionSymbol(p, k);
+                        if (g.isNonTerminal(s)) {
+                            altura = Math.max(altura, alturaMinima[s] + 1);
+                        }
+                    }
+                    if (altura < alturaMinima[a]) {
+                        alturaMinima[a] = altura;
+                        produccionMinima[a] = p;
+                        cambios = true;
+                    }
+                }
+            }
+            if (g.getStartSymbol() < 0 || alturaMinima[g.getStartSymbol()] >= INFINITO) {
+                throw new CFGAlgorithmsException("El axioma no genera ninguna palabra.");
+            }
+        }
+
+
+
+        /**
+         * @return Una palabra derivada del axioma, o null si la derivación
+         *         aleatoria se ha pasado de la longitud máxima.
+         */
+        String derivar(int maxLength) {
+            StringBuilder palabra = new StringBuilder();
+            // Forma sentencial pendiente, con el primer símbolo en la cima
+            int[] pila = new int[16];
+            int cima = 0;
+            pila[cima++] = g.getStartSymbol();
+            int pendiente = longitudMinima[g.getStartSymbol()];
+            int pasos = 0;
+            int limitePasos = 10 * maxLength + 100;
+
+            while (cima > 0) {
+                int s = pila[--cima];
+                if (!g.isNonTerminal(s)) {
+                    palabra.append(g.getSymbol(s));
+                    pendiente--;
+                    if (palabra.length() > maxLength) {
+                        return null;
+                    }
+                    continue;
+                }
+                pendiente -= longitudMinima[s];
+                int p = pasos++ < limitePasos ? elegir(s, maxLength - palabra.length() - pendiente) : produccionMinima[s];
+                pendiente += longitudDe(p);
+                int longitud = g.getProductionLength(p);
+                if (cima + longitud > pila.length) {
+                    pila = Arrays.copyOf(pila, Math.max(pila.length * 2, cima + longitud));
+                }
+                for (int k = longitud - 1; k >= 0; k--) {
+                    pila[cima++] = g.getProductionSymbol(p, k);
+                }
+            }
+            return palabra.toString();
+        }
+
+
+
+        /**
+         * Elige al azar una producción de a cuya longitud mínima quepa en el
+         * presupuesto; si no cabe ninguna, la de menor longitud mínima.
+         */
+        private int elegir(int a, int presupuesto) {
+            int inicio = g.getProductionsStart(a);
+            int fin = g.getProductionsEnd(a);
+            int elegida = -1;
+            int candidatas = 0;
+            int mejor = -1;
+            for (int p = inicio; p < fin; p++) {
+                int longitud = longitudDe(p);
+                if (longitud >= INFINITO) {
+                    continue;
+                }
+                if (mejor < 0 || longitud < longitudDe(mejor)) {
+                    mejor = p;
+                }
+                // Muestreo de un elemento entre las que caben
+                if (longitud <= presupuesto && azar.nextInt(++candidatas) == 0) {
+                    elegida = p;
+                }
+            }
+            return elegida >= 0 ? elegida : mejor;
+        }
+
+
+
+        private int longitudDe(int p) {
+            int longitud = 0;
+            for (int k = 0; k < g.getProductionLength(p); k++) {
+                int s = g.getProductionSymbol(p, k);
+                longitud += g.isNonTerminal(s) ? longitudMinima[s] : 1;
+                if (longitud >= INFINITO) {
+                    return INFINITO;
+                }
+            }
+            return longitud;
+        }
+    }
+}
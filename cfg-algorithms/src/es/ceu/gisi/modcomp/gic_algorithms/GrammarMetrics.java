@@ -0,0 +1,124 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import es.ceu.gisi.modcomp.gic_algorithms.interfaces.GrammarListener;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * Oyente que acumula métricas por pasada: número de ejecuciones, tiempo total
+ * y símbolos y producciones eliminados. Se puede compartir entre varios
+ * hilos.
+ */
+public final class GrammarMetrics implements GrammarListener {
+
+    private static final int EJECUCIONES = 0;
+    private static final int NANOS = 1;
+    private static final int SIMBOLOS = 2;
+    private static final int PRODUCCIONES = 3;
+
+    // Pasada -> contadores, en el orden en que se ejecutaron por primera vez
+    private final Map<String, long[]> pasadas = new LinkedHashMap<>();
+
+
+
+    @Override
+    public synchronized void passFinished(String pass, long nanos, int symbolsRemoved, int productionsRemoved) {
+        long[] contadores = pasadas.computeIfAbsent(pass, k -> new long[4]);
+        contadores[EJECUCIONES]++;
+        contadores[NANOS] += nanos;
+        contadores[SIMBOLOS] += symbolsRemoved;
+        contadores[PRODUCCIONES] += productionsRemoved;
+    }
+
+
+
+    /**
+     * @return Las pasadas de las que hay métricas, en el orden en que se
+     *         ejecutaron por primera vez.
+     */
+    public synchronized Set<String> getPasses() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(pasadas.keySet()));
+    }
+
+
+
+    /**
+     * @param pass Nombre de la pasada.
+     *
+     * @return Número de veces que ha terminado la pasada.
+     */
+    public synchronized long getInvocations(String pass) {
+        return contador(pass, EJECUCIONES);
+    }
+
+
+
+    /**
+     * @param pass Nombre de la pasada.
+     *
+     * @return Tiempo total empleado en la pasada, en nanosegundos.
+     */
+    public synchronized long getTotalNanos(String pass) {
+        return contador(pass, NANOS);
+    }
+
+
+
+    /**
+     * @param pass Nombre de la pasada.
+     *
+     * @return Símbolos eliminados por la pasada en todas sus ejecuciones.
+     */
+    public synchronized long getSymbolsRemoved(String pass) {
+        return contador(pass, SIMBOLOS);
+    }
+
+
+
+    /**
+     * @param pass Nombre de la pasada.
+     *
+     * @return Producciones eliminadas por la pasada en todas sus ejecuciones.
+     */
+    public synchronized long getProductionsRemoved(String pass) {
+        return contador(pass, PRODUCCIONES);
+    }
+
+
+
+    /**
+     * Borra todas las métricas acumuladas.
+     */
+    public synchronized void reset() {
+        pasadas.clear();
+    }
+
+
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : pasadas.entrySet()) {
+            long[] c = entry.getValue();
+            sb.append(entry.getKey())
+              .append(": ejecuciones=").append(c[EJECUCIONES])
+              .append(", ms=").append(c[NANOS] / 1_000_000.0)
+              .append(", símbolos=").append(c[SIMBOLOS])
+              .append(", producciones=").append(c[PRODUCCIONES])
+              .append('\n');
+        }
+        return sb.toString();
+    }
+
+
+
+    private long contador(String pass, int cual) {
+        long[] contadores = pasadas.get(pass);
+        return contadores == null ? 0 : contadores[cual];
+    }
+}
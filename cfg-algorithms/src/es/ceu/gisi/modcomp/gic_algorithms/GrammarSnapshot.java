@@ -0,0 +1,243 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+
+/**
+ * Copia inmutable de la gramática de CFGAlgorithms tal y como quedó tras una
+ * modificación completa, junto con la época en la que se tomó.
+ *
+ * Se construye en la primera consulta tras una o varias modificaciones
+ * completas, y los lectores trabajan siempre sobre una sola, sin cerrojos:
+ * nunca ven una gramática a medio modificar. La gramática compilada, los reconocedores y el
+ * texto de {@link #getGrammar()} se construyen la primera vez que se piden.
+ * Si dos hilos los piden a la vez pueden llegar a construirse dos veces, pero
+ * el resultado es equivalente y ambos son inmutables.
+ */
+final class GrammarSnapshot {
+
+    private final long epoca;
+    private final Set<Character> noTerminales;
+    private final Set<Character> terminales;
+    private final Map<Character, Set<String>> producciones;
+    private final Character simboloInicio;
+
+    private volatile CompiledGrammar compilada;
+    private volatile CYKRecognizer cyk;
+    private volatile TopDownRecognizer descendente;
+    private volatile MatrixCYKRecognizer matricial;
+    private volatile EarleyRecognizer earley;
+    private volatile LL1Recognizer ll1;
+    private volatile LALRRecognizer lalr;
+    private volatile RegularRecognizer regular;
+    private volatile boolean regularCalculado;
+    private volatile String gramatica;
+
+
+
+    /**
+     * Copia el estado indicado. Si ya se dispone de la gramática compilada
+     * para ese mismo estado, se reutiliza.
+     *
+     * @param epoca        Época de la gramática.
+     * @param noTerminales Conjunto de no terminales.
+     * @param terminales   Conjunto de terminales.
+     * @param producciones Producciones de cada no terminal.
+     * @param axioma       Axioma de la gramática, o null si no tiene.
+     * @param compilada    Gramática compilada del mismo estado, o null.
+     */
+    GrammarSnapshot(long epoca, Set<Character> noTerminales, Set<Character> terminales,
+                    Map<Character, Set<String>> producciones, Character axioma,
+                    CompiledGrammar compilada) {
+        this.epoca = epoca;
+        this.noTerminales = Collections.unmodifiableSet(new HashSet<>(noTerminales));
+        this.terminales = Collections.unmodifiableSet(new HashSet<>(terminales));
+        Map<Character, Set<String>> copia = new HashMap<>();
+        for (Map.Entry<Character, Set<String>> entry : producciones.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                copia.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+            }
+        }
+        this.producciones = Collections.unmodifiableMap(copia);
+        this.simboloInicio = axioma;
+        this.compilada = compilada;
+    }
+
+
+
+    long getEpoch() {
+        return epoca;
+    }
+
+
+
+    Set<Character> getNonTerminals() {
+        return noTerminales;
+    }
+
+
+
+    Set<Character> getTerminals() {
+        return terminales;
+    }
+
+
+
+    /**
+     * @return Las producciones del no terminal (vacío si no tiene).
+     */
+    Set<String> getProductions(char nonterminal) {
+        return producciones.getOrDefault(nonterminal, Collections.emptySet());
+    }
+
+
+
+    /**
+     * @return El axioma, o null si no se ha establecido.
+     */
+    Character getStartSymbol() {
+        return simboloInicio;
+    }
+
+
+
+    CompiledGrammar getCompiled() {
+        CompiledGrammar g = compilada;
+        if (g == null) {
+            g = new CompiledGrammar(noTerminales, terminales, producciones, simboloInicio);
+            compilada = g;
+        }
+        return g;
+    }
+
+
+
+    /**
+     * @return El reconocedor CYK (la gramática debe estar en FNC).
+     */
+    CYKRecognizer getCYK() {
+        CYKRecognizer r = cyk;
+        if (r == null) {
+            r = new CYKRecognizer(getCompiled());
+            cyk = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return El reconocedor descendente con memoria (la gramática debe
+     *         estar en FNC).
+     */
+    TopDownRecognizer getTopDown() {
+        TopDownRecognizer r = descendente;
+        if (r == null) {
+            r = new TopDownRecognizer(getCompiled());
+            descendente = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return El reconocedor CYK por matrices de bits (la gramática debe
+     *         estar en FNC).
+     */
+    MatrixCYKRecognizer getMatrixCYK() {
+        MatrixCYKRecognizer r = matricial;
+        if (r == null) {
+            r = new MatrixCYKRecognizer(getCompiled());
+            matricial = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return El AFD mínimo de la gramática, o null si no es fuertemente
+     *         regular o el autómata es demasiado grande.
+     */
+    RegularRecognizer getRegular() {
+        if (!regularCalculado) {
+            regular = RegularRecognizer.build(getCompiled());
+            regularCalculado = true;
+        }
+        return regular;
+    }
+
+
+
+    EarleyRecognizer getEarley() {
+        EarleyRecognizer r = earley;
+        if (r == null) {
+            r = new EarleyRecognizer(getCompiled());
+            earley = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return El análisis LL(1), con la tabla predictiva y sus conflictos.
+     */
+    LL1Recognizer getLL1() {
+        LL1Recognizer r = ll1;
+        if (r == null) {
+            r = new LL1Recognizer(getCompiled());
+            ll1 = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return Las tablas LALR(1), con sus conflictos.
+     */
+    LALRRecognizer getLALR() {
+        LALRRecognizer r = lalr;
+        if (r == null) {
+            r = new LALRRecognizer(getCompiled(), getLL1());
+            lalr = r;
+        }
+        return r;
+    }
+
+
+
+    /**
+     * @return La gramática en el formato de CFGAlgorithms#getGrammar(): un no
+     *         terminal por línea, por orden alfabético y con sus producciones
+     *         ordenadas.
+     */
+    String getGrammar() {
+        String texto = gramatica;
+        if (texto == null) {
+            StringBuilder grammar = new StringBuilder();
+            List<Character> noTerminalesOrdenados = new ArrayList<>(noTerminales);
+            Collections.sort(noTerminalesOrdenados);
+            for (Character nonTerminal : noTerminalesOrdenados) {
+                grammar.append(nonTerminal).append(" ::= ");
+
+                List<String> produccionesOrdenadas = new ArrayList<>(getProductions(nonTerminal));
+                Collections.sort(produccionesOrdenadas);
+                grammar.append(String.join(" | ", produccionesOrdenadas));
+                grammar.append("\n");
+            }
+            texto = grammar.toString();
+            gramatica = texto;
+        }
+        return texto;
+    }
+}
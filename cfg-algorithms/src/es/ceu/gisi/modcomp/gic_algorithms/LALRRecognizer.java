@@ -0,0 +1,630 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+
+/**
+ * Tablas LALR(1) de una gramática compilada y reconocedor ascendente por
+ * desplazamiento y reducción.
+ *
+ * Se construye el autómata LR(0) de la gramática aumentada con S'::=S y se
+ * calculan los símbolos de anticipación de cada ítem propagándolos entre los
+ * núcleos de los estados hasta que no cambian. Si a una celda de la tabla de
+ * acciones le corresponde más de una acción la gramática no es LALR(1): se
+ * anotan todas como conflicto y el reconocedor no se puede usar.
+ *
+ * Las tablas de acciones y de saltos se empaquetan por desplazamiento de
+ * filas: todas las filas se superponen en un único array de valores, cada una
+ * a partir de su base, y un segundo array indica a qué fila pertenece cada
+ * posición. Una casilla que no pertenece a la fila consultada es un error.
+ *
+ * El reconocimiento es lineal en la longitud de la palabra y, salvo cuando la
+ * pila de estados crece por encima de la que ya tiene el hilo, no reserva
+ * memoria.
+ */
+final class LALRRecognizer {
+
+    // Símbolo tras el punto cuando el ítem está completo
+    private static final int COMPLETO = -2;
+
+    // Las pilas de más de 2^20 estados no se guardan para el hilo
+    private static final int MAX_PILA_RETENIDA = 1 << 20;
+
+    private static final ThreadLocal<int[][]> PILAS = ThreadLocal.withInitial(() -> new int[][]{new int[64]});
+
+    private final CompiledGrammar gramatica;
+    private final int numNoTerminales;
+    private final int numTerminales;
+    private final int palabras;
+
+    // Producción aumentada S'::=S, tras las de la gramática
+    private final int aumentada;
+    private final boolean conAxioma;
+
+    // producción -> longitud de la parte derecha y parte izquierda
+    private final int[] longitud;
+    private final int[] cabeza;
+
+    // Ítems: el de la producción p con el punto en k es inicioItem[p] + k
+    private final int[] inicioItem;
+    private final int[] produccionItem;
+    private final int[] postdot;
+
+    // Autómata LR(0): núcleo y cierre de cada estado, y sus transiciones
+    // ordenadas por símbolo
+    private final List<int[]> nucleos = new ArrayList<>();
+    private final List<int[]> cierres = new ArrayList<>();
+    private final List<int[]> simbolosTransicion = new ArrayList<>();
+    private final List<int[]> destinosTransicion = new ArrayList<>();
+    private final int numEstados;
+
+    // Tabla de acciones empaquetada: > 0 desplazar al estado v - 1,
+    // < 0 reducir la producción -v - 1 (aceptar si es la aumentada)
+    private final int[] baseAccion;
+    private final int[] valorAccion;
+    private final int[] filaAccion;
+
+    // Tabla de saltos empaquetada: estado destino + 1
+    private final int[] baseIr;
+    private final int[] valorIr;
+    private final int[] filaIr;
+
+    private final List<String> conflictos;
+
+
+
+    /**
+     * Construye el autómata, las tablas y sus conflictos para la gramática
+     * compilada indicada.
+     *
+     * @param gramatica Gramática compilada.
+     * @param ll1       Análisis LL(1) de la misma gramática, del que se toman
+     *                  los conjuntos PRIMERO.
+     */
+    LALRRecognizer(CompiledGrammar gramatica, LL1Recognizer ll1) {
+        this.gramatica = gramatica;
+        numNoTerminales = gramatica.getNonTerminalCount();
+        numTerminales = gramatica.getTerminalCount();
+        palabras = (numTerminales + 1 + 63) >>> 6;
+
+        aumentada = gramatica.getProductionCount();
+        conAxioma = gramatica.getStartSymbol() >= 0;
+        longitud = new int[aumentada + 1];
+        cabeza = new int[aumentada + 1];
+        inicioItem = new int[aumentada + 2];
+        for (int p = 0; p < aumentada; p++) {
+            longitud[p] = gramatica.getProductionLength(p);
+            cabeza[p] = gramatica.getProductionHead(p);
+        }
+        longitud[aumentada] = conAxioma ? 1 : 0;
+        cabeza[aumentada] = -1;
+        for (int p = 0; p <= aumentada; p++) {
+            inicioItem[p + 1] = inicioItem[p] + longitud[p] + 1;
+        }
+        produccionItem = new int[inicioItem[aumentada + 1]];
+        postdot = new int[produccionItem.length];
+        for (int p = 0; p <= aumentada; p++) {
+            for (int k = 0; k <= longitud[p]; k++) {
+                int item = inicioItem[p] + k;
+                produccionItem[item] = p;
+                if (k == longitud[p]) {
+                    postdot[item] = COMPLETO;
+                } else {
+                    postdot[item] = p == aumentada ? gramatica.getStartSymbol() : gramatica.getProductionSymbol(p, k);
+                }
+            }
+        }
+
+        construirAutomata();
+        numEstados = nucleos.size();
+
+        int[] desplazamiento = new int[numEstados + 1];
+        for (int s = 0; s < numEstados; s++) {
+            desplazamiento[s + 1] = desplazamiento[s] + nucleos.get(s).length;
+        }
+        long[][] anticipos = new long[desplazamiento[numEstados]][palabras];
+        long[][] porNoTerminal = new long[numNoTerminales][palabras];
+        propagarAnticipos(ll1, desplazamiento, anticipos, porNoTerminal);
+
+        int[] acciones = new int[numEstados * (numTerminales + 1)];
+        int[] saltos = new int[numEstados * numNoTerminales];
+        conflictos = Collections.unmodifiableList(
+                rellenarTablas(ll1, desplazamiento, anticipos, porNoTerminal, acciones, saltos));
+
+        int[][] empaquetada = empaquetar(acciones, numEstados, numTerminales + 1);
+        baseAccion = empaquetada[0];
+        valorAccion = empaquetada[1];
+        filaAccion = empaquetada[2];
+        empaquetada = empaquetar(saltos, numEstados, numNoTerminales);
+        baseIr = empaquetada[0];
+        valorIr = empaquetada[1];
+        filaIr = empaquetada[2];
+
+        // El autómata sólo hace falta para construir las tablas
+        nucleos.clear();
+        cierres.clear();
+        simbolosTransicion.clear();
+        destinosTransicion.clear();
+    }
+
+
+
+    /**
+     * @return true si ninguna celda de la tabla de acciones tiene más de una
+     *         acción.
+     */
+    boolean isLALR1() {
+        return conflictos.isEmpty();
+    }
+
+
+
+    /**
+     * @return Una línea por celda en conflicto, con el formato
+     *         "ACCION[3, a]: desplazar 5 | reducir A::=a". La columna del fin
+     *         de palabra se escribe '$'.
+     */
+    List<String> getConflicts() {
+        return conflictos;
+    }
+
+
+
+    /**
+     * @return Número de estados del autómata LR(0).
+     */
+    int getStateCount() {
+        return numEstados;
+    }
+
+
+
+    /**
+     * @return Número de ints que ocupan las dos tablas empaquetadas.
+     */
+    int getTableSize() {
+        return baseAccion.length + valorAccion.length + filaAccion.length
+               + baseIr.length + valorIr.length + filaIr.length;
+    }
+
+
+
+    /**
+     * Reconoce la palabra desplazando sus caracteres sobre una pila de
+     * estados y reduciendo cuando lo indica la tabla de acciones.
+     *
+     * @param word Palabra a reconocer.
+     *
+     * @return true si la palabra pertenece al lenguaje. Si la gramática no es
+     *         LALR(1) o carece de axioma devuelve siempre false.
+     */
+    boolean recognize(CharSequence word) {
+        if (!conAxioma || !isLALR1()) {
+            return false;
+        }
+        int[][] retenida = PILAS.get();
+        int[] pila = retenida[0];
+        int cima = 0;
+        pila[cima++] = 0;
+
+        int i = 0;
+        int columna = columna(word, i);
+        try {
+            while (columna >= 0) {
+                int accion = consultar(baseAccion, valorAccion, filaAccion, pila[cima - 1], columna);
+                if (accion == 0) {
+                    return false;
+                }
+                if (accion > 0) {
+                    if (cima == pila.length) {
+                        pila = Arrays.copyOf(pila, pila.length * 2);
+                    }
+                    pila[cima++] = accion - 1;
+                    i++;
+                    columna = columna(word, i);
+                    continue;
+                }
+                int p = -accion - 1;
+                if (p == aumentada) {
+                    return true;
+                }
+                cima -= longitud[p];
+                int destino = consultar(baseIr, valorIr, filaIr, pila[cima - 1], cabeza[p]) - 1;
+                if (destino < 0) {
+                    return false;
+                }
+                if (cima == pila.length) {
+                    pila = Arrays.copyOf(pila, pila.length * 2);
+                }
+                pila[cima++] = destino;
+            }
+            return false;
+        } finally {
+            if (pila != retenida[0] && pila.length <= MAX_PILA_RETENIDA) {
+                retenida[0] = pila;
+            }
+        }
+    }
+
+
+
+    /**
+     * @return La columna del carácter i-ésimo, T si se ha llegado al final o
+     *         -1 si el carácter no es un terminal de la gramática.
+     */
+    private int columna(CharSequence word, int i) {
+        if (i >= word.length()) {
+            return numTerminales;
+        }
+        int id = gramatica.getSymbolId(word.charAt(i));
+        return id >= numNoTerminales ? id - numNoTerminales : -1;
+    }
+
+
+
+    /**
+     * Construye los estados del autómata LR(0) a partir del de S'::=·S,
+     * identificando cada estado por su núcleo.
+     */
+    private void construirAutomata() {
+        Map<Nucleo, Integer> indice = new HashMap<>();
+        int[] inicial = {inicioItem[aumentada]};
+        indice.put(new Nucleo(inicial), 0);
+        nucleos.add(inicial);
+
+        int[] visto = new int[numNoTerminales];
+        for (int s = 0; s < nucleos.size(); s++) {
+            int[] cierre = cerrar(nucleos.get(s), visto, s + 1);
+            cierres.add(cierre);
+
+            // Ítems avanzados agrupados por el símbolo tras el punto
+            TreeMap<Integer, List<Integer>> porSimbolo = new TreeMap<>();
+            for (int item : cierre) {
+                if (postdot[item] >= 0) {
+                    porSimbolo.computeIfAbsent(postdot[item], k -> new ArrayList<>()).add(item + 1);
+                }
+            }
+            int[] simbolos = new int[porSimbolo.size()];
+            int[] destinos = new int[porSimbolo.size()];
+            int t = 0;
+            for (Map.Entry<Integer, List<Integer>> entry : porSimbolo.entrySet()) {
+                int[] nucleo = new int[entry.getValue().size()];
+                for (int k = 0; k < nucleo.length; k++) {
+                    nucleo[k] = entry.getValue().get(k);
+                }
+                Arrays.sort(nucleo);
+                Integer destino = indice.get(new Nucleo(nucleo));
+                if (destino == null) {
+                    destino = nucleos.size();
+                    indice.put(new Nucleo(nucleo), destino);
+                    nucleos.add(nucleo);
+                }
+                simbolos[t] = entry.getKey();
+                destinos[t] = destino;
+                t++;
+            }
+            simbolosTransicion.add(simbolos);
+            destinosTransicion.add(destinos);
+        }
+    }
+
+
+
+    /**
+     * @return Los ítems del núcleo seguidos de los ítems B::=·γ de cada no
+     *         terminal B que aparece tras el punto.
+     */
+    private int[] cerrar(int[] nucleo, int[] visto, int marca) {
+        int[] cierre = Arrays.copyOf(nucleo, Math.max(8, nucleo.length * 2));
+        int tamano = nucleo.length;
+        for (int x = 0; x < tamano; x++) {
+            int b = postdot[cierre[x]];
+            if (!gramatica.isNonTerminal(b) || visto[b] == marca) {
+                continue;
+            }
+            visto[b] = marca;
+            for (int p = gramatica.getProductionsStart(b); p < gramatica.getProductionsEnd(b); p++) {
+                if (tamano == cierre.length) {
+                    cierre = Arrays.copyOf(cierre, tamano * 2);
+                }
+                cierre[tamano++] = inicioItem[p];
+            }
+        }
+        return Arrays.copyOf(cierre, tamano);
+    }
+
+
+
+    /**
+     * Calcula los símbolos de anticipación de los ítems del núcleo de cada
+     * estado. Cada vez que cambian los de un estado, se vuelve a calcular su
+     * cierre y se propagan a los núcleos de los estados a los que lleva.
+     */
+    private void propagarAnticipos(LL1Recognizer ll1, int[] desplazamiento, long[][] anticipos,
+                                   long[][] porNoTerminal) {
+        if (conAxioma) {
+            anticipos[0][numTerminales >>> 6] |= 1L << numTerminales;
+        }
+        ArrayDeque<Integer> pendientes = new ArrayDeque<>();
+        boolean[] enCola = new boolean[numEstados];
+        for (int s = 0; s < numEstados; s++) {
+            pendientes.add(s);
+            enCola[s] = true;
+        }
+        while (!pendientes.isEmpty()) {
+            int s = pendientes.poll();
+            enCola[s] = false;
+            anticiposCierre(ll1, s, desplazamiento, anticipos, porNoTerminal);
+
+            int[] nucleo = nucleos.get(s);
+            int[] cierre = cierres.get(s);
+            for (int x = 0; x < cierre.length; x++) {
+                int item = cierre[x];
+                if (postdot[item] < 0) {
+                    continue;
+                }
+                int t = destinosTransicion.get(s)[Arrays.binarySearch(simbolosTransicion.get(s), postdot[item])];
+                int destino = desplazamiento[t] + Arrays.binarySearch(nucleos.get(t), item + 1);
+                long[] origen = x < nucleo.length ? anticipos[desplazamiento[s] + x] : porNoTerminal[cabeza[produccionItem[item]]];
+                if (unir(anticipos[destino], origen) && !enCola[t]) {
+                    pendientes.add(t);
+                    enCola[t] = true;
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Calcula en porNoTerminal los símbolos de anticipación de los ítems
+     * B::=·γ del cierre del estado, que son los mismos para todas las
+     * producciones de B.
+     */
+    private void anticiposCierre(LL1Recognizer ll1, int s, int[] desplazamiento, long[][] anticipos,
+                                 long[][] porNoTerminal) {
+        int[] nucleo = nucleos.get(s);
+        int[] cierre = cierres.get(s);
+        for (int item : cierre) {
+            if (gramatica.isNonTerminal(postdot[item])) {
+                Arrays.fill(porNoTerminal[postdot[item]], 0L);
+            }
+        }
+        boolean cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (int x = 0; x < cierre.length; x++) {
+                int item = cierre[x];
+                int b = postdot[item];
+                if (!gramatica.isNonTerminal(b)) {
+                    continue;
+                }
+                int p = produccionItem[item];
+                long[] destino = porNoTerminal[b];
+                long[] antes = destino.clone();
+                // Tras S en S'::=·S no hay nada: sólo hereda el fin de palabra
+                boolean restoAnulable = p == aumentada || ll1.addFirst(p, item - inicioItem[p] + 1, destino);
+                if (restoAnulable) {
+                    unir(destino, x < nucleo.length ? anticipos[desplazamiento[s] + x] : porNoTerminal[cabeza[p]]);
+                }
+                cambios |= !Arrays.equals(antes, destino);
+            }
+        }
+    }
+
+
+
+    /**
+     * Rellena las tablas densas de acciones y saltos con los desplazamientos,
+     * los saltos y las reducciones de cada estado.
+     *
+     * @return La descripción de las celdas de acciones en conflicto.
+     */
+    private List<String> rellenarTablas(LL1Recognizer ll1, int[] desplazamiento, long[][] anticipos,
+                                        long[][] porNoTerminal, int[] acciones, int[] saltos) {
+        int anchura = numTerminales + 1;
+        Map<Integer, Set<Integer>> enConflicto = new TreeMap<>();
+        for (int s = 0; s < numEstados; s++) {
+            int[] simbolos = simbolosTransicion.get(s);
+            int[] destinos = destinosTransicion.get(s);
+            for (int t = 0; t < simbolos.length; t++) {
+                if (gramatica.isNonTerminal(simbolos[t])) {
+                    saltos[s * numNoTerminales + simbolos[t]] = destinos[t] + 1;
+                } else {
+                    acciones[s * anchura + simbolos[t] - numNoTerminales] = destinos[t] + 1;
+                }
+            }
+
+            anticiposCierre(ll1, s, desplazamiento, anticipos, porNoTerminal);
+            int[] nucleo = nucleos.get(s);
+            int[] cierre = cierres.get(s);
+            for (int x = 0; x < cierre.length; x++) {
+                int item = cierre[x];
+                int p = produccionItem[item];
+                if (postdot[item] != COMPLETO || (p == aumentada && !conAxioma)) {
+                    continue;
+                }
+                long[] anticipo = x < nucleo.length ? anticipos[desplazamiento[s] + x] : porNoTerminal[cabeza[p]];
+                for (int columna = 0; columna < anchura; columna++) {
+                    if ((anticipo[columna >>> 6] & (1L << columna)) == 0) {
+                        continue;
+                    }
+                    int celda = s * anchura + columna;
+                    int reducir = -(p + 1);
+                    if (acciones[celda] == 0) {
+                        acciones[celda] = reducir;
+                    } else if (acciones[celda] != reducir) {
+                        Set<Integer> posibles = enConflicto.computeIfAbsent(celda, k -> new LinkedHashSet<>());
+                        posibles.add(acciones[celda]);
+                        posibles.add(reducir);
+                    }
+                }
+            }
+        }
+
+        List<String> resultado = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> entry : enConflicto.entrySet()) {
+            int columna = entry.getKey() % anchura;
+            StringBuilder linea = new StringBuilder();
+            linea.append("ACCION[").append(entry.getKey() / anchura).append(", ")
+                 .append(columna == numTerminales ? LL1Recognizer.FIN : gramatica.getSymbol(numNoTerminales + columna))
+                 .append("]: ");
+            String separador = "";
+            for (int accion : entry.getValue()) {
+                linea.append(separador);
+                if (accion > 0) {
+                    linea.append("desplazar ").append(accion - 1);
+                } else if (-accion - 1 == aumentada) {
+                    linea.append("aceptar");
+                } else {
+                    linea.append("reducir ").append(gramatica.productionToString(-accion - 1));
+                }
+                separador = " | ";
+            }
+            resultado.add(linea.toString());
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * Empaqueta una tabla densa por desplazamiento de filas. Las filas se
+     * colocan de la más llena a la más vacía, cada una en la primera base en
+     * la que no pisa ninguna casilla ocupada.
+     *
+     * @return {base de cada fila, valores, fila dueña de cada posición}.
+     */
+    private static int[][] empaquetar(int[] densa, int filas, int columnas) {
+        Integer[] orden = new Integer[filas];
+        int[] ocupadas = new int[filas];
+        for (int f = 0; f < filas; f++) {
+            orden[f] = f;
+            for (int c = 0; c < columnas; c++) {
+                if (densa[f * columnas + c] != 0) {
+                    ocupadas[f]++;
+                }
+            }
+        }
+        Arrays.sort(orden, (a, b) -> ocupadas[b] - ocupadas[a]);
+
+        int[] base = new int[filas];
+        int[] valor = new int[Math.max(16, columnas)];
+        int[] fila = new int[valor.length];
+        Arrays.fill(fila, -1);
+        int tamano = 0;
+        int primeraLibre = 0;
+        int[] usadas = new int[columnas];
+        for (int f : orden) {
+            int n = 0;
+            for (int c = 0; c < columnas; c++) {
+                if (densa[f * columnas + c] != 0) {
+                    usadas[n++] = c;
+                }
+            }
+            if (n == 0) {
+                continue;
+            }
+            int b = Math.max(0, primeraLibre - usadas[0]);
+            while (!cabe(fila, b, usadas, n)) {
+                b++;
+            }
+            base[f] = b;
+            int fin = b + usadas[n - 1] + 1;
+            if (fin > valor.length) {
+                int nuevo = Math.max(fin, valor.length * 2);
+                valor = Arrays.copyOf(valor, nuevo);
+                int antes = fila.length;
+                fila = Arrays.copyOf(fila, nuevo);
+                Arrays.fill(fila, antes, nuevo, -1);
+            }
+            for (int k = 0; k < n; k++) {
+                valor[b + usadas[k]] = densa[f * columnas + usadas[k]];
+                fila[b + usadas[k]] = f;
+            }
+            tamano = Math.max(tamano, fin);
+            while (primeraLibre < fila.length && fila[primeraLibre] >= 0) {
+                primeraLibre++;
+            }
+        }
+        return new int[][]{base, Arrays.copyOf(valor, tamano), Arrays.copyOf(fila, tamano)};
+    }
+
+
+
+    private static boolean cabe(int[] fila, int base, int[] usadas, int n) {
+        for (int k = 0; k < n; k++) {
+            int i = base + usadas[k];
+            if (i < fila.length && fila[i] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    /**
+     * @return El valor de la casilla, o 0 si no pertenece a la fila (error).
+     */
+    private static int consultar(int[] base, int[] valor, int[] fila, int estado, int columna) {
+        int i = base[estado] + columna;
+        return i < fila.length && fila[i] == estado ? valor[i] : 0;
+    }
+
+
+
+    private static boolean unir(long[] destino, long[] origen) {
+        boolean cambios = false;
+        for (int w = 0; w < destino.length; w++) {
+            long union = destino[w] | origen[w];
+            if (union != destino[w]) {
+                destino[w] = union;
+                cambios = true;
+            }
+        }
+        return cambios;
+    }
+
+
+
+    /**
+     * Núcleo de un estado (sus ítems ordenados), usado como clave.
+     */
+    private static final class Nucleo {
+
+        private final int[] items;
+        private final int hash;
+
+
+
+        Nucleo(int[] items) {
+            this.items = items;
+            this.hash = Arrays.hashCode(items);
+        }
+
+
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Nucleo && Arrays.equals(items, ((Nucleo) o).items);
+        }
+
+
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+
+/**
+ * Análisis LL(1) de una gramática compilada: conjuntos PRIMERO y SIGUIENTE,
+ * tabla de análisis predictivo y reconocedor descendente con pila explícita.
+ *
+ * Los conjuntos se guardan como bits sobre el índice del terminal (0..T-1);
+ * el bit T representa el fin de la palabra. La tabla tiene una fila por no
+ * terminal y una columna por terminal más la del fin, y cada celda guarda la
+ * producción a aplicar o -1. Si a una celda le corresponde más de una
+ * producción la gramática no es LL(1): se anotan todas como conflicto y el
+ * reconocedor no se puede usar.
+ *
+ * Con una gramática LL(1) cada carácter de la palabra decide qué producción
+ * aplicar, de modo que el reconocimiento es lineal en la longitud de la
+ * palabra y no necesita la gramática en FNC.
+ */
+final class LL1Recognizer {
+
+    // Carácter con el que se escribe la columna del fin de palabra
+    static final char FIN = '$';
+
+    // Carácter con el que se escribe la producción lambda
+    private static final char LAMBDA = 'l';
+
+    private final CompiledGrammar gramatica;
+    private final int numNoTerminales;
+    private final int numTerminales;
+    private final int palabras;
+
+    // no terminal -> PRIMERO, sin lambda (se consulta con isNullable)
+    private final long[][] primeros;
+    // no terminal -> SIGUIENTE, incluido el bit del fin de palabra
+    private final long[][] siguientes;
+
+    // A * (T + 1) + columna -> producción, o -1 si no hay ninguna
+    private final int[] tabla;
+    // producción -> símbolos de la parte derecha en orden inverso
+    private final int[][] invertidos;
+
+    private final List<String> conflictos;
+
+
+
+    /**
+     * Calcula los conjuntos, la tabla y sus conflictos para la gramática
+     * compilada indicada.
+     *
+     * @param gramatica Gramática compilada.
+     */
+    LL1Recognizer(CompiledGrammar gramatica) {
+        this.gramatica = gramatica;
+        numNoTerminales = gramatica.getNonTerminalCount();
+        numTerminales = gramatica.getTerminalCount();
+        palabras = (numTerminales + 1 + 63) >>> 6;
+
+        primeros = new long[numNoTerminales][palabras];
+        siguientes = new long[numNoTerminales][palabras];
+        calcularPrimeros();
+        calcularSiguientes();
+
+        invertidos = new int[gramatica.getProductionCount()][];
+        for (int p = 0; p < invertidos.length; p++) {
+            int longitud = gramatica.getProductionLength(p);
+            invertidos[p] = new int[longitud];
+            for (int k = 0; k < longitud; k++) {
+                invertidos[p][longitud - 1 - k] = gramatica.getProductionSymbol(p, k);
+            }
+        }
+
+        tabla = new int[numNoTerminales * (numTerminales + 1)];
+        Arrays.fill(tabla, -1);
+        conflictos = Collections.unmodifiableList(rellenarTabla());
+    }
+
+
+
+    /**
+     * @return true si ninguna celda de la tabla tiene más de una producción.
+     */
+    boolean isLL1() {
+        return conflictos.isEmpty();
+    }
+
+
+
+    /**
+     * @return Una línea por celda en conflicto, con el formato
+     *         "M[A, a]: A::=aB | A::=ab". La columna del fin de palabra se
+     *         escribe '$'.
+     */
+    List<String> getConflicts() {
+        return conflictos;
+    }
+
+
+
+    /**
+     * @return PRIMERO del no terminal; incluye 'l' si es anulable.
+     */
+    Set<Character> getFirst(int nonterminal) {
+        Set<Character> resultado = aCaracteres(primeros[nonterminal]);
+        if (gramatica.isNullable(nonterminal)) {
+            resultado.add(LAMBDA);
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * @return SIGUIENTE del no terminal; incluye '$' si puede aparecer al
+     *         final de una forma sentencial.
+     */
+    Set<Character> getFollow(int nonterminal) {
+        return aCaracteres(siguientes[nonterminal]);
+    }
+
+
+
+    /**
+     * Añade a destino PRIMERO del sufijo de la parte derecha de la producción
+     * que empieza en la posición from, sin lambda.
+     *
+     * @return true si el sufijo es anulable.
+     */
+    boolean addFirst(int production, int from, long[] target) {
+        for (int k = from; k < gramatica.getProductionLength(production); k++) {
+            int s = gramatica.getProductionSymbol(production, k);
+            if (s < 0) {
+                return false;
+            }
+            if (!gramatica.isNonTerminal(s)) {
+                marcar(target, s - numNoTerminales);
+                return false;
+            }
+            unir(target, primeros[s]);
+            if (!gramatica.isNullable(s)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    /**
+     * Reconoce la palabra con la tabla predictiva. La pila guarda los
+     * símbolos pendientes de derivar, con el siguiente en la cima.
+     *
+     * @param word Palabra a reconocer.
+     *
+     * @return true si la palabra pertenece al lenguaje. Si la gramática no es
+     *         LL(1) o carece de axioma devuelve siempre false.
+     */
+    boolean recognize(CharSequence word) {
+        int axioma = gramatica.getStartSymbol();
+        if (axioma < 0 || !isLL1()) {
+            return false;
+        }
+        int n = word.length();
+        int[] pila = new int[16];
+        int cima = 0;
+        pila[cima++] = axioma;
+
+        int i = 0;
+        int columna = columna(word, i);
+        while (cima > 0) {
+            int simbolo = pila[--cima];
+            if (gramatica.isNonTerminal(simbolo)) {
+                if (columna < 0) {
+                    return false;
+                }
+                int p = tabla[simbolo * (numTerminales + 1) + columna];
+                if (p < 0) {
+                    return false;
+                }
+                int[] cuerpo = invertidos[p];
+                if (cima + cuerpo.length > pila.length) {
+                    pila = Arrays.copyOf(pila, Math.max(pila.length * 2, cima + cuerpo.length));
+                }
+                System.arraycopy(cuerpo, 0, pila, cima, cuerpo.length);
+                cima += cuerpo.length;
+            } else {
+                // Terminal (o símbolo ajeno a la gramática, que nunca casa)
+                if (simbolo < 0 || columna < 0 || simbolo - numNoTerminales != columna) {
+                    return false;
+                }
+                i++;
+                columna = columna(word, i);
+            }
+        }
+        return i == n;
+    }
+
+
+
+    /**
+     * @return La columna del carácter i-ésimo, T si se ha llegado al final o
+     *         -1 si el carácter no es un terminal de la gramática.
+     */
+    private int columna(CharSequence word, int i) {
+        if (i >= word.length()) {
+            return numTerminales;
+        }
+        int id = gramatica.getSymbolId(word.charAt(i));
+        return id >= numNoTerminales ? id - numNoTerminales : -1;
+    }
+
+
+
+    /**
+     * Calcula PRIMERO de cada no terminal iterando sobre las producciones
+     * hasta que ningún conjunto cambia.
+     */
+    private void calcularPrimeros() {
+        boolean cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (int p = 0; p < gramatica.getProductionCount(); p++) {
+                cambios |= primerosCuerpo(p, primeros[gramatica.getProductionHead(p)]);
+            }
+        }
+    }
+
+
+
+    /**
+     * Añade a destino PRIMERO de la parte derecha de la producción, sin
+     * lambda.
+     *
+     * @return true si destino ha cambiado.
+     */
+    private boolean primerosCuerpo(int p, long[] destino) {
+        boolean cambios = false;
+        for (int k = 0; k < gramatica.getProductionLength(p); k++) {
+            int s = gramatica.getProductionSymbol(p, k);
+            if (s < 0) {
+                break;
+            }
+            if (!gramatica.isNonTerminal(s)) {
+                cambios |= marcar(destino, s - numNoTerminales);
+                break;
+            }
+            cambios |= unir(destino, primeros[s]);
+            if (!gramatica.isNullable(s)) {
+                break;
+            }
+        }
+        return cambios;
+    }
+
+
+
+    /**
+     * Calcula SIGUIENTE de cada no terminal. Cada producción se recorre de
+     * derecha a izquierda llevando PRIMERO del sufijo ya visto y si es
+     * anulable, de modo que cada pasada es lineal en el tamaño de la
+     * gramática.
+     */
+    private void calcularSiguientes() {
+        int axioma = gramatica.getStartSymbol();
+        if (axioma >= 0) {
+            marcar(siguientes[axioma], numTerminales);
+        }
+        long[] sufijo = new long[palabras];
+        boolean cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (int p = 0; p < gramatica.getProductionCount(); p++) {
+                int a = gramatica.getProductionHead(p);
+                Arrays.fill(sufijo, 0L);
+                boolean sufijoAnulable = true;
+                for (int k = gramatica.getProductionLength(p) - 1; k >= 0; k--) {
+                    int s = gramatica.getProductionSymbol(p, k);
+                    if (!gramatica.isNonTerminal(s)) {
+                        Arrays.fill(sufijo, 0L);
+                        if (s >= 0) {
+                            marcar(sufijo, s - numNoTerminales);
+                        }
+                        sufijoAnulable = false;
+                        continue;
+                    }
+                    cambios |= unir(siguientes[s], sufijo);
+                    if (sufijoAnulable) {
+                        cambios |= unir(siguientes[s], siguientes[a]);
+                    }
+                    if (gramatica.isNullable(s)) {
+                        unir(sufijo, primeros[s]);
+                    } else {
+                        System.arraycopy(primeros[s], 0, sufijo, 0, palabras);
+                        sufijoAnulable = false;
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Coloca cada producción A::=α en las columnas de PRIMERO(α) y, si α es
+     * anulable, también en las de SIGUIENTE(A).
+     *
+     * @return La descripción de las celdas en conflicto.
+     */
+    private List<String> rellenarTabla() {
+        int anchura = numTerminales + 1;
+        Map<Integer, Set<Integer>> enConflicto = new TreeMap<>();
+        long[] prediccion = new long[palabras];
+        for (int p = 0; p < gramatica.getProductionCount(); p++) {
+            int a = gramatica.getProductionHead(p);
+            Arrays.fill(prediccion, 0L);
+            if (addFirst(p, 0, prediccion)) {
+                unir(prediccion, siguientes[a]);
+            }
+            for (int columna = 0; columna < anchura; columna++) {
+                if ((prediccion[columna >>> 6] & (1L << columna)) == 0) {
+                    continue;
+                }
+                int celda = a * anchura + columna;
+                if (tabla[celda] < 0) {
+                    tabla[celda] = p;
+                } else {
+                    Set<Integer> prods = enConflicto.computeIfAbsent(celda, k -> new LinkedHashSet<>());
+                    prods.add(tabla[celda]);
+                    prods.add(p);
+                }
+            }
+        }
+
+        List<String> resultado = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> entry : enConflicto.entrySet()) {
+            int a = entry.getKey() / anchura;
+            int columna = entry.getKey() % anchura;
+            StringBuilder linea = new StringBuilder();
+            linea.append("M[").append(gramatica.getSymbol(a)).append(", ")
+                 .append(columna == numTerminales ? FIN : gramatica.getSymbol(numNoTerminales + columna))
+                 .append("]: ");
+            String separador = "";
+            for (int p : entry.getValue()) {
+                linea.append(separador).append(gramatica.productionToString(p));
+                separador = " | ";
+            }
+            resultado.add(linea.toString());
+        }
+        return resultado;
+    }
+
+
+
+    private Set<Character> aCaracteres(long[] bits) {
+        Set<Character> resultado = new LinkedHashSet<>();
+        for (int columna = 0; columna <= numTerminales; columna++) {
+            if ((bits[columna >>> 6] & (1L << columna)) != 0) {
+                resultado.add(columna == numTerminales ? FIN : gramatica.getSymbol(numNoTerminales + columna));
+            }
+        }
+        return resultado;
+    }
+
+
+
+    private static boolean marcar(long[] bits, int id) {
+        long antes = bits[id >>> 6];
+        bits[id >>> 6] = antes | (1L << id);
+        return bits[id >>> 6] != antes;
+    }
+
+
+
+    private static boolean unir(long[] destino, long[] origen) {
+        boolean cambios = false;
+        for (int w = 0; w < destino.length; w++) {
+            long union = destino[w] | origen[w];
+            if (union != destino[w]) {
+                destino[w] = union;
+                cambios = true;
+            }
+        }
+        return cambios;
+    }
+}
@@ -0,0 +1,161 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Tabla hash de direccionamiento abierto con claves long y valores int, sin
+ * objetos intermedios. La usan los reconocedores para indexar pares (símbolo,
+ * posición) empaquetados en un long sin pagar el boxing de HashMap.
+ *
+ * Las claves deben ser distintas de Long.MIN_VALUE, que marca las casillas
+ * libres.
+ */
+final class LongIntHashMap {
+
+    private static final long LIBRE = Long.MIN_VALUE;
+
+    private long[] claves;
+    private int[] valores;
+    private int mascara;
+    private int tamano;
+
+
+
+    /**
+     * @param capacidad Número de elementos que se espera guardar.
+     */
+    LongIntHashMap(int capacidad) {
+        int casillas = Integer.highestOneBit(Math.max(8, capacidad * 2 - 1)) << 1;
+        claves = new long[casillas];
+        valores = new int[casillas];
+        Arrays.fill(claves, LIBRE);
+        mascara = casillas - 1;
+    }
+
+
+
+    /**
+     * @return El valor asociado a la clave o valorPorDefecto si no está.
+     */
+    int get(long clave, int valorPorDefecto) {
+        int pos = mezclar(clave) & mascara;
+        while (true) {
+            long k = claves[pos];
+            if (k == clave) {
+                return valores[pos];
+            }
+            if (k == LIBRE) {
+                return valorPorDefecto;
+            }
+            pos = (pos + 1) & mascara;
+        }
+    }
+
+
+
+    /**
+     * Asocia el valor a la clave, sustituyendo el anterior si lo había.
+     */
+    void put(long clave, int valor) {
+        int pos = mezclar(clave) & mascara;
+        while (true) {
+            long k = claves[pos];
+            if (k == clave) {
+                valores[pos] = valor;
+                return;
+            }
+            if (k == LIBRE) {
+                claves[pos] = clave;
+                valores[pos] = valor;
+                if (++tamano * 2 > claves.length) {
+                    crecer();
+                }
+                return;
+            }
+            pos = (pos + 1) & mascara;
+        }
+    }
+
+
+
+    /**
+     * Asocia el valor a la clave sólo si la clave no estaba.
+     *
+     * @return El valor que ya estaba asociado o valorPorDefecto si la clave
+     *         se ha insertado ahora.
+     */
+    int putIfAbsent(long clave, int valor, int valorPorDefecto) {
+        int pos = mezclar(clave) & mascara;
+        while (true) {
+            long k = claves[pos];
+            if (k == clave) {
+                return valores[pos];
+            }
+            if (k == LIBRE) {
+                claves[pos] = clave;
+                valores[pos] = valor;
+                if (++tamano * 2 > claves.length) {
+                    crecer();
+                }
+                return valorPorDefecto;
+            }
+            pos = (pos + 1) & mascara;
+        }
+    }
+
+
+
+    /**
+     * @return Número de claves guardadas.
+     */
+    int size() {
+        return tamano;
+    }
+
+
+
+    /**
+     * Vacía la tabla conservando su capacidad.
+     */
+    void clear() {
+        if (tamano > 0) {
+            Arrays.fill(claves, LIBRE);
+            tamano = 0;
+        }
+    }
+
+
+
+    private void crecer() {
+        long[] viejasClaves = claves;
+        int[] viejosValores = valores;
+        claves = new long[viejasClaves.length << 1];
+        valores = new int[viejasClaves.length << 1];
+        Arrays.fill(claves, LIBRE);
+        mascara = claves.length - 1;
+        for (int i = 0; i < viejasClaves.length; i++) {
+            long k = viejasClaves[i];
+            if (k != LIBRE) {
+                int pos = mezclar(k) & mascara;
+                while (claves[pos] != LIBRE) {
+                    pos = (pos + 1) & mascara;
+                }
+                claves[pos] = k;
+                valores[pos] = viejosValores[i];
+            }
+        }
+    }
+
+
+
+    private static int mezclar(long clave) {
+        // Finalizador de MurmurHash3: reparte también los bits altos de la clave
+        long h = clave ^ (clave >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33));
+    }
+}
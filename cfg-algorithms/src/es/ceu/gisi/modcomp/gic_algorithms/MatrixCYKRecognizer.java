@@ -0,0 +1,394 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+
+/**
+ * Variante del algoritmo CYK sobre una gramática en FNC que trata la tabla
+ * como un producto de matrices booleanas, en la línea del algoritmo de
+ * Valiant.
+ *
+ * Para cada no terminal B se guarda la matriz de bits FILA_B, con el bit j
+ * de la fila i activo si B deriva la subcadena [i, j), y para cada C la
+ * matriz COLUMNA_C, con el bit i de la fila j activo si C deriva [i, j).
+ * Así, A::=BC deriva [i, j) si la fila i de FILA_B y la fila j de
+ * COLUMNA_C comparten algún bit: cada regla prueba 64 puntos de corte con
+ * un solo AND de dos longs, sea cual sea la densidad de las celdas.
+ *
+ * Las posiciones se agrupan en bloques de 64, que coinciden con las palabras
+ * de las matrices, y la tabla se recorre por bloques (I, J). Los cortes que
+ * caen en los bloques intermedios dependen sólo de bloques ya calculados, y
+ * forman el producto de las submatrices FILA_B[I, K] por COLUMNA_C[K, J]:
+ * se calculan primero, regla a regla, con las filas y columnas del bloque en
+ * caché. Los cortes que caen en los bloques I y J se resuelven después celda
+ * a celda. Los bloques de una misma diagonal son independientes, así que en
+ * modo paralelo cada diagonal se reparte en un ForkJoinPool.
+ *
+ * No es el algoritmo subcúbico de Valiant: el coste sigue siendo
+ * O(|R|·n³/64) operaciones sobre longs, y las matrices ocupan
+ * O(|N|·n²/64) longs, que es lo que limita la longitud de palabra: las
+ * palabras cuyas matrices no caben en el heap se rechazan antes de
+ * reservarlas.
+ */
+final class MatrixCYKRecognizer {
+
+    // Posiciones por bloque: una palabra de 64 bits
+    private static final int BLOQUE = 64;
+
+    // Celdas del bloque en curso, una por hilo: cada bloque las vacía y las
+    // reutiliza en lugar de reservar BLOQUE²·palabrasCelda longs nuevos
+    private static final ThreadLocal<long[]> CELDAS = new ThreadLocal<>();
+
+    private final CompiledGrammar gramatica;
+    private final int numNoTerminales;
+    private final int palabrasCelda;
+    private final int axioma;
+
+    // Reglas A::=BC, agrupadas por cabeza
+    private final int[] cabeza;
+    private final int[] izquierdo;
+    private final int[] derecho;
+
+    // Si cada no terminal necesita matriz de filas / de columnas
+    private final boolean[] conFilas;
+    private final boolean[] conColumnas;
+
+
+
+    /**
+     * Prepara el algoritmo sobre la gramática compilada, que debe estar en
+     * FNC.
+     *
+     * @param gramatica Gramática compilada en FNC.
+     */
+    MatrixCYKRecognizer(CompiledGrammar gramatica) {
+        if (!gramatica.isCNF()) {
+            throw new IllegalArgumentException("La gramática no está en Forma Normal de Chomsky.");
+        }
+        this.gramatica = gramatica;
+        numNoTerminales = gramatica.getNonTerminalCount();
+        palabrasCelda = gramatica.getWords();
+        axioma = gramatica.getStartSymbol();
+
+        int numReglas = 0;
+        for (int p = 0; p < gramatica.getProductionCount(); p++) {
+            if (gramatica.getProductionLength(p) == 2) {
+                numReglas++;
+            }
+        }
+        cabeza = new int[numReglas];
+        izquierdo = new int[numReglas];
+        derecho = new int[numReglas];
+        conFilas = new boolean[numNoTerminales];
+        conColumnas = new boolean[numNoTerminales];
+        int r = 0;
+        for (int p = 0; p < gramatica.getProductionCount(); p++) {
+            if (gramatica.getProductionLength(p) == 2) {
+                cabeza[r] = gramatica.getProductionHead(p);
+                izquierdo[r] = gramatica.getProductionSymbol(p, 0);
+                derecho[r] = gramatica.getProductionSymbol(p, 1);
+                conFilas[izquierdo[r]] = true;
+                conColumnas[derecho[r]] = true;
+                r++;
+            }
+        }
+        if (axioma >= 0) {
+            conFilas[axioma] = true;
+        }
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje de la gramática compilada.
+     *
+     * @param word   Palabra formada sólo por terminales de la gramática.
+     * @param umbral Longitud mínima de palabra a partir de la cual se reparten
+     *               los bloques entre hilos. Un valor menor o igual que 0
+     *               desactiva el modo paralelo.
+     *
+     * @return true si el axioma deriva la palabra.
+     *
+     * @throws IllegalArgumentException Si las matrices de la palabra no caben
+     *                                  (véase {@link #cabe(int)}).
+     */
+    boolean recognize(CharSequence word, int umbral) {
+        int n = word.length();
+        if (n == 0) {
+            return gramatica.acceptsEmptyWord();
+        }
+        if (axioma < 0) {
+            return false;
+        }
+        if (!cabe(n)) {
+            throw new IllegalArgumentException("La palabra es demasiado larga para el CYK matricial: " + n + " caracteres necesitan " + memoria(n) + " longs.");
+        }
+        Matrices m = new Matrices(word);
+        int bloquesI = (n - 1) / BLOQUE + 1;
+        int bloquesJ = n / BLOQUE + 1;
+        ForkJoinPool pool = umbral > 0 && n >= umbral ? ForkJoinPool.commonPool() : null;
+        for (int d = 0; d < bloquesJ; d++) {
+            int hasta = Math.min(bloquesI, bloquesJ - d);
+            if (pool != null) {
+                pool.invoke(new Diagonal(m, d, 0, hasta));
+            } else {
+                for (int bi = 0; bi < hasta; bi++) {
+                    m.calcularBloque(bi, bi + d);
+                }
+            }
+        }
+        return m.deriva(axioma, 0, n);
+    }
+
+
+
+    /**
+     * @return true si las matrices de una palabra de longitud n caben cada
+     *         una en un array y, entre todas, en el tamaño máximo del heap.
+     */
+    boolean cabe(int n) {
+        long ancho = n / BLOQUE + 1;
+        if ((n + 1L) * ancho > CYKRecognizer.MAX_TABLA) {
+            return false;
+        }
+        return memoria(n) <= Runtime.getRuntime().maxMemory() / Long.BYTES;
+    }
+
+
+
+    /**
+     * @return Número total de longs de las matrices de una palabra de
+     *         longitud n.
+     */
+    long memoria(int n) {
+        long ancho = n / BLOQUE + 1;
+        long total = 0;
+        for (int a = 0; a < numNoTerminales; a++) {
+            if (conFilas[a]) {
+                total += n * ancho;
+            }
+            if (conColumnas[a]) {
+                total += (n + 1L) * ancho;
+            }
+        }
+        return total;
+    }
+
+
+
+    /**
+     * Matrices de bits de una palabra. Los bloques de una misma diagonal
+     * escriben en palabras distintas de las matrices, así que se pueden
+     * calcular a la vez sin sincronización.
+     */
+    private final class Matrices {
+
+        private final CharSequence palabra;
+        private final int n;
+        // Longs por fila de las matrices: posiciones 0..n
+        private final int ancho;
+
+        // A -> FILA_A (n filas) y COLUMNA_A (n + 1 filas), o null si no se usan
+        private final long[][] filas;
+        private final long[][] columnas;
+
+
+
+        Matrices(CharSequence palabra) {
+            this.palabra = palabra;
+            n = palabra.length();
+            ancho = n / BLOQUE + 1;
+            filas = new long[numNoTerminales][];
+            columnas = new long[numNoTerminales][];
+            for (int a = 0; a < numNoTerminales; a++) {
+                if (conFilas[a]) {
+                    filas[a] = new long[n * ancho];
+                }
+                if (conColumnas[a]) {
+                    columnas[a] = new long[(n + 1) * ancho];
+                }
+            }
+        }
+
+
+
+        boolean deriva(int a, int i, int j) {
+            return (filas[a][i * ancho + (j >>> 6)] & (1L << j)) != 0;
+        }
+
+
+
+        /**
+         * Calcula las celdas [i, j) con i en el bloque bi y j en el bloque
+         * bj, que deben ser las únicas que faltan de las diagonales de
+         * bloques anteriores a la suya.
+         */
+        void calcularBloque(int bi, int bj) {
+            int desdeI = bi * BLOQUE;
+            int hastaI = Math.min(desdeI + BLOQUE, n);
+            int desdeJ = bj * BLOQUE;
+            int hastaJ = Math.min(desdeJ + BLOQUE, n + 1);
+            // Celda (i, j) en (i - desdeI) * BLOQUE + (j - desdeJ)
+            long[] celdas = celdasBloque();
+
+            // Cortes en los bloques intermedios: producto de submatrices ya
+            // calculadas
+            if (bj - bi >= 2) {
+                for (int r = 0; r < cabeza.length; r++) {
+                    long[] fb = filas[izquierdo[r]];
+                    long[] cc = columnas[derecho[r]];
+                    int a = cabeza[r];
+                    for (int i = desdeI; i < hastaI; i++) {
+                        int fila = i * ancho;
+                        if (vacia(fb, fila + bi + 1, fila + bj)) {
+                            continue;
+                        }
+                        int base = (i - desdeI) * BLOQUE - desdeJ;
+                        for (int j = desdeJ; j < hastaJ; j++) {
+                            int celda = (base + j) * palabrasCelda;
+                            if (CYKRecognizer.estaActivo(celdas, celda, a)) {
+                                continue;
+                            }
+                            int columna = j * ancho;
+                            if (BitKernel.intersects(fb, fila + bi + 1, cc, columna + bi + 1, bj - bi - 1)) {
+                                celdas[celda + (a >>> 6)] |= 1L << a;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Cortes en los bloques bi y bj: dependen de celdas de este mismo
+            // bloque, así que se recorren de la subcadena más corta a la más
+            // larga y se publica cada celda en cuanto se termina
+            for (int i = hastaI - 1; i >= desdeI; i--) {
+                int fila = i * ancho;
+                int base = (i - desdeI) * BLOQUE - desdeJ;
+                for (int j = Math.max(desdeJ, i + 1); j < hastaJ; j++) {
+                    int celda = (base + j) * palabrasCelda;
+                    if (j == i + 1) {
+                        long[] as = terminal(palabra.charAt(i));
+                        if (as != null) {
+                            System.arraycopy(as, 0, celdas, celda, palabrasCelda);
+                        }
+                    }
+                    int columna = j * ancho;
+                    for (int r = 0; r < cabeza.length; r++) {
+                        int a = cabeza[r];
+                        if (CYKRecognizer.estaActivo(celdas, celda, a)) {
+                            continue;
+                        }
+                        long[] fb = filas[izquierdo[r]];
+                        long[] cc = columnas[derecho[r]];
+                        if ((fb[fila + bi] & cc[columna + bi]) != 0
+                            || (fb[fila + bj] & cc[columna + bj]) != 0) {
+                            celdas[celda + (a >>> 6)] |= 1L << a;
+                        }
+                    }
+                    publicar(celdas, celda, i, j);
+                }
+            }
+        }
+
+
+
+        /**
+         * Copia los no terminales de la celda (i, j) en las matrices.
+         */
+        private void publicar(long[] celdas, int celda, int i, int j) {
+            for (int w = 0; w < palabrasCelda; w++) {
+                long as = celdas[celda + w];
+                while (as != 0) {
+                    int a = (w << 6) + Long.numberOfTrailingZeros(as);
+                    as &= as - 1;
+                    if (filas[a] != null) {
+                        filas[a][i * ancho + (j >>> 6)] |= 1L << j;
+                    }
+                    if (columnas[a] != null) {
+                        columnas[a][j * ancho + (i >>> 6)] |= 1L << i;
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * @return Las celdas de bloque del hilo, vacías. Un bloque no se
+     *         interrumpe para calcular otro, así que no se usan dos veces a
+     *         la vez en el mismo hilo.
+     */
+    private long[] celdasBloque() {
+        int tamano = BLOQUE * BLOQUE * palabrasCelda;
+        long[] celdas = CELDAS.get();
+        if (celdas == null || celdas.length < tamano) {
+            celdas = new long[tamano];
+            CELDAS.set(celdas);
+        } else {
+            Arrays.fill(celdas, 0, tamano, 0L);
+        }
+        return celdas;
+    }
+
+
+
+    /**
+     * @return Los no terminales A tales que A::=t, o null si no hay ninguno.
+     */
+    private long[] terminal(char t) {
+        return t < gramatica.porTerminal.length ? gramatica.porTerminal[t] : null;
+    }
+
+
+
+    private static boolean vacia(long[] bits, int desde, int hasta) {
+        for (int w = desde; w < hasta; w++) {
+            if (bits[w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    /**
+     * Tarea que calcula los bloques (bi, bi + d) para bi en [desde, hasta),
+     * dividiéndose mientras quede más de un bloque.
+     */
+    private final class Diagonal extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Matrices matrices;
+        private final int d;
+        private final int desde;
+        private final int hasta;
+
+
+
+        Diagonal(Matrices matrices, int d, int desde, int hasta) {
+            this.matrices = matrices;
+            this.d = d;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                matrices.calcularBloque(desde, desde + d);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Diagonal(matrices, d, desde, medio),
+                      new Diagonal(matrices, d, medio, hasta));
+        }
+    }
+}
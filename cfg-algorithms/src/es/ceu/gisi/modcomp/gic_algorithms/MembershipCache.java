@@ -0,0 +1,182 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+
+
+/**
+ * Caché acotada de resultados de pertenencia (palabra -> pertenece o no),
+ * con política de expulsión CLOCK, una aproximación de LRU.
+ *
+ * Las consultas no toman ningún cerrojo: buscan en un ConcurrentHashMap y,
+ * si aciertan, marcan la entrada como usada. Sólo las inserciones, que
+ * siguen a un fallo y por tanto a un reconocimiento completo, se ordenan
+ * entre sí para mover la manecilla del reloj: al llenarse, la manecilla
+ * recorre las entradas quitando la marca a las usadas y expulsa la primera
+ * que no lo estaba. Los contadores de aciertos y fallos son LongAdder.
+ *
+ * Cada resultado se guarda junto con la época de la gramática con la que se
+ * calculó. En cuanto se consulta o se guarda algo con una época posterior, la
+ * caché se sustituye por una vacía: así ningún resultado sobrevive a una
+ * modificación de la gramática, y un resultado calculado con una época
+ * anterior a la actual nunca llega a guardarse.
+ */
+final class MembershipCache {
+
+    private final int capacidad;
+    private final AtomicReference<Generacion> actual;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+
+
+    /**
+     * @param capacidad Número máximo de palabras guardadas (mayor que 0).
+     */
+    MembershipCache(int capacidad) {
+        this.capacidad = capacidad;
+        this.actual = new AtomicReference<>(new Generacion(0));
+    }
+
+
+
+    /**
+     * Busca el resultado de una palabra para la época indicada.
+     *
+     * @return El resultado guardado, o null si no está o la época es
+     *         anterior a la de la caché (se cuenta como fallo).
+     */
+    Boolean get(String word, long epocaActual) {
+        Generacion generacion = sincronizar(epocaActual);
+        Entrada entrada = generacion != null ? generacion.resultados.get(word) : null;
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        if (!entrada.usada) {
+            entrada.usada = true;
+        }
+        aciertos.increment();
+        return entrada.pertenece;
+    }
+
+
+
+    /**
+     * Guarda el resultado de una palabra calculado con la época indicada. Si
+     * la caché ya corresponde a una época posterior, el resultado se descarta.
+     */
+    void put(String word, boolean derived, long epocaCalculo) {
+        Generacion generacion = sincronizar(epocaCalculo);
+        if (generacion != null) {
+            generacion.guardar(new Entrada(word, derived));
+        }
+    }
+
+
+
+    long getHits() {
+        return aciertos.sum();
+    }
+
+
+
+    long getMisses() {
+        return fallos.sum();
+    }
+
+
+
+    int size() {
+        return actual.get().resultados.size();
+    }
+
+
+
+    /**
+     * @return La generación de la época indicada, creándola vacía si es
+     *         posterior a la actual, o null si es anterior.
+     */
+    private Generacion sincronizar(long epoca) {
+        while (true) {
+            Generacion generacion = actual.get();
+            if (epoca == generacion.epoca) {
+                return generacion;
+            }
+            if (epoca < generacion.epoca) {
+                return null;
+            }
+            Generacion nueva = new Generacion(epoca);
+            if (actual.compareAndSet(generacion, nueva)) {
+                return nueva;
+            }
+        }
+    }
+
+
+
+    private static final class Entrada {
+
+        final String palabra;
+        final boolean pertenece;
+        // Bit de referencia de CLOCK
+        volatile boolean usada;
+
+
+
+        Entrada(String palabra, boolean pertenece) {
+            this.palabra = palabra;
+            this.pertenece = pertenece;
+        }
+    }
+
+
+
+    /**
+     * Resultados de una época. Vaciar la caché es sustituir la generación,
+     * sin tocar la anterior, que queda para el recolector.
+     */
+    private final class Generacion {
+
+        final long epoca;
+        final ConcurrentHashMap<String, Entrada> resultados = new ConcurrentHashMap<>();
+
+        // Reloj de CLOCK; crece hasta la capacidad a medida que se llena
+        private Entrada[] anillo = new Entrada[Math.min(capacidad, 16)];
+        private int ocupadas;
+        private int manecilla;
+
+
+
+        Generacion(long epoca) {
+            this.epoca = epoca;
+        }
+
+
+
+        synchronized void guardar(Entrada entrada) {
+            if (resultados.containsKey(entrada.palabra)) {
+                return;
+            }
+            if (ocupadas < capacidad) {
+                if (ocupadas == anillo.length) {
+                    anillo = Arrays.copyOf(anillo, Math.min(capacidad, anillo.length * 2));
+                }
+                anillo[ocupadas++] = entrada;
+            } else {
+                while (anillo[manecilla].usada) {
+                    anillo[manecilla].usada = false;
+                    manecilla = (manecilla + 1) % capacidad;
+                }
+                resultados.remove(anillo[manecilla].palabra);
+                anillo[manecilla] = entrada;
+                manecilla = (manecilla + 1) % capacidad;
+            }
+            resultados.put(entrada.palabra, entrada);
+        }
+    }
+}
@@ -0,0 +1,726 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+
+/**
+ * Reconocedor por autómata finito determinista mínimo para las gramáticas
+ * que generan un lenguaje regular.
+ *
+ * La detección es la de las gramáticas fuertemente regulares (Mohri y
+ * Nederhof): se agrupan los no terminales en componentes fuertemente conexas
+ * del grafo "A usa B" y se exige que cada componente recursiva sea lineal por
+ * la derecha (los no terminales de la propia componente sólo aparecen al
+ * final de las producciones) o lineal por la izquierda (sólo al principio).
+ * Es una condición suficiente de regularidad que incluye las gramáticas
+ * lineales por la derecha o por la izquierda y se conserva al pasarlas a FNC,
+ * así que sirve para la gramática sobre la que trabaja el algoritmo CYK.
+ *
+ * La gramática se traduce a un AFN con la construcción de Mohri y Nederhof,
+ * el AFN se determiniza por subconjuntos y el AFD se minimiza con el
+ * algoritmo de Hopcroft. Reconocer una palabra es un recorrido lineal de la
+ * tabla de transiciones, sin reservar memoria. Si alguno de los autómatas
+ * supera {@link #MAX_ESTADOS} estados (o el AFN {@link #MAX_TRANSICIONES}
+ * transiciones) no se construye el reconocedor.
+ */
+final class RegularRecognizer {
+
+    /**
+     * Número máximo de estados del AFN y del AFD intermedios.
+     */
+    static final int MAX_ESTADOS = 1 << 14;
+
+    /**
+     * Número máximo de transiciones del AFN.
+     */
+    static final int MAX_TRANSICIONES = 1 << 18;
+
+    // Tipos de componente fuertemente conexa
+    private static final int NO_RECURSIVA = 0;
+    private static final int POR_LA_DERECHA = 1;
+    private static final int POR_LA_IZQUIERDA = 2;
+    private static final int NO_REGULAR = 3;
+
+    // Transición vacía del AFN
+    private static final int EPSILON = -1;
+
+    // carácter -> columna de la tabla de transiciones (-1 si no es terminal)
+    private final int[] columnaPorCaracter;
+    private final int numColumnas;
+
+    // estado * numColumnas + columna -> estado siguiente (-1: rechazo)
+    private final int[] transiciones;
+    private final boolean[] finales;
+
+    // Estado inicial (-1 si el lenguaje es vacío)
+    private final int inicial;
+
+
+
+    private RegularRecognizer(int[] columnaPorCaracter, int numColumnas, int[] transiciones,
+                              boolean[] finales, int inicial) {
+        this.columnaPorCaracter = columnaPorCaracter;
+        this.numColumnas = numColumnas;
+        this.transiciones = transiciones;
+        this.finales = finales;
+        this.inicial = inicial;
+    }
+
+
+
+    /**
+     * Indica si la gramática es fuertemente regular y, por tanto, genera un
+     * lenguaje regular.
+     *
+     * @param gramatica Gramática compilada.
+     *
+     * @return true si todas sus componentes recursivas son lineales por la
+     *         derecha o por la izquierda.
+     */
+    static boolean isStronglyRegular(CompiledGrammar gramatica) {
+        return new Analisis(gramatica).regular;
+    }
+
+
+
+    /**
+     * Construye el AFD mínimo de la gramática.
+     *
+     * @param gramatica Gramática compilada.
+     *
+     * @return El reconocedor, o null si la gramática no es fuertemente
+     *         regular, no tiene axioma o los autómatas son demasiado grandes.
+     */
+    static RegularRecognizer build(CompiledGrammar gramatica) {
+        Analisis analisis = new Analisis(gramatica);
+        if (!analisis.regular || gramatica.getStartSymbol() < 0) {
+            return null;
+        }
+        Afn afn = new Afn(gramatica, analisis);
+        if (!afn.construir()) {
+            return null;
+        }
+        Afd afd = new Afd(afn, gramatica.getTerminalCount());
+        if (!afd.determinizar()) {
+            return null;
+        }
+        return afd.minimizar(gramatica);
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje.
+     *
+     * @param word Palabra; los caracteres que no son terminales de la
+     *             gramática la rechazan.
+     *
+     * @return true si el autómata acepta la palabra.
+     */
+    boolean recognize(CharSequence word) {
+        int estado = inicial;
+        for (int i = 0; i < word.length() && estado >= 0; i++) {
+            char c = word.charAt(i);
+            int columna = c < columnaPorCaracter.length ? columnaPorCaracter[c] : -1;
+            if (columna < 0) {
+                return false;
+            }
+            estado = transiciones[estado * numColumnas + columna];
+        }
+        return estado >= 0 && finales[estado];
+    }
+
+
+
+    /**
+     * @return Número de estados del AFD mínimo (sin contar el de rechazo).
+     */
+    int getStateCount() {
+        return finales.length;
+    }
+
+
+
+    /**
+     * Componentes fuertemente conexas del grafo "A usa B" y tipo de cada una.
+     */
+    private static final class Analisis {
+
+        final int[] componente;
+        final int[] tipo;
+        final boolean regular;
+
+
+
+        Analisis(CompiledGrammar g) {
+            int numNoTerminales = g.getNonTerminalCount();
+            int[][] sucesores = new int[numNoTerminales][];
+            boolean[] recursivo = new boolean[numNoTerminales];
+            for (int a = 0; a < numNoTerminales; a++) {
+                BitSet usados = new BitSet(numNoTerminales);
+                for (int p = g.getProductionsStart(a); p < g.getProductionsEnd(a); p++) {
+                    for (int k = 0; k < g.getProductionLength(p); k++) {
+                        int x = g.getProductionSymbol(p, k);
+                        if (x >= 0 && g.isNonTerminal(x)) {
+                            usados.set(x);
+                        }
+                    }
+                }
+                recursivo[a] = usados.get(a);
+                sucesores[a] = usados.stream().toArray();
+            }
+
+            componente = new int[numNoTerminales];
+            int numComponentes = CompiledGrammar.calcularComponentes(sucesores, componente);
+            int[] miembros = new int[numComponentes];
+            for (int a = 0; a < numNoTerminales; a++) {
+                miembros[componente[a]]++;
+            }
+
+            // Se parte de que toda componente recursiva puede ser lineal por
+            // los dos lados y se descarta cada lado al ver una producción que
+            // lo incumple
+            tipo = new int[numComponentes];
+            boolean[] derecha = new boolean[numComponentes];
+            boolean[] izquierda = new boolean[numComponentes];
+            Arrays.fill(derecha, true);
+            Arrays.fill(izquierda, true);
+            for (int a = 0; a < numNoTerminales; a++) {
+                int c = componente[a];
+                if (miembros[c] > 1) {
+                    recursivo[a] = true;
+                }
+                for (int p = g.getProductionsStart(a); p < g.getProductionsEnd(a); p++) {
+                    int longitud = g.getProductionLength(p);
+                    for (int k = 0; k < longitud; k++) {
+                        int x = g.getProductionSymbol(p, k);
+                        if (x >= 0 && g.isNonTerminal(x) && componente[x] == c) {
+                            derecha[c] &= k == longitud - 1;
+                            izquierda[c] &= k == 0;
+                        }
+                    }
+                }
+            }
+            for (int a = 0; a < numNoTerminales; a++) {
+                if (recursivo[a]) {
+                    tipo[componente[a]] = POR_LA_DERECHA;
+                }
+            }
+            boolean todas = true;
+            for (int c = 0; c < numComponentes; c++) {
+                if (tipo[c] == POR_LA_DERECHA) {
+                    tipo[c] = derecha[c] ? POR_LA_DERECHA : izquierda[c] ? POR_LA_IZQUIERDA : NO_REGULAR;
+                } else {
+                    tipo[c] = NO_RECURSIVA;
+                }
+                todas &= tipo[c] != NO_REGULAR;
+            }
+            regular = todas;
+        }
+    }
+
+
+
+    /**
+     * AFN con transiciones vacías obtenido con la construcción de Mohri y
+     * Nederhof. Cada tarea pendiente pide construir un fragmento de autómata
+     * entre dos estados q0 y q1 que reconozca un símbolo o un trozo de una
+     * producción; las tareas se guardan en una pila explícita.
+     */
+    private static final class Afn {
+
+        // Tipos de tarea
+        private static final int SIMBOLO = 0;
+        private static final int TROZO = 1;
+
+        private final CompiledGrammar g;
+        private final Analisis analisis;
+        private final int numNoTerminales;
+
+        int numEstados;
+        int[] origen = new int[64];
+        int[] etiqueta = new int[64];
+        int[] destino = new int[64];
+        int numTransiciones;
+
+        // Tareas: tipo, q0, q1 y, según el tipo, el símbolo o la producción y
+        // el trozo [desde, hasta) de su parte derecha
+        private int[] tareas = new int[6 * 64];
+        private int numTareas;
+
+
+
+        Afn(CompiledGrammar g, Analisis analisis) {
+            this.g = g;
+            this.analisis = analisis;
+            this.numNoTerminales = g.getNonTerminalCount();
+        }
+
+
+
+        /**
+         * Construye el autómata entre el estado inicial 0 y el final 1.
+         *
+         * @return false si se supera el número máximo de estados.
+         */
+        boolean construir() {
+            numEstados = 2;
+            apilar(SIMBOLO, 0, 1, g.getStartSymbol(), 0, 0);
+            while (numTareas > 0) {
+                if (numEstados > MAX_ESTADOS || numTransiciones > MAX_TRANSICIONES) {
+                    return false;
+                }
+                numTareas--;
+                int base = numTareas * 6;
+                int tipoTarea = tareas[base];
+                int q0 = tareas[base + 1];
+                int q1 = tareas[base + 2];
+                if (tipoTarea == SIMBOLO) {
+                    simbolo(q0, q1, tareas[base + 3]);
+                } else {
+                    trozo(q0, q1, tareas[base + 3], tareas[base + 4], tareas[base + 5]);
+                }
+            }
+            return numEstados <= MAX_ESTADOS && numTransiciones <= MAX_TRANSICIONES;
+        }
+
+
+
+        private void trozo(int q0, int q1, int p, int desde, int hasta) {
+            if (desde == hasta) {
+                transicion(q0, EPSILON, q1);
+            } else if (hasta - desde == 1) {
+                simbolo(q0, q1, g.getProductionSymbol(p, desde));
+            } else {
+                int q = numEstados++;
+                apilar(SIMBOLO, q0, q, g.getProductionSymbol(p, desde), 0, 0);
+                apilar(TROZO, q, q1, p, desde + 1, hasta);
+            }
+        }
+
+
+
+        private void simbolo(int q0, int q1, int x) {
+            if (x < 0) {
+                // Símbolo ajeno a la gramática: no genera ninguna palabra
+                return;
+            }
+            if (!g.isNonTerminal(x)) {
+                transicion(q0, x - numNoTerminales, q1);
+                return;
+            }
+            int c = analisis.componente[x];
+            int tipo = analisis.tipo[c];
+            if (tipo == NO_RECURSIVA) {
+                for (int p = g.getProductionsStart(x); p < g.getProductionsEnd(x); p++) {
+                    apilar(TROZO, q0, q1, p, 0, g.getProductionLength(p));
+                }
+                return;
+            }
+
+            // Un estado nuevo por cada no terminal de la componente
+            int[] estadoDe = new int[numNoTerminales];
+            for (int a = 0; a < numNoTerminales; a++) {
+                if (analisis.componente[a] == c) {
+                    estadoDe[a] = numEstados++;
+                }
+            }
+            if (tipo == POR_LA_DERECHA) {
+                transicion(q0, EPSILON, estadoDe[x]);
+            } else {
+                transicion(estadoDe[x], EPSILON, q1);
+            }
+            for (int a = 0; a < numNoTerminales; a++) {
+                if (analisis.componente[a] != c) {
+                    continue;
+                }
+                for (int p = g.getProductionsStart(a); p < g.getProductionsEnd(a); p++) {
+                    int longitud = g.getProductionLength(p);
+                    if (tipo == POR_LA_DERECHA) {
+                        int ultimo = longitud > 0 ? g.getProductionSymbol(p, longitud - 1) : -1;
+                        if (ultimo >= 0 && g.isNonTerminal(ultimo) && analisis.componente[ultimo] == c) {
+                            // a::=αB: de a se pasa a B leyendo α
+                            apilar(TROZO, estadoDe[a], estadoDe[ultimo], p, 0, longitud - 1);
+                        } else {
+                            apilar(TROZO, estadoDe[a], q1, p, 0, longitud);
+                        }
+                    } else {
+                        int primero = longitud > 0 ? g.getProductionSymbol(p, 0) : -1;
+                        if (primero >= 0 && g.isNonTerminal(primero) && analisis.componente[primero] == c) {
+                            // a::=Bα: de B se pasa a a leyendo α
+                            apilar(TROZO, estadoDe[primero], estadoDe[a], p, 1, longitud);
+                        } else {
+                            apilar(TROZO, q0, estadoDe[a], p, 0, longitud);
+                        }
+                    }
+                }
+            }
+        }
+
+
+
+        private void apilar(int tipo, int q0, int q1, int a, int b, int c) {
+            if ((numTareas + 1) * 6 > tareas.length) {
+                tareas = Arrays.copyOf(tareas, tareas.length * 2);
+            }
+            int base = numTareas++ * 6;
+            tareas[base] = tipo;
+            tareas[base + 1] = q0;
+            tareas[base + 2] = q1;
+            tareas[base + 3] = a;
+            tareas[base + 4] = b;
+            tareas[base + 5] = c;
+        }
+
+
+
+        private void transicion(int desde, int simbolo, int hasta) {
+            if (numTransiciones == origen.length) {
+                origen = Arrays.copyOf(origen, numTransiciones * 2);
+                etiqueta = Arrays.copyOf(etiqueta, numTransiciones * 2);
+                destino = Arrays.copyOf(destino, numTransiciones * 2);
+            }
+            origen[numTransiciones] = desde;
+            etiqueta[numTransiciones] = simbolo;
+            destino[numTransiciones] = hasta;
+            numTransiciones++;
+        }
+    }
+
+
+
+    /**
+     * AFD completo obtenido del AFN por el método de los subconjuntos. El
+     * último estado es el de rechazo, que absorbe todas las transiciones que
+     * no llevan a ningún estado del AFN.
+     */
+    private static final class Afd {
+
+        private final int numColumnas;
+
+        // Transiciones del AFN agrupadas por estado de origen
+        private final int[] primera;
+        private final int[] etiquetas;
+        private final int[] destinos;
+
+        private final List<BitSet> estados = new ArrayList<>();
+        private final List<int[]> filas = new ArrayList<>();
+        private int[] delta;
+        private boolean[] aceptacion;
+        private int numEstados;
+
+
+
+        Afd(Afn afn, int numColumnas) {
+            this.numColumnas = numColumnas;
+            primera = new int[afn.numEstados + 1];
+            for (int t = 0; t < afn.numTransiciones; t++) {
+                primera[afn.origen[t] + 1]++;
+            }
+            for (int q = 0; q < afn.numEstados; q++) {
+                primera[q + 1] += primera[q];
+            }
+            etiquetas = new int[afn.numTransiciones];
+            destinos = new int[afn.numTransiciones];
+            int[] ocupadas = Arrays.copyOf(primera, afn.numEstados);
+            for (int t = 0; t < afn.numTransiciones; t++) {
+                int x = ocupadas[afn.origen[t]]++;
+                etiquetas[x] = afn.etiqueta[t];
+                destinos[x] = afn.destino[t];
+            }
+        }
+
+
+
+        /**
+         * @return false si se supera el número máximo de estados.
+         */
+        boolean determinizar() {
+            Map<BitSet, Integer> numeros = new HashMap<>();
+            BitSet inicial = new BitSet();
+            inicial.set(0);
+            cerrar(inicial);
+            numeros.put(inicial, 0);
+            estados.add(inicial);
+
+            BitSet[] porColumna = new BitSet[numColumnas];
+            for (int d = 0; d < estados.size(); d++) {
+                for (int q = estados.get(d).nextSetBit(0); q >= 0; q = estados.get(d).nextSetBit(q + 1)) {
+                    for (int t = primera[q]; t < primera[q + 1]; t++) {
+                        if (etiquetas[t] != EPSILON) {
+                            if (porColumna[etiquetas[t]] == null) {
+                                porColumna[etiquetas[t]] = new BitSet();
+                            }
+                            porColumna[etiquetas[t]].set(destinos[t]);
+                        }
+                    }
+                }
+                int[] fila = new int[numColumnas];
+                for (int a = 0; a < numColumnas; a++) {
+                    BitSet siguiente = porColumna[a];
+                    porColumna[a] = null;
+                    if (siguiente == null) {
+                        fila[a] = -1;
+                        continue;
+                    }
+                    cerrar(siguiente);
+                    Integer numero = numeros.get(siguiente);
+                    if (numero == null) {
+                        if (estados.size() == MAX_ESTADOS) {
+                            return false;
+                        }
+                        numero = estados.size();
+                        numeros.put(siguiente, numero);
+                        estados.add(siguiente);
+                    }
+                    fila[a] = numero;
+                }
+                filas.add(fila);
+            }
+
+            // Tabla completa con el estado de rechazo al final
+            numEstados = estados.size() + 1;
+            int rechazo = estados.size();
+            delta = new int[numEstados * numColumnas];
+            aceptacion = new boolean[numEstados];
+            for (int d = 0; d < estados.size(); d++) {
+                int[] fila = filas.get(d);
+                for (int a = 0; a < numColumnas; a++) {
+                    delta[d * numColumnas + a] = fila[a] >= 0 ? fila[a] : rechazo;
+                }
+                aceptacion[d] = estados.get(d).get(1);
+            }
+            Arrays.fill(delta, rechazo * numColumnas, numEstados * numColumnas, rechazo);
+            return true;
+        }
+
+
+
+        /**
+         * Añade al conjunto los estados alcanzables por transiciones vacías.
+         */
+        private void cerrar(BitSet conjunto) {
+            int[] pendientes = conjunto.stream().toArray();
+            int fin = pendientes.length;
+            while (fin > 0) {
+                int q = pendientes[--fin];
+                for (int t = primera[q]; t < primera[q + 1]; t++) {
+                    if (etiquetas[t] == EPSILON && !conjunto.get(destinos[t])) {
+                        conjunto.set(destinos[t]);
+                        if (fin == pendientes.length) {
+                            pendientes = Arrays.copyOf(pendientes, Math.max(8, fin * 2));
+                        }
+                        pendientes[fin++] = destinos[t];
+                    }
+                }
+            }
+        }
+
+
+
+        /**
+         * Minimiza el AFD con el algoritmo de Hopcroft: se parte de la
+         * partición {finales, no finales} y se refina con cada bloque
+         * divisor, que tras partir un bloque vuelve a la lista sólo con la
+         * mitad más pequeña (O(k n log n) para k terminales y n estados).
+         */
+        RegularRecognizer minimizar(CompiledGrammar g) {
+            int n = numEstados;
+            int k = numColumnas;
+
+            // Transiciones inversas por símbolo: predecesores de (q, a)
+            int[] primeraInversa = new int[n * k + 1];
+            for (int q = 0; q < n; q++) {
+                for (int a = 0; a < k; a++) {
+                    primeraInversa[delta[q * k + a] * k + a + 1]++;
+                }
+            }
+            for (int x = 0; x < n * k; x++) {
+                primeraInversa[x + 1] += primeraInversa[x];
+            }
+            int[] predecesores = new int[n * k];
+            int[] ocupadas = Arrays.copyOf(primeraInversa, n * k);
+            for (int q = 0; q < n; q++) {
+                for (int a = 0; a < k; a++) {
+                    predecesores[ocupadas[delta[q * k + a] * k + a]++] = q;
+                }
+            }
+
+            // Bloques como tramos [inicio, fin) de una permutación de los
+            // estados; los marcados de cada bloque se mueven a su principio
+            int[] elementos = new int[n];
+            int[] posicion = new int[n];
+            int[] bloque = new int[n];
+            int[] inicio = new int[n];
+            int[] fin = new int[n];
+            int[] marcados = new int[n];
+            int numBloques = 0;
+            int x = 0;
+            for (int pasada = 0; pasada < 2; pasada++) {
+                int desde = x;
+                for (int q = 0; q < n; q++) {
+                    if (aceptacion[q] == (pasada == 0)) {
+                        elementos[x] = q;
+                        posicion[q] = x++;
+                        bloque[q] = numBloques;
+                    }
+                }
+                if (x > desde) {
+                    inicio[numBloques] = desde;
+                    fin[numBloques] = x;
+                    marcados[numBloques] = desde;
+                    numBloques++;
+                }
+            }
+
+            int[] pendientes = new int[n];
+            boolean[] pendiente = new boolean[n];
+            int numPendientes = 0;
+            for (int b = 0; b < numBloques; b++) {
+                pendientes[numPendientes++] = b;
+                pendiente[b] = true;
+            }
+            int[] divisor = new int[n];
+            int[] tocados = new int[n];
+
+            while (numPendientes > 0) {
+                int s = pendientes[--numPendientes];
+                pendiente[s] = false;
+                int tamano = fin[s] - inicio[s];
+                System.arraycopy(elementos, inicio[s], divisor, 0, tamano);
+
+                for (int a = 0; a < k; a++) {
+                    int numTocados = 0;
+                    for (int y = 0; y < tamano; y++) {
+                        int q = divisor[y];
+                        for (int z = primeraInversa[q * k + a]; z < primeraInversa[q * k + a + 1]; z++) {
+                            int p = predecesores[z];
+                            int b = bloque[p];
+                            if (posicion[p] < marcados[b]) {
+                                continue;
+                            }
+                            if (marcados[b] == inicio[b]) {
+                                tocados[numTocados++] = b;
+                            }
+                            // Se intercambia p con el primer no marcado
+                            int destino = marcados[b]++;
+                            int otro = elementos[destino];
+                            elementos[destino] = p;
+                            elementos[posicion[p]] = otro;
+                            posicion[otro] = posicion[p];
+                            posicion[p] = destino;
+                        }
+                    }
+
+                    for (int t = 0; t < numTocados; t++) {
+                        int b = tocados[t];
+                        int corte = marcados[b];
+                        marcados[b] = inicio[b];
+                        if (corte == fin[b]) {
+                            continue;
+                        }
+                        // Los marcados [inicio, corte) pasan a un bloque nuevo
+                        int nuevo = numBloques++;
+                        inicio[nuevo] = inicio[b];
+                        fin[nuevo] = corte;
+                        marcados[nuevo] = inicio[nuevo];
+                        inicio[b] = corte;
+                        marcados[b] = corte;
+                        for (int y = inicio[nuevo]; y < fin[nuevo]; y++) {
+                            bloque[elementos[y]] = nuevo;
+                        }
+                        if (pendiente[b] || fin[nuevo] - inicio[nuevo] <= fin[b] - inicio[b]) {
+                            pendientes[numPendientes++] = nuevo;
+                            pendiente[nuevo] = true;
+                        } else {
+                            pendientes[numPendientes++] = b;
+                            pendiente[b] = true;
+                        }
+                    }
+                }
+            }
+
+            return construirMinimo(g, bloque, numBloques);
+        }
+
+
+
+        /**
+         * Construye el reconocedor sobre los bloques de la partición final,
+         * eliminando los bloques desde los que no se llega a ningún estado de
+         * aceptación (entre ellos, el de rechazo).
+         */
+        private RegularRecognizer construirMinimo(CompiledGrammar g, int[] bloque, int numBloques) {
+            int k = numColumnas;
+            int[] representante = new int[numBloques];
+            for (int q = numEstados - 1; q >= 0; q--) {
+                representante[bloque[q]] = q;
+            }
+
+            // Bloques coaccesibles: recorrido hacia atrás desde los finales
+            List<List<Integer>> anteriores = new ArrayList<>();
+            for (int b = 0; b < numBloques; b++) {
+                anteriores.add(new ArrayList<>());
+            }
+            for (int b = 0; b < numBloques; b++) {
+                int q = representante[b];
+                for (int a = 0; a < k; a++) {
+                    anteriores.get(bloque[delta[q * k + a]]).add(b);
+                }
+            }
+            boolean[] util = new boolean[numBloques];
+            int[] cola = new int[numBloques];
+            int numCola = 0;
+            for (int b = 0; b < numBloques; b++) {
+                if (aceptacion[representante[b]]) {
+                    util[b] = true;
+                    cola[numCola++] = b;
+                }
+            }
+            for (int y = 0; y < numCola; y++) {
+                for (int b : anteriores.get(cola[y])) {
+                    if (!util[b]) {
+                        util[b] = true;
+                        cola[numCola++] = b;
+                    }
+                }
+            }
+
+            int[] numero = new int[numBloques];
+            int numUtiles = 0;
+            for (int b = 0; b < numBloques; b++) {
+                numero[b] = util[b] ? numUtiles++ : -1;
+            }
+            int[] transiciones = new int[numUtiles * k];
+            boolean[] finales = new boolean[numUtiles];
+            for (int b = 0; b < numBloques; b++) {
+                if (!util[b]) {
+                    continue;
+                }
+                int q = representante[b];
+                finales[numero[b]] = aceptacion[q];
+                for (int a = 0; a < k; a++) {
+                    transiciones[numero[b] * k + a] = numero[bloque[delta[q * k + a]]];
+                }
+            }
+
+            int numNoTerminales = g.getNonTerminalCount();
+            char maxCaracter = 0;
+            for (int a = 0; a < k; a++) {
+                maxCaracter = (char) Math.max(maxCaracter, g.getSymbol(numNoTerminales + a));
+            }
+            int[] columnaPorCaracter = new int[k > 0 ? maxCaracter + 1 : 0];
+            Arrays.fill(columnaPorCaracter, -1);
+            for (int a = 0; a < k; a++) {
+                columnaPorCaracter[g.getSymbol(numNoTerminales + a)] = a;
+            }
+            return new RegularRecognizer(columnaPorCaracter, k, transiciones, finales, numero[bloque[0]]);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.Arrays;
+
+
+
+/**
+ * Sesión de reconocimiento CYK para palabras que llegan carácter a
+ * carácter, por ejemplo desde un socket o un fichero, sin tener que reunir
+ * antes la palabra completa.
+ *
+ * La tabla CYK se guarda por columnas: la columna de la posición e contiene
+ * las celdas de todas las subcadenas que terminan en e. Cada carácter nuevo
+ * añade sólo su columna, calculando sus celdas de la más corta a la más
+ * larga a partir de las columnas anteriores, que ya no cambian. Así cada
+ * carácter cuesta O(n²) combinaciones de celdas en lugar de las O(n³) de
+ * recalcular la tabla entera, y tras cada uno se sabe si el prefijo leído
+ * pertenece al lenguaje. La tabla ocupa O(n²) celdas.
+ *
+ * La sesión trabaja sobre la gramática (en FNC) que había cuando se creó con
+ * {@link CFGAlgorithms#newStreamingRecognizer()}: las modificaciones
+ * posteriores de la gramática no le afectan. No se puede compartir entre
+ * hilos sin sincronización externa.
+ */
+public final class StreamingRecognizer {
+
+    private final CYKRecognizer cyk;
+    private final CompiledGrammar gramatica;
+    private final int palabras;
+    private final int axioma;
+
+    // columnas[e - 1]: celdas (i, e) para i = 0..e-1, de palabras longs cada una
+    private long[][] columnas = new long[16][];
+    private int longitud;
+
+
+
+    /**
+     * @param cyk Reconocedor CYK de la gramática en FNC, con axioma.
+     */
+    StreamingRecognizer(CYKRecognizer cyk) {
+        this.cyk = cyk;
+        this.gramatica = cyk.getGrammar();
+        this.palabras = cyk.getWords();
+        this.axioma = gramatica.getStartSymbol();
+    }
+
+
+
+    /**
+     * Añade un carácter al final del prefijo leído y calcula su columna de la
+     * tabla CYK.
+     *
+     * @param terminal Siguiente carácter de la palabra.
+     *
+     * @return true si el prefijo leído, incluido este carácter, pertenece al
+     *         lenguaje.
+     *
+     * @throws CFGAlgorithmsException Si el carácter no es un terminal de la
+     *                                gramática. En ese caso no se añade.
+     */
+    public boolean append(char terminal) throws CFGAlgorithmsException {
+        int id = gramatica.getSymbolId(terminal);
+        if (id < gramatica.getNonTerminalCount()) {
+            throw new CFGAlgorithmsException("La palabra contiene elementos que no son terminales de la gramática: " + terminal);
+        }
+
+        int e = longitud + 1;
+        long[] columna = new long[e * palabras];
+        long[] unitaria = cyk.getTerminalCell(terminal);
+        if (unitaria != null) {
+            System.arraycopy(unitaria, 0, columna, (e - 1) * palabras, palabras);
+        }
+        // Celda (i, e): cortes en k, con (i, k) en la columna k y (k, e) en
+        // la nueva, ya calculada porque es más corta
+        for (int i = e - 2; i >= 0; i--) {
+            for (int k = i + 1; k < e; k++) {
+                cyk.combine(columnas[k - 1], i * palabras, columna, k * palabras, columna, i * palabras);
+            }
+        }
+
+        if (e > columnas.length) {
+            columnas = Arrays.copyOf(columnas, columnas.length * 2);
+        }
+        columnas[e - 1] = columna;
+        longitud = e;
+        return isMember();
+    }
+
+
+
+    /**
+     * Añade varios caracteres, uno tras otro, al final del prefijo leído.
+     *
+     * @param terminals Siguientes caracteres de la palabra.
+     *
+     * @return true si el prefijo leído, incluidos estos caracteres, pertenece
+     *         al lenguaje.
+     *
+     * @throws CFGAlgorithmsException Si algún carácter no es un terminal de la
+     *                                gramática. Los anteriores a él quedan añadidos.
+     */
+    public boolean append(CharSequence terminals) throws CFGAlgorithmsException {
+        for (int i = 0; i < terminals.length(); i++) {
+            append(terminals.charAt(i));
+        }
+        return isMember();
+    }
+
+
+
+    /**
+     * @return true si el prefijo leído hasta ahora pertenece al lenguaje.
+     */
+    public boolean isMember() {
+        if (longitud == 0) {
+            return gramatica.acceptsEmptyWord();
+        }
+        return CYKRecognizer.estaActivo(columnas[longitud - 1], 0, axioma);
+    }
+
+
+
+    /**
+     * @return Número de caracteres leídos.
+     */
+    public int length() {
+        return longitud;
+    }
+
+
+
+    /**
+     * Descarta los caracteres leídos para empezar una palabra nueva con la
+     * misma gramática.
+     */
+    public void reset() {
+        columnas = new long[16][];
+        longitud = 0;
+    }
+}
@@ -0,0 +1,363 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Reconocedor descendente con memoria para gramáticas en FNC, alternativo al
+ * algoritmo CYK.
+ *
+ * CYK rellena todas las celdas de la tabla con todos los no terminales,
+ * aunque la mayoría de los pares (A, subcadena) nunca pueden formar parte de
+ * una derivación desde el axioma. Este reconocedor parte del axioma sobre la
+ * palabra completa y sólo pregunta por los pares a los que llega probando
+ * las reglas A::=BC en cada punto de corte. El resultado de cada par se
+ * guarda en una LongIntHashMap indexada por (A, i, len), de modo que ningún
+ * par se resuelve dos veces y en el peor caso el coste es el de CYK.
+ *
+ * Antes de explorar un par se descarta si el primer carácter de la
+ * subcadena no puede empezar ninguna palabra derivada de A, o si el último
+ * no puede terminarla. Además, de cada regla A::=BC sólo se prueban los
+ * cortes compatibles con las longitudes mínima y máxima de las palabras que
+ * derivan B y C: si B es el no terminal que sustituye a un terminal, por
+ * ejemplo, sólo hay un corte posible. Las preguntas pendientes se guardan en
+ * una pila explícita, así que la longitud de la palabra no está limitada por
+ * la pila del hilo.
+ */
+final class TopDownRecognizer {
+
+    // Enteros por marco de la pila: A, i, len, regla, corte, fase
+    private static final int MARCO = 6;
+
+    private static final int FALSO = 0;
+    private static final int CIERTO = 1;
+    private static final int DESCONOCIDO = -1;
+
+    // Longitud máxima de un no terminal recursivo (o mínima de uno que no
+    // deriva ninguna palabra)
+    private static final int INFINITA = Integer.MAX_VALUE;
+
+    private final CompiledGrammar gramatica;
+    private final int numNoTerminales;
+    private final int axioma;
+
+    // A -> [B0, C0, B1, C1, ...] de sus reglas A::=BC
+    private final int[][] binarias;
+
+    // A -> terminales (por índice 0..T-1) tales que A::=a
+    private final long[][] unitarias;
+    // A -> terminales con los que puede empezar / terminar lo que deriva A
+    private final long[][] primeros;
+    private final long[][] ultimos;
+
+    // A -> longitud mínima y máxima de las palabras que deriva
+    private final int[] minima;
+    private final int[] maxima;
+
+
+
+    /**
+     * Prepara el reconocedor sobre la gramática compilada indicada, que debe
+     * estar en FNC.
+     *
+     * @param gramatica Gramática compilada en FNC.
+     */
+    TopDownRecognizer(CompiledGrammar gramatica) {
+        if (!gramatica.isCNF()) {
+            throw new IllegalArgumentException("La gramática no está en Forma Normal de Chomsky.");
+        }
+        this.gramatica = gramatica;
+        numNoTerminales = gramatica.getNonTerminalCount();
+        axioma = gramatica.getStartSymbol();
+
+        int palabras = Math.max(1, (gramatica.getTerminalCount() + 63) >>> 6);
+        binarias = new int[numNoTerminales][];
+        unitarias = new long[numNoTerminales][palabras];
+        primeros = new long[numNoTerminales][palabras];
+        ultimos = new long[numNoTerminales][palabras];
+        for (int a = 0; a < numNoTerminales; a++) {
+            int[] reglas = new int[2 * (gramatica.getProductionsEnd(a) - gramatica.getProductionsStart(a))];
+            int r = 0;
+            for (int p = gramatica.getProductionsStart(a); p < gramatica.getProductionsEnd(a); p++) {
+                if (gramatica.getProductionLength(p) == 2) {
+                    reglas[r++] = gramatica.getProductionSymbol(p, 0);
+                    reglas[r++] = gramatica.getProductionSymbol(p, 1);
+                } else if (gramatica.getProductionLength(p) == 1) {
+                    int t = gramatica.getProductionSymbol(p, 0) - numNoTerminales;
+                    unitarias[a][t >>> 6] |= 1L << t;
+                }
+            }
+            binarias[a] = Arrays.copyOf(reglas, r);
+            primeros[a] = unitarias[a].clone();
+            ultimos[a] = unitarias[a].clone();
+        }
+        calcularExtremos();
+        minima = calcularMinimas();
+        maxima = calcularMaximas();
+    }
+
+
+
+    /**
+     * Indica si la palabra pertenece al lenguaje de la gramática compilada.
+     *
+     * @param word Palabra formada sólo por terminales de la gramática.
+     *
+     * @return true si el axioma deriva la palabra.
+     */
+    boolean recognize(CharSequence word) {
+        int n = word.length();
+        if (n == 0) {
+            return gramatica.acceptsEmptyWord();
+        }
+        if (axioma < 0) {
+            return false;
+        }
+        int[] terminales = new int[n];
+        for (int i = 0; i < n; i++) {
+            int id = gramatica.getSymbolId(word.charAt(i));
+            if (id < numNoTerminales) {
+                return false;
+            }
+            terminales[i] = id - numNoTerminales;
+        }
+
+        LongIntHashMap memoria = new LongIntHashMap(64);
+        int resultado = consultar(axioma, 0, n, terminales, memoria);
+        if (resultado != DESCONOCIDO) {
+            return resultado == CIERTO;
+        }
+
+        int[] pila = new int[MARCO * 64];
+        int cima = apilar(pila, 0, axioma, 0, n);
+        siguienteCorte(pila, cima - MARCO, false);
+        int entregado = DESCONOCIDO;
+        while (cima > 0) {
+            int base = cima - MARCO;
+            int a = pila[base];
+            int i = pila[base + 1];
+            int len = pila[base + 2];
+            int regla = pila[base + 3];
+            int corte = pila[base + 4];
+            int fase = pila[base + 5];
+
+            int r = entregado;
+            entregado = DESCONOCIDO;
+            if (r == DESCONOCIDO) {
+                if (regla == binarias[a].length) {
+                    // Ninguna regla ni ningún corte deriva la subcadena
+                    memoria.put(clave(a, i, len, n), FALSO);
+                    cima -= MARCO;
+                    entregado = FALSO;
+                    continue;
+                }
+                int b = binarias[a][regla + fase];
+                int desde = fase == 0 ? i : i + corte;
+                int longitud = fase == 0 ? corte : len - corte;
+                r = consultar(b, desde, longitud, terminales, memoria);
+                if (r == DESCONOCIDO) {
+                    if (cima + MARCO > pila.length) {
+                        pila = Arrays.copyOf(pila, pila.length * 2);
+                    }
+                    cima = apilar(pila, cima, b, desde, longitud);
+                    siguienteCorte(pila, cima - MARCO, false);
+                    continue;
+                }
+            }
+
+            if (r == CIERTO && fase == 0) {
+                // B deriva la parte izquierda: falta C con la derecha
+                pila[base + 5] = 1;
+            } else if (r == CIERTO) {
+                memoria.put(clave(a, i, len, n), CIERTO);
+                cima -= MARCO;
+                entregado = CIERTO;
+            } else {
+                pila[base + 5] = 0;
+                siguienteCorte(pila, base, true);
+            }
+        }
+        return entregado == CIERTO;
+    }
+
+
+
+    /**
+     * @return CIERTO o FALSO si el par (a, subcadena) se resuelve sin
+     *         explorarlo, o DESCONOCIDO si hay que probar sus reglas.
+     */
+    private int consultar(int a, int i, int len, int[] terminales, LongIntHashMap memoria) {
+        if (len == 1) {
+            return contiene(unitarias[a], terminales[i]) ? CIERTO : FALSO;
+        }
+        if (!contiene(primeros[a], terminales[i]) || !contiene(ultimos[a], terminales[i + len - 1])) {
+            return FALSO;
+        }
+        return memoria.get(clave(a, i, len, terminales.length), DESCONOCIDO);
+    }
+
+
+
+    private static int apilar(int[] pila, int cima, int a, int i, int len) {
+        pila[cima] = a;
+        pila[cima + 1] = i;
+        pila[cima + 2] = len;
+        pila[cima + 3] = 0;
+        pila[cima + 4] = 0;
+        pila[cima + 5] = 0;
+        return cima + MARCO;
+    }
+
+
+
+    /**
+     * Deja en el marco la siguiente regla y corte por probar: el mismo (o el
+     * siguiente, si avanzar es true) si cabe en el rango de cortes de su
+     * regla, y si no el primero de la siguiente regla con algún corte
+     * posible. Si no queda ninguna, la regla queda fuera del array.
+     */
+    private void siguienteCorte(int[] pila, int base, boolean avanzar) {
+        int[] reglas = binarias[pila[base]];
+        int len = pila[base + 2];
+        int regla = pila[base + 3];
+        int corte = pila[base + 4] + (avanzar ? 1 : 0);
+        while (regla < reglas.length) {
+            int b = reglas[regla];
+            int c = reglas[regla + 1];
+            // minima[b] <= corte <= maxima[b] y minima[c] <= len - corte <= maxima[c]
+            int desde = (int) Math.max(minima[b], (long) len - maxima[c]);
+            int hasta = (int) Math.min(maxima[b], (long) len - minima[c]);
+            corte = Math.max(corte, desde);
+            if (corte <= hasta) {
+                break;
+            }
+            regla += 2;
+            corte = 0;
+        }
+        pila[base + 3] = regla;
+        pila[base + 4] = corte;
+    }
+
+
+
+    private static long clave(int a, int i, int len, int n) {
+        return ((long) a * (n + 1) + i) * (n + 1) + len;
+    }
+
+
+
+    /**
+     * Calcula los terminales con los que puede empezar y terminar lo que
+     * deriva cada no terminal: los de sus reglas A::=a más los que empiezan
+     * B (o terminan C) en sus reglas A::=BC, hasta que no cambia ninguno.
+     */
+    private void calcularExtremos() {
+        boolean cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (int a = 0; a < numNoTerminales; a++) {
+                int[] reglas = binarias[a];
+                for (int r = 0; r < reglas.length; r += 2) {
+                    cambios |= unir(primeros[a], primeros[reglas[r]]);
+                    cambios |= unir(ultimos[a], ultimos[reglas[r + 1]]);
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * @return La longitud mínima de las palabras que deriva cada no terminal,
+     *         calculada iterando sobre sus reglas hasta que no cambia
+     *         ninguna.
+     */
+    private int[] calcularMinimas() {
+        int[] resultado = new int[numNoTerminales];
+        Arrays.fill(resultado, INFINITA);
+        boolean cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (int a = 0; a < numNoTerminales; a++) {
+                long minimo = vacio(unitarias[a]) ? INFINITA : 1;
+                int[] reglas = binarias[a];
+                for (int r = 0; r < reglas.length; r += 2) {
+                    minimo = Math.min(minimo, (long) resultado[reglas[r]] + resultado[reglas[r + 1]]);
+                }
+                if (minimo < resultado[a]) {
+                    resultado[a] = (int) minimo;
+                    cambios = true;
+                }
+            }
+        }
+        return resultado;
+    }
+
+
+
+    /**
+     * @return La longitud máxima de las palabras que deriva cada no terminal
+     *         (INFINITA si es recursivo o depende de uno que lo es). Se
+     *         recorren las componentes fuertemente conexas del grafo de
+     *         reglas binarias de las hojas hacia arriba.
+     */
+    private int[] calcularMaximas() {
+        int[] componente = new int[numNoTerminales];
+        CompiledGrammar.calcularComponentes(binarias, componente);
+        Integer[] orden = new Integer[numNoTerminales];
+        for (int a = 0; a < numNoTerminales; a++) {
+            orden[a] = a;
+        }
+        // Los sucesores están en componentes de número menor
+        Arrays.sort(orden, (x, y) -> componente[x] - componente[y]);
+
+        int[] resultado = new int[numNoTerminales];
+        for (int a : orden) {
+            long maximo = vacio(unitarias[a]) ? 0 : 1;
+            int[] reglas = binarias[a];
+            for (int r = 0; r < reglas.length; r++) {
+                if (componente[reglas[r]] == componente[a]) {
+                    // Recursivo: A::=AC, o dentro de un ciclo de varios
+                    maximo = INFINITA;
+                }
+            }
+            for (int r = 0; r < reglas.length && maximo < INFINITA; r += 2) {
+                maximo = Math.max(maximo, Math.min(INFINITA, (long) resultado[reglas[r]] + resultado[reglas[r + 1]]));
+            }
+            resultado[a] = (int) Math.min(maximo, INFINITA);
+        }
+        return resultado;
+    }
+
+
+
+    private static boolean vacio(long[] bits) {
+        for (long w : bits) {
+            if (w != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    private static boolean contiene(long[] bits, int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+
+
+    private static boolean unir(long[] destino, long[] origen) {
+        boolean cambios = false;
+        for (int w = 0; w < destino.length; w++) {
+            long union = destino[w] | origen[w];
+            if (union != destino[w]) {
+                destino[w] = union;
+                cambios = true;
+            }
+        }
+        return cambios;
+    }
+}
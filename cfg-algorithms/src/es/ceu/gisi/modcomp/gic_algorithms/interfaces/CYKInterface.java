@@ -1,6 +1,11 @@
 package es.ceu.gisi.modcomp.gic_algorithms.interfaces;
 
+import es.ceu.gisi.modcomp.gic_algorithms.CYKTable;
+import es.ceu.gisi.modcomp.gic_algorithms.StreamingRecognizer;
 import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
 
 
 
@@ -27,12 +32,129 @@ public interface CYKInterface {
      * @throws CFGAlgorithmsException Si la palabra proporcionada no está
      *                                formada sólo por terminales, si está formada por terminales que no
      *                                pertenecen al conjunto de terminales definido para la gramática
-     *                                introducida, si la gramática es vacía o si el autómata carece de axioma.
+     *                                introducida, si la gramática es vacía, si el autómata carece de axioma
+     *                                o si la palabra es demasiado larga para la tabla CYK.
      */
     public boolean isDerivedUsignCYK(String word) throws CFGAlgorithmsException;
 
 
 
+    /**
+     * Método que indica, para cada palabra de una colección, si pertenece al
+     * lenguaje generado por la gramática que se ha introducido, usando el
+     * algoritmo CYK. La gramática se prepara una sola vez para todo el lote.
+     *
+     * La gramática deberá estar en FNC.
+     *
+     * @param words Las palabras a verificar, tienen que estar formadas sólo
+     *              por elementos terminales.
+     *
+     * @return Un BitSet con el bit i activo si y sólo si la palabra i (en el
+     *         orden de iteración de la colección) pertenece al lenguaje.
+     *
+     * @throws CFGAlgorithmsException Si alguna palabra no está formada sólo
+     *                                por terminales de la gramática o es demasiado larga para la tabla
+     *                                CYK, si la gramática es vacía o si carece de axioma.
+     */
+    public BitSet isDerivedBatch(Collection<? extends CharSequence> words) throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. En lugar de rellenar la tabla CYK
+     * completa, se parte del axioma sobre la palabra entera y sólo se
+     * resuelven los pares (no terminal, subcadena) a los que se llega desde
+     * él, guardando el resultado de cada uno para no repetirlo.
+     *
+     * La gramática deberá estar en FNC.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                está en FNC.
+     */
+    public boolean isDerivedUsingTopDown(String word) throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido, usando el algoritmo CYK expresado como
+     * producto de matrices booleanas: para cada no terminal se guarda qué
+     * subcadenas deriva en matrices de bits, de modo que cada regla A::=BC
+     * prueba 64 puntos de corte con una sola operación AND. La tabla se
+     * calcula por bloques de 64x64 celdas, repartidos entre hilos en las
+     * palabras para las que CYK usa el modo paralelo.
+     *
+     * Compensa con gramáticas cuyas celdas contienen muchos no terminales;
+     * la memoria crece con el cuadrado de la longitud de la palabra.
+     *
+     * La gramática deberá estar en FNC.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma, si no
+     *                                está en FNC o si las matrices de la palabra no caben en memoria.
+     */
+    public boolean isDerivedUsingMatrixCYK(String word) throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que abre una sesión de reconocimiento CYK para una palabra que
+     * llega carácter a carácter. Cada carácter añadido calcula sólo su
+     * columna de la tabla CYK, y tras cada uno la sesión indica si el prefijo
+     * leído pertenece al lenguaje.
+     *
+     * La gramática deberá estar en FNC. La sesión trabaja sobre la gramática
+     * actual: no le afectan las modificaciones posteriores.
+     *
+     * @return Una sesión nueva, sin caracteres leídos.
+     *
+     * @throws CFGAlgorithmsException Si la gramática es vacía, si carece de
+     *                                axioma o si no está en FNC.
+     */
+    public StreamingRecognizer newStreamingRecognizer() throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que calcula la tabla CYK de una palabra y la conserva para
+     * poder sustituir después sus caracteres uno a uno. Tras cada
+     * sustitución sólo se recalculan las celdas cuya subcadena contiene la
+     * posición modificada.
+     *
+     * La gramática deberá estar en FNC. La tabla trabaja sobre la gramática
+     * actual: no le afectan las modificaciones posteriores.
+     *
+     * @param word La palabra inicial, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return La tabla CYK de la palabra.
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma, si no
+     *                                está en FNC o si la palabra es demasiado larga para la tabla CYK.
+     */
+    public CYKTable newCYKTable(String word) throws CFGAlgorithmsException;
+
+
+
     /**
      * Método que, para una palabra, devuelve un String que contiene todas las
      * celdas calculadas por el algoritmo CYK (la visualización debe ser similar
@@ -52,4 +174,45 @@ public interface CYKInterface {
      */
     public String algorithmCYKStateToString(String word) throws CFGAlgorithmsException;
 
+
+
+    /**
+     * Método que escribe en out la tabla completa calculada por el algoritmo
+     * CYK para una palabra, en el mismo formato que
+     * {@link #algorithmCYKStateToString(String)}, pero sin construirla en
+     * memoria.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     * @param out  Destino de la tabla.
+     *
+     * @throws CFGAlgorithmsException En los mismos casos que
+     *                                {@link #algorithmCYKStateToString(String)}.
+     * @throws IOException            Si falla la escritura en out.
+     */
+    public void algorithmCYKStateToString(String word, Appendable out) throws CFGAlgorithmsException, IOException;
+
+
+
+    /**
+     * Método que escribe en out sólo una ventana de la tabla calculada por el
+     * algoritmo CYK: las filas (longitud de la subcadena, desde 1) en
+     * [fromRow, toRow) y las columnas (posición inicial, desde 0) en
+     * [fromColumn, toColumn).
+     *
+     * @param word       La palabra a verificar, tiene que estar formada sólo
+     *                   por elementos terminales.
+     * @param out        Destino de la tabla.
+     * @param fromRow    Primera fila que se escribe.
+     * @param toRow      Fila siguiente a la última que se escribe.
+     * @param fromColumn Primera columna que se escribe.
+     * @param toColumn   Columna siguiente a la última que se escribe.
+     *
+     * @throws CFGAlgorithmsException En los mismos casos que
+     *                                {@link #algorithmCYKStateToString(String)}.
+     * @throws IOException            Si falla la escritura en out.
+     */
+    public void algorithmCYKStateToString(String word, Appendable out, int fromRow, int toRow,
+                                          int fromColumn, int toColumn) throws CFGAlgorithmsException, IOException;
+
 }
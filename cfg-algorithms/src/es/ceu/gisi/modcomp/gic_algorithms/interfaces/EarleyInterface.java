@@ -0,0 +1,34 @@
+package es.ceu.gisi.modcomp.gic_algorithms.interfaces;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+
+
+
+/**
+ * Interfaz que proporciona un reconocedor alternativo al algoritmo CYK basado
+ * en el algoritmo de Earley. A diferencia de CYK, trabaja sobre cualquier
+ * gramática independiente del contexto (incluidas las reglas lambda), sin
+ * necesidad de transformarla antes a Forma Normal de Chomsky.
+ */
+public interface EarleyInterface {
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará el algoritmo de Earley
+     * para decidir si la palabra pertenece al lenguaje.
+     *
+     * La gramática no necesita estar en FNC ni ser bien formada.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía o si carece de axioma.
+     */
+    public boolean isDerivedUsingEarley(String word) throws CFGAlgorithmsException;
+
+}
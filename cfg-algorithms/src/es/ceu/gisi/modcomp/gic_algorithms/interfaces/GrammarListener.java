@@ -0,0 +1,74 @@
+package es.ceu.gisi.modcomp.gic_algorithms.interfaces;
+
+import java.util.Set;
+
+
+
+/**
+ * Interfaz para observar lo que ocurre dentro de CFGAlgorithms sin escribir
+ * en la consola. Cada transformación de la gramática (una "pasada") avisa al
+ * empezar y al terminar, con su duración y lo que ha eliminado.
+ *
+ * Todos los métodos tienen una implementación vacía, de modo que basta con
+ * sobrescribir los que interesen. Las pasadas se identifican por el nombre
+ * del método que las lanza: "removeUselessProductions",
+ * "removeLambdaProductions", "removeUnitProductions", "removeUselessSymbols"
+ * y "transformIntoCNF".
+ */
+public interface GrammarListener {
+
+    /**
+     * Oyente que ignora todos los eventos. Es el que se usa por defecto.
+     */
+    public static final GrammarListener NONE = new GrammarListener() {
+    };
+
+
+
+    /**
+     * Método que se invoca antes de empezar una pasada.
+     *
+     * @param pass Nombre de la pasada.
+     */
+    public default void passStarted(String pass) {
+    }
+
+
+
+    /**
+     * Método que se invoca cuando una pasada termina correctamente.
+     *
+     * @param pass               Nombre de la pasada.
+     * @param nanos              Duración de la pasada en nanosegundos.
+     * @param symbolsRemoved     Número de símbolos (terminales o no
+     *                           terminales) eliminados.
+     * @param productionsRemoved Número de producciones eliminadas.
+     */
+    public default void passFinished(String pass, long nanos, int symbolsRemoved, int productionsRemoved) {
+    }
+
+
+
+    /**
+     * Método que se invoca por cada símbolo que elimina una pasada.
+     *
+     * @param pass   Nombre de la pasada.
+     * @param symbol Símbolo eliminado.
+     */
+    public default void symbolRemoved(String pass, char symbol) {
+    }
+
+
+
+    /**
+     * Método que recibe las producciones de un no terminal cuando se vuelca
+     * el estado de la gramática con debugProductions().
+     *
+     * @param nonterminal Elemento no terminal.
+     * @param productions Producciones actuales, sin posibilidad de
+     *                    modificarlas.
+     */
+    public default void productions(char nonterminal, Set<String> productions) {
+    }
+
+}
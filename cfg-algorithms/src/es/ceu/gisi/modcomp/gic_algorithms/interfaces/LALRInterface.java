@@ -0,0 +1,59 @@
+package es.ceu.gisi.modcomp.gic_algorithms.interfaces;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.List;
+
+
+
+/**
+ * Interfaz que proporciona un reconocedor ascendente LALR(1), alternativo al
+ * algoritmo CYK, para las gramáticas deterministas que no son LL(1). Las
+ * tablas se construyen directamente sobre las producciones de la gramática.
+ */
+public interface LALRInterface {
+
+    /**
+     * Método que indica si la gramática es LALR(1), es decir, si ninguna
+     * celda de su tabla de acciones LALR(1) contiene más de una acción.
+     *
+     * @return TRUE si la gramática es LALR(1), FALSE en caso contrario.
+     */
+    public boolean isLALR1();
+
+
+
+    /**
+     * Método que devuelve las celdas de la tabla de acciones LALR(1) que
+     * contienen más de una acción, una por línea y con el formato
+     * "ACCION[3, a]: desplazar 5 | reducir A::=a". Los estados se numeran
+     * desde 0, que es el estado inicial, y la columna del fin de palabra se
+     * escribe '$'.
+     *
+     * @return Las celdas en conflicto (vacía si la gramática es LALR(1)).
+     */
+    public List<String> getLALR1Conflicts();
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará un analizador ascendente
+     * por desplazamiento y reducción con tablas LALR(1), lineal en la
+     * longitud de la palabra.
+     *
+     * La gramática no necesita estar en FNC, pero debe ser LALR(1).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                es LALR(1).
+     */
+    public boolean isDerivedUsingLALR1(String word) throws CFGAlgorithmsException;
+
+}
@@ -0,0 +1,91 @@
+package es.ceu.gisi.modcomp.gic_algorithms.interfaces;
+
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.List;
+import java.util.Set;
+
+
+
+/**
+ * Interfaz que proporciona el análisis LL(1) de la gramática: los conjuntos
+ * PRIMERO y SIGUIENTE, la detección de conflictos en la tabla de análisis
+ * predictivo y un reconocedor descendente lineal, alternativo al algoritmo
+ * CYK, para las gramáticas que son LL(1).
+ */
+public interface LL1Interface {
+
+    /**
+     * Método que devuelve el conjunto PRIMERO de un no terminal: los
+     * terminales con los que pueden empezar las palabras que deriva, más
+     * lambda ('l') si deriva la palabra vacía.
+     *
+     * @param nonterminal No terminal de la gramática.
+     *
+     * @return El conjunto PRIMERO del no terminal.
+     *
+     * @throws CFGAlgorithmsException Si el no terminal no forma parte de la
+     *                                gramática.
+     */
+    public Set<Character> getFirst(char nonterminal) throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que devuelve el conjunto SIGUIENTE de un no terminal: los
+     * terminales que pueden aparecer justo a su derecha en alguna forma
+     * sentencial, más '$' si puede aparecer al final.
+     *
+     * @param nonterminal No terminal de la gramática.
+     *
+     * @return El conjunto SIGUIENTE del no terminal.
+     *
+     * @throws CFGAlgorithmsException Si el no terminal no forma parte de la
+     *                                gramática.
+     */
+    public Set<Character> getFollow(char nonterminal) throws CFGAlgorithmsException;
+
+
+
+    /**
+     * Método que indica si la gramática es LL(1), es decir, si ninguna celda
+     * de su tabla de análisis predictivo contiene más de una producción.
+     *
+     * @return TRUE si la gramática es LL(1), FALSE en caso contrario.
+     */
+    public boolean isLL1();
+
+
+
+    /**
+     * Método que devuelve las celdas de la tabla de análisis predictivo que
+     * contienen más de una producción, una por línea y con el formato
+     * "M[A, a]: A::=aB | A::=ab". La columna del fin de palabra se escribe
+     * '$'.
+     *
+     * @return Las celdas en conflicto (vacía si la gramática es LL(1)).
+     */
+    public List<String> getLL1Conflicts();
+
+
+
+    /**
+     * Método que indica si una palabra pertenece al lenguaje generado por la
+     * gramática que se ha introducido. Se utilizará el análisis predictivo
+     * LL(1) con pila explícita, lineal en la longitud de la palabra.
+     *
+     * La gramática no necesita estar en FNC, pero debe ser LL(1).
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     *             elementos terminales.
+     *
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     *
+     * @throws CFGAlgorithmsException Si la palabra proporcionada no está
+     *                                formada sólo por terminales, si está formada por terminales que no
+     *                                pertenecen al conjunto de terminales definido para la gramática
+     *                                introducida, si la gramática es vacía, si carece de axioma o si no
+     *                                es LL(1).
+     */
+    public boolean isDerivedUsingLL1(String word) throws CFGAlgorithmsException;
+
+}
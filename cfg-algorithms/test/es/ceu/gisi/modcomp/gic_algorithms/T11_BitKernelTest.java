@@ -0,0 +1,124 @@
+package es.ceu.gisi.modcomp.gic_algorithms;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+
+/**
+ * Clase que testea BitKernel frente al bucle escalar. Está en el paquete de
+ * la implementación porque BitKernel no es pública.
+ *
+ * Con --add-modules jdk.incubator.vector (como se lanzan los tests desde
+ * build.xml) se comprueba la versión vectorial, incluidas las longitudes
+ * menores, iguales y mayores que un vector; sin el módulo, el bucle escalar.
+ */
+public class T11_BitKernelTest {
+
+    /**
+     * @return Longs por vector, o 8 si no se usa la Vector API, para
+     *         recorrer igualmente longitudes alrededor de un vector.
+     */
+    private static int longsVector() {
+        return BitKernel.isVectorized() ? BitKernel.getVectorLongs() : 8;
+    }
+
+
+
+    private static boolean escalar(long[] a, int desdeA, long[] b, int desdeB, int longitud) {
+        for (int k = 0; k < longitud; k++) {
+            if ((a[desdeA + k] & b[desdeB + k]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    @Test
+    public void comprobarNucleoVectorialDisponible() {
+        boolean modulo = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(modulo, BitKernel.isVectorized());
+        if (modulo) {
+            assertTrue(BitKernel.getVectorLongs() > 1);
+        }
+    }
+
+
+
+    @Test
+    public void comprobarInterseccionUnSoloBit() {
+        // Un único bit compartido en cada posición k: el vector que lo
+        // contiene o la cola escalar deben encontrarlo
+        int longs = longsVector();
+        int[] longitudes = {0, 1, longs - 1, longs, longs + 1, 2 * longs - 1, 2 * longs, 2 * longs + 1, 3 * longs + 3};
+        for (int longitud : longitudes) {
+            for (int desplazamiento = 0; desplazamiento < 3; desplazamiento++) {
+                long[] a = new long[longitud + 3];
+                long[] b = new long[longitud + 5];
+                for (int k = 0; k < longitud; k++) {
+                    a[desplazamiento + k] = -1L;
+                }
+                assertFalse(BitKernel.intersects(a, desplazamiento, b, 2, longitud));
+                for (int k = 0; k < longitud; k++) {
+                    b[2 + k] = 1L << 63;
+                    assertTrue("Longitud " + longitud + ", posición " + k,
+                               BitKernel.intersects(a, desplazamiento, b, 2, longitud));
+                    b[2 + k] = 0;
+                }
+                // Lo que queda fuera del rango no cuenta
+                b[1] = -1L;
+                b[2 + longitud] = -1L;
+                assertFalse(BitKernel.intersects(a, desplazamiento, b, 2, longitud));
+            }
+        }
+    }
+
+
+
+    @Test
+    public void comprobarInterseccionAleatoria() {
+        Random random = new Random(20261017);
+        int longs = longsVector();
+        int tamano = 8 * longs + 16;
+        long[] a = new long[tamano];
+        long[] b = new long[tamano];
+        int verdaderos = 0;
+        int falsos = 0;
+        for (int prueba = 0; prueba < 20000; prueba++) {
+            // Bits dispersos, para que salgan tanto intersecciones como no
+            for (int k = 0; k < tamano; k++) {
+                a[k] = random.nextInt(4) == 0 ? 1L << 62 + random.nextInt(2) : 0;
+                b[k] = random.nextInt(4) == 0 ? 1L << 62 + random.nextInt(2) : 0;
+            }
+            int longitud;
+            switch (prueba % 3) {
+                case 0:
+                    longitud = random.nextInt(longs);
+                    break;
+                case 1:
+                    longitud = longs + random.nextInt(2) - random.nextInt(2);
+                    break;
+                default:
+                    longitud = longs + random.nextInt(6 * longs);
+                    break;
+            }
+            int desdeA = random.nextInt(tamano - longitud + 1);
+            int desdeB = random.nextInt(tamano - longitud + 1);
+            boolean esperado = escalar(a, desdeA, b, desdeB, longitud);
+            assertEquals("Longitud " + longitud + " desde " + desdeA + " y " + desdeB,
+                         esperado, BitKernel.intersects(a, desdeA, b, desdeB, longitud));
+            if (esperado) {
+                verdaderos++;
+            } else {
+                falsos++;
+            }
+        }
+        assertTrue(verdaderos > 1000);
+        assertTrue(falsos > 1000);
+    }
+}
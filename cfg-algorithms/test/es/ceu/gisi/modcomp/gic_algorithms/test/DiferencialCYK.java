@@ -0,0 +1,110 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarGenerator;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongFunction;
+import static org.junit.Assert.assertEquals;
+
+
+
+/**
+ * Comprobación diferencial que comparten los tests de los reconocedores:
+ * sobre gramáticas aleatorias, cada reconocedor debe dar el mismo resultado
+ * que isDerivedUsignCYK con la gramática en FNC.
+ */
+final class DiferencialCYK {
+
+    /**
+     * Reconocedor que se compara con isDerivedUsignCYK.
+     */
+    interface Reconocedor {
+
+        boolean reconoce(CFGAlgorithms gramatica, String palabra) throws CFGAlgorithmsException;
+    }
+
+
+
+    /**
+     * Palabras con las que se compara una gramática.
+     */
+    interface Palabras {
+
+        List<String> de(CFGAlgorithms fnc, long semilla) throws CFGAlgorithmsException;
+    }
+
+
+
+    private DiferencialCYK() {
+    }
+
+
+
+    /**
+     * Genera una gramática por cada semilla de [desde, hasta), la pasa a FNC
+     * y comprueba que el reconocedor da el mismo resultado que
+     * isDerivedUsignCYK con cada una de las palabras.
+     *
+     * @param generador   Generador ya configurado para una semilla. Debe
+     *                    depender sólo de ella: si el reconocedor trabaja
+     *                    sobre la gramática original, se genera dos veces.
+     * @param palabras    Palabras que se comprueban con cada gramática.
+     * @param original    Si el reconocedor recibe la gramática tal y como se
+     *                    generó, en lugar de la gramática en FNC.
+     */
+    static void comprobar(long desde, long hasta, LongFunction<GrammarGenerator> generador, Palabras palabras,
+                          boolean original, Reconocedor reconocedor) throws CFGAlgorithmsException {
+        for (long semilla = desde; semilla < hasta; semilla++) {
+            CFGAlgorithms fnc = generador.apply(semilla).generate();
+            fnc.transformToWellFormedGrammar();
+            fnc.transformIntoCNF();
+            fnc.setRegularFastPath(false);
+
+            CFGAlgorithms reconocida = original ? generador.apply(semilla).generate() : fnc;
+            for (String palabra : palabras.de(fnc, semilla)) {
+                assertEquals("Semilla " + semilla + ", palabra \"" + palabra + "\"",
+                             fnc.isDerivedUsignCYK(palabra), reconocedor.reconoce(reconocida, palabra));
+            }
+        }
+    }
+
+
+
+    /**
+     * @return El corpus de GrammarGenerator con la semilla de la gramática
+     *         más 100: count palabras del lenguaje y count de fuera de él, de
+     *         hasta maxLength símbolos.
+     */
+    static Palabras corpus(int count, int maxLength) {
+        return (fnc, semilla) -> {
+            GrammarGenerator corpus = new GrammarGenerator(semilla + 100);
+            List<String> palabras = new ArrayList<>(corpus.positiveWords(fnc, count, maxLength));
+            palabras.addAll(corpus.negativeWords(fnc, count, maxLength));
+            return palabras;
+        };
+    }
+
+
+
+    /**
+     * @return Todas las palabras de hasta maxLength terminales de la
+     *         gramática en FNC, incluida la vacía.
+     */
+    static Palabras todas(int maxLength) {
+        return (fnc, semilla) -> {
+            List<Character> terminales = new ArrayList<>(fnc.getTerminals());
+            Collections.sort(terminales);
+            List<String> palabras = new ArrayList<>();
+            palabras.add("");
+            for (int desde = 0; desde < palabras.size() && palabras.get(desde).length() < maxLength; desde++) {
+                for (char c : terminales) {
+                    palabras.add(palabras.get(desde) + c);
+                }
+            }
+            return palabras;
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+
+
+/**
+ * Clase que testea el reconocedor LALR(1) y la detección de conflictos en
+ * su tabla de acciones.
+ */
+public class T10_LALRTest {
+
+    private CFGAlgorithms gica;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+
+
+    /**
+     * Gramática de expresiones recursiva por la izquierda (no es LL(1)), con
+     * 's' como suma, 'm' como producto y 'a' y 'c' como paréntesis:
+     * E::=EsT|T, T::=TmF|F, F::=aEc|i
+     */
+    private void crearGramaticaExpresiones() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        for (char nt : "ETF".toCharArray()) {
+            gica.addNonTerminal(nt);
+        }
+        for (char t : "smaci".toCharArray()) {
+            gica.addTerminal(t);
+        }
+        gica.setStartSymbol('E');
+
+        gica.addProduction('E', "EsT");
+        gica.addProduction('E', "T");
+        gica.addProduction('T', "TmF");
+        gica.addProduction('T', "F");
+        gica.addProduction('F', "aEc");
+        gica.addProduction('F', "i");
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionLALR1() throws CFGAlgorithmsException {
+        crearGramaticaExpresiones();
+
+        assertFalse(gica.isLL1());
+        assertTrue(gica.isLALR1());
+        assertTrue(gica.getLALR1Conflicts().isEmpty());
+
+        assertTrue(gica.isDerivedUsingLALR1("i"));
+        assertTrue(gica.isDerivedUsingLALR1("isimi"));
+        assertTrue(gica.isDerivedUsingLALR1("aisicmaic"));
+        assertFalse(gica.isDerivedUsingLALR1(""));
+        assertFalse(gica.isDerivedUsingLALR1("is"));
+        assertFalse(gica.isDerivedUsingLALR1("ai"));
+        assertFalse(gica.isDerivedUsingLALR1("ic"));
+        assertFalse(gica.isDerivedUsingLALR1("ii"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionLALR1PalabraLarga() throws CFGAlgorithmsException {
+        crearGramaticaExpresiones();
+
+        String palabra = "a".repeat(50000) + "i" + "sic".repeat(50000);
+        assertTrue(gica.isDerivedUsingLALR1(palabra));
+        assertFalse(gica.isDerivedUsingLALR1(palabra + "c"));
+        assertTrue(gica.isDerivedUsingLALR1("imis".repeat(100000) + "i"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionLALR1NoSLR() throws CFGAlgorithmsException {
+        // S::=LeR|R, L::=mR|i, R::=L: los SIGUIENTE no bastan para decidir
+        // entre desplazar 'e' y reducir R::=L, pero los anticipos LALR sí
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('L');
+        gica.addNonTerminal('R');
+        gica.addTerminal('e');
+        gica.addTerminal('m');
+        gica.addTerminal('i');
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "LeR");
+        gica.addProduction('S', "R");
+        gica.addProduction('L', "mR");
+        gica.addProduction('L', "i");
+        gica.addProduction('R', "L");
+
+        assertTrue(gica.isLALR1());
+        assertTrue(gica.isDerivedUsingLALR1("mmiemi"));
+        assertTrue(gica.isDerivedUsingLALR1("mi"));
+        assertFalse(gica.isDerivedUsingLALR1("iemie"));
+        assertFalse(gica.isDerivedUsingLALR1("m"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionConLambda() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "aSb");
+        gica.addProduction('S', "l");
+
+        assertTrue(gica.isDerivedUsingLALR1(""));
+        assertTrue(gica.isDerivedUsingLALR1("aaabbb"));
+        assertFalse(gica.isDerivedUsingLALR1("aabbb"));
+        assertFalse(gica.isDerivedUsingLALR1("ba"));
+    }
+
+
+
+    @Test
+    public void comprobarConflictosLALR1() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('E');
+        gica.addTerminal('s');
+        gica.addTerminal('i');
+        gica.setStartSymbol('E');
+
+        gica.addProduction('E', "EsE");
+        gica.addProduction('E', "i");
+
+        assertFalse(gica.isLALR1());
+        List<String> conflictos = gica.getLALR1Conflicts();
+        assertEquals(1, conflictos.size());
+        assertTrue(conflictos.get(0).startsWith("ACCION["));
+        assertTrue(conflictos.get(0).endsWith(", s]: desplazar 3 | reducir E::=EsE"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionNoLALR1() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SS");
+        gica.addProduction('S', "a");
+
+        gica.isDerivedUsingLALR1("aa");
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionNoValido() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+        crearGramaticaExpresiones();
+
+        gica.isDerivedUsingLALR1("isb");
+    }
+}
@@ -109,6 +109,38 @@ public class T1_CFGBasicTest {
 
 
 
+    @Test
+    public void comprobarEliminarNoTerminalValido() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addProduction('S', "ASa");
+        gica.addProduction('S', "Bb");
+        gica.addProduction('S', "b");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "AB");
+        gica.addProduction('B', "b");
+
+        gica.removeNonTerminal('A');
+        gica.removeTerminal('b');
+
+        assertTrue(gica.getNonTerminals().size() == 2);
+        assertEquals("", gica.getProductionsToString('S'));
+        assertEquals("", gica.getProductionsToString('B'));
+        assertTrue(gica.getProductions('A').isEmpty());
+
+        gica.addProduction('B', "a");
+        gica.addProduction('S', "Ba");
+        gica.removeNonTerminal('B');
+
+        assertEquals("", gica.getProductionsToString('S'));
+    }
+
+
+
     @Test
     public void comprobarAniadirNoTerminalValido() throws CFGAlgorithmsException {
         gica = new CFGAlgorithms();
@@ -491,4 +523,31 @@ public class T1_CFGBasicTest {
 
         assertTrue(gica.isCFG());
     }
+
+
+
+    @Test
+    public void comprobarCargaMasivaProducciones() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+
+        // 20000 producciones distintas: la codificación binaria de cada i
+        // con a y b. Cada modificación debe costar lo mismo sea cual sea el
+        // tamaño de la gramática, aunque se consulte a menudo entre medias.
+        int total = 20000;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            gica.addProduction('S', "a" + Integer.toBinaryString(i).replace('0', 'a').replace('1', 'b'));
+            if (i % 1000 == 0) {
+                assertEquals(i + 1, gica.getProductions('S').size());
+            }
+        }
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertEquals(total, gica.getProductions('S').size());
+        assertTrue("Carga de " + total + " producciones en " + milisegundos + " ms", milisegundos < 2000);
+    }
 }
@@ -1,9 +1,13 @@
 package es.ceu.gisi.modcomp.gic_algorithms.test;
 
 import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarMetrics;
 import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import static org.junit.Assert.*;
 import org.junit.Rule;
@@ -171,6 +175,128 @@ public class T2_WFCFGBasicTest {
 
 
 
+    @Test
+    public void eliminarSimbolosInnecesariosCadenaLarga() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        // S -> N1 -> N2 -> ... -> Nk -> a, con k no terminales en cadena
+        List<Character> cadena = new ArrayList<>();
+        for (char c = 'A'; cadena.size() < 1000; c++) {
+            if (Character.isUpperCase(c)) {
+                gica.addNonTerminal(c);
+                cadena.add(c);
+            }
+        }
+        gica.setStartSymbol(cadena.get(0));
+        for (int i = 0; i + 1 < cadena.size(); i++) {
+            gica.addProduction(cadena.get(i), "" + cadena.get(i + 1));
+        }
+        gica.addProduction(cadena.get(cadena.size() - 1), "a");
+
+        assertTrue(gica.removeUselessSymbols().isEmpty());
+        assertEquals(1000, gica.getNonTerminals().size());
+
+        // Sin la última producción no se genera ningún terminal
+        gica.removeProduction(cadena.get(cadena.size() - 1), "a");
+        List<Character> eliminados = gica.removeUselessSymbols();
+        assertEquals(1001, eliminados.size());
+        assertTrue(gica.getNonTerminals().isEmpty());
+        assertTrue(gica.getTerminals().isEmpty());
+    }
+
+
+
+    @Test
+    public void eliminarSimbolosInnecesariosCicloNoGenerativo() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.addTerminal('c');
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.setStartSymbol('S');
+
+        // A y B sólo se derivan el uno al otro
+        gica.addProduction('S', "a");
+        gica.addProduction('S', "A");
+        gica.addProduction('A', "bB");
+        gica.addProduction('B', "cA");
+
+        List<Character> eliminados = gica.removeUselessSymbols();
+
+        assertEquals(new HashSet<>(Arrays.asList('A', 'B', 'b', 'c')), new HashSet<>(eliminados));
+        assertEquals("S::=a", gica.getProductionsToString('S'));
+        assertEquals(1, gica.getTerminals().size());
+    }
+
+
+
+    @Test
+    public void eliminarSimbolosInnecesariosAxiomaNoGenerativo() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.setStartSymbol('S');
+
+        // S es alcanzable (es el axioma) pero nunca termina
+        gica.addProduction('S', "SA");
+        gica.addProduction('A', "a");
+
+        List<Character> eliminados = gica.removeUselessSymbols();
+
+        assertEquals(new HashSet<>(Arrays.asList('S', 'A', 'a')), new HashSet<>(eliminados));
+        assertTrue(gica.getNonTerminals().isEmpty());
+        assertTrue(gica.getTerminals().isEmpty());
+    }
+
+
+
+    @Test
+    public void eliminarSimbolosInnecesariosTerminalHuerfano() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('C');
+        gica.setStartSymbol('S');
+
+        // 'b' sólo aparece en una producción que se elimina con C
+        gica.addProduction('S', "a");
+        gica.addProduction('S', "bC");
+        gica.addProduction('C', "Cb");
+
+        List<Character> eliminados = gica.removeUselessSymbols();
+
+        assertEquals(new HashSet<>(Arrays.asList('C', 'b')), new HashSet<>(eliminados));
+        assertEquals("S::=a", gica.getProductionsToString('S'));
+        assertEquals(new HashSet<>(Arrays.asList('a')), gica.getTerminals());
+    }
+
+
+
+    @Test
+    public void eliminarSimbolosInnecesariosLambdaInterior() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.setStartSymbol('S');
+
+        // La 'l' dentro de la producción es la palabra vacía: no la hace
+        // no generativa
+        gica.addProduction('S', "aAl");
+        gica.addProduction('A', "b");
+
+        assertTrue(gica.removeUselessSymbols().isEmpty());
+        assertEquals("S::=aAl", gica.getProductionsToString('S'));
+        assertEquals("A::=b", gica.getProductionsToString('A'));
+    }
+
+
+
     @Test
     public void contieneProduccionesLambda1() throws CFGAlgorithmsException {
         gica = new CFGAlgorithms();
@@ -350,6 +476,60 @@ public class T2_WFCFGBasicTest {
 
 
 
+    @Test
+    public void eliminaProduccionesLambdaBinarizando() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+
+        gica.setStartSymbol('S');
+
+        StringBuilder larga = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            larga.append("aA");
+        }
+        gica.addProduction('S', larga.toString());
+        gica.addProduction('A', "a");
+        gica.addProduction('A', "l");
+
+        gica.removeLambdaProductions(true, 200, 2000);
+
+        assertEquals("A::=a", gica.getProductionsToString('A'));
+        assertEquals(2, gica.getProductions('S').size());
+        assertTrue(gica.isDerivedUsingEarley("aaaaaaaaaaaaaaaaaaaaaaaaa"));
+        assertFalse(gica.isDerivedUsingEarley("aaaaaaaaaaaaaaaaaaa"));
+    }
+
+
+
+    @Test
+    public void eliminaProduccionesLambdaExcedePresupuesto() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+        gica.addProduction('A', "a");
+        gica.addProduction('A', "l");
+
+        try {
+            gica.removeLambdaProductions(false, 1000, Long.MAX_VALUE);
+            fail("Se esperaba que se excediera el presupuesto");
+        } catch (CFGAlgorithmsException e) {
+            // La gramática debe quedar como estaba
+            assertEquals("A::=a|l", gica.getProductionsToString('A'));
+            assertEquals(1, gica.getProductions('S').size());
+        }
+    }
+
+
+
     @Test
     public void comprobarTieneReglasUnitarias1() throws CFGAlgorithmsException {
         gica = new CFGAlgorithms();
@@ -410,6 +590,36 @@ public class T2_WFCFGBasicTest {
 
 
 
+    @Test
+    public void eliminarReglasUnitariasCiclo() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "A");
+        gica.addProduction('A', "B");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "A");
+        gica.addProduction('B', "bB");
+
+        List<String> eliminadas = gica.removeUnitProductions();
+
+        assertFalse(gica.hasUnitProductions());
+        assertEquals(3, eliminadas.size());
+        assertTrue(eliminadas.contains("B::=A"));
+        assertEquals("S::=a|bB", gica.getProductionsToString('S'));
+        assertEquals("A::=a|bB", gica.getProductionsToString('A'));
+        assertEquals("B::=a|bB", gica.getProductionsToString('B'));
+    }
+
+
+
     @Test
     public void comprobarGramáticaBienFormada1() throws CFGAlgorithmsException {
         gica = new CFGAlgorithms();
@@ -454,6 +664,51 @@ public class T2_WFCFGBasicTest {
 
 
 
+    @Test
+    public void comprobarMetricasBienFormada() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('D');
+        gica.addNonTerminal('E');
+        gica.addNonTerminal('F');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "A");
+        gica.addProduction('S', "aE");
+        gica.addProduction('A', "aAS");
+        gica.addProduction('A', "l");
+        gica.addProduction('A', "Aa");
+        gica.addProduction('B', "Bb");
+        gica.addProduction('B', "b");
+        gica.addProduction('D', "Bb");
+        gica.addProduction('D', "l");
+        gica.addProduction('D', "bF");
+        gica.addProduction('E', "Eb");
+        gica.addProduction('F', "aD");
+
+        GrammarMetrics metricas = new GrammarMetrics();
+        gica.setGrammarListener(metricas);
+        gica.transformToWellFormedGrammar();
+
+        assertEquals(Arrays.asList("removeUselessProductions", "removeLambdaProductions",
+                                   "removeUnitProductions", "removeUselessSymbols"),
+                     new ArrayList<>(metricas.getPasses()));
+        assertEquals(1, metricas.getInvocations("removeUselessSymbols"));
+        assertEquals(2, metricas.getProductionsRemoved("removeLambdaProductions"));
+        assertEquals(2, metricas.getProductionsRemoved("removeUnitProductions"));
+        assertEquals(3, metricas.getSymbolsRemoved("removeUselessSymbols"));
+        assertEquals(0, metricas.getInvocations("transformIntoCNF"));
+    }
+
+
+
     @Test
     public void comprobarGramáticaBienFormada2() throws CFGAlgorithmsException {
         gica = new CFGAlgorithms();
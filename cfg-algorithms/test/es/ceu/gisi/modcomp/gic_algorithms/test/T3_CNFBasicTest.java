@@ -4,6 +4,7 @@ import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
 import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.Rule;
@@ -285,4 +286,39 @@ public class T3_CNFBasicTest {
         assertTrue(gica.getProductions(gica.getStartSymbol()).size() == 4);
     }
 
+
+
+    @Test
+    public void comprobarTransformIntoCNFSufijosCompartidos() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.addTerminal('c');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('C');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "ABC");
+        gica.addProduction('S', "CBC");
+        gica.addProduction('S', "aBC");
+        gica.addProduction('S', "bBCBC");
+
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+        gica.addProduction('C', "c");
+
+        gica.transformIntoCNF();
+
+        assertTrue(gica.isCNF());
+        // A, B y C ya sirven como proxies de a, b y c; BC, CBC y BCBC comparten sufijo
+        assertEquals(7, gica.getNonTerminals().size());
+        assertEquals(3, gica.getProductions(gica.getStartSymbol()).size());
+        assertTrue(gica.isDerivedUsignCYK("abc"));
+        assertTrue(gica.isDerivedUsignCYK("bbcbc"));
+        assertFalse(gica.isDerivedUsignCYK("bbc"));
+    }
 }
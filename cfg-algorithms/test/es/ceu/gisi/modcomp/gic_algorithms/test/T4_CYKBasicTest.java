@@ -1,11 +1,28 @@
 package es.ceu.gisi.modcomp.gic_algorithms.test;
 
 import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.CYKTable;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarGenerator;
+import es.ceu.gisi.modcomp.gic_algorithms.StreamingRecognizer;
 import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -165,4 +182,972 @@ public class T4_CYKBasicTest {
 
         assertFalse(gica.isDerivedUsignCYK("bbb"));
     }
+
+
+
+    @Test
+    public void comprobarDerivacionPalabraLarga() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('C');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "AC");
+
+        gica.addProduction('C', "SB");
+
+        gica.addProduction('A', "a");
+
+        gica.addProduction('B', "b");
+
+        assertTrue(gica.isDerivedUsignCYK("a".repeat(300) + "b".repeat(300)));
+        assertFalse(gica.isDerivedUsignCYK("a".repeat(300) + "b".repeat(299)));
+        assertFalse(gica.isDerivedUsignCYK("a".repeat(150) + "b".repeat(150) + "ab"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionParalela() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('C');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "BC");
+
+        gica.addProduction('A', "BA");
+        gica.addProduction('A', "a");
+
+        gica.addProduction('B', "CC");
+        gica.addProduction('B', "b");
+
+        gica.addProduction('C', "AB");
+        gica.addProduction('C', "a");
+
+        String[] palabras = {"baaba", "bbb", "ab".repeat(200), "baaba".repeat(80), "b".repeat(400)};
+        for (String palabra : palabras) {
+            gica.setCYKParallelThreshold(0);
+            boolean secuencial = gica.isDerivedUsignCYK(palabra);
+            gica.setCYKParallelThreshold(1);
+            assertEquals(secuencial, gica.isDerivedUsignCYK(palabra));
+        }
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionTablaReutilizada() throws CFGAlgorithmsException {
+
+        gica = new GrammarGenerator(9).setNonTerminalCount(10).generate();
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        gica.setCYKParallelThreshold(0);
+
+        // Las palabras se alternan entre largas y cortas para que la tabla de
+        // cada hilo se reutilice con restos de la palabra anterior
+        GrammarGenerator corpus = new GrammarGenerator(2);
+        List<String> palabras = new ArrayList<>(corpus.positiveWords(gica, 40, 30));
+        palabras.addAll(corpus.negativeWords(gica, 40, 30));
+        Collections.shuffle(palabras, new Random(4));
+        for (String palabra : palabras) {
+            assertEquals(gica.isDerivedUsingEarley(palabra), gica.isDerivedUsignCYK(palabra));
+        }
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionSinReservarTabla() throws CFGAlgorithmsException {
+        java.lang.management.ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(hilos instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean memoria = (com.sun.management.ThreadMXBean) hilos;
+        Assume.assumeTrue(memoria.isThreadAllocatedMemorySupported() && memoria.isThreadAllocatedMemoryEnabled());
+
+        gica = new GrammarGenerator(9).setNonTerminalCount(10).generate();
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        gica.setCYKParallelThreshold(0);
+        gica.setRegularFastPath(false);
+
+        // Una tabla de 300 caracteres ocupa 45150 celdas (más de 350 KB)
+        String palabra = new GrammarGenerator(7).positiveWords(gica, 1, 300).get(0);
+        String corta = palabra.substring(0, palabra.length() / 2);
+        for (int i = 0; i < 20; i++) {
+            gica.isDerivedUsignCYK(palabra);
+            gica.isDerivedUsignCYK(corta);
+        }
+
+        long hilo = Thread.currentThread().getId();
+        long antes = memoria.getThreadAllocatedBytes(hilo);
+        for (int i = 0; i < 50; i++) {
+            gica.isDerivedUsignCYK(palabra);
+            gica.isDerivedUsignCYK(corta);
+        }
+        long porPalabra = (memoria.getThreadAllocatedBytes(hilo) - antes) / 100;
+
+        // Con la tabla reutilizada sólo quedan reservas pequeñas, muy por
+        // debajo del tamaño de una tabla
+        assertTrue("Bytes reservados por palabra: " + porPalabra, porPalabra < 8 * 1024);
+
+        // Una palabra de 2000 caracteres necesita 2001000 longs (unos 16 MB)
+        // aunque cada celda ocupe un solo long: también se reutiliza. Cada
+        // reconocimiento tarda varios segundos, así que se mide sólo uno
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SA");
+        gica.addProduction('S', "a");
+        gica.addProduction('A', "a");
+        gica.setCYKParallelThreshold(0);
+        gica.setRegularFastPath(false);
+
+        String larga = "a".repeat(2000);
+        assertTrue(gica.isDerivedUsignCYK(larga));
+        antes = memoria.getThreadAllocatedBytes(hilo);
+        assertTrue(gica.isDerivedUsignCYK(larga));
+        long reservados = memoria.getThreadAllocatedBytes(hilo) - antes;
+        assertTrue("Bytes reservados por la palabra larga: " + reservados, reservados < 8 * 1024);
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionPalabraDemasiadoLarga() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+        thrown.expectMessage("demasiado larga");
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SS");
+        gica.addProduction('S', "a");
+        gica.setRegularFastPath(false);
+
+        // n(n+1)/2 celdas no caben en un array
+        gica.isDerivedUsignCYK("a".repeat(70000));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionPorLotes() throws CFGAlgorithmsException {
+
+        gica = new GrammarGenerator(3).setNonTerminalCount(12).generate();
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+
+        GrammarGenerator corpus = new GrammarGenerator(5);
+        List<String> palabras = new ArrayList<>(corpus.positiveWords(gica, 150, 20));
+        palabras.addAll(corpus.negativeWords(gica, 150, 20));
+        Collections.shuffle(palabras, new Random(1));
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(3);
+        try {
+            gica.setBatchExecutor(ejecutor);
+            BitSet resultado = gica.isDerivedBatch(palabras);
+            for (int i = 0; i < palabras.size(); i++) {
+                assertEquals(gica.isDerivedUsignCYK(palabras.get(i)), resultado.get(i));
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+
+        thrown.expect(CFGAlgorithmsException.class);
+        gica.isDerivedBatch(Arrays.asList("ab", "aXb"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionConCache() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        gica.setMembershipCacheSize(2);
+        assertTrue(gica.isDerivedUsignCYK("ab"));
+        assertTrue(gica.isDerivedUsignCYK("ab"));
+        assertFalse(gica.isDerivedUsignCYK("a"));
+        assertEquals(1, gica.getMembershipCacheHits());
+        assertEquals(2, gica.getMembershipCacheMisses());
+
+        // Al modificar la gramática cambia la época y la caché se vacía
+        long epoca = gica.getGrammarEpoch();
+        gica.addProduction('S', "a");
+        assertTrue(gica.getGrammarEpoch() > epoca);
+        assertTrue(gica.isDerivedUsignCYK("a"));
+        assertEquals(3, gica.getMembershipCacheMisses());
+
+        // Con capacidad 2 se expulsa la palabra usada hace más tiempo
+        assertTrue(gica.isDerivedUsignCYK("ab"));
+        assertTrue(gica.isDerivedUsignCYK("a"));
+        assertFalse(gica.isDerivedUsignCYK("b"));
+        assertTrue(gica.isDerivedUsignCYK("ab"));
+        assertEquals(2, gica.getMembershipCacheHits());
+        assertEquals(6, gica.getMembershipCacheMisses());
+
+        gica.setMembershipCacheSize(0);
+        assertTrue(gica.isDerivedUsignCYK("ab"));
+        assertEquals(0, gica.getMembershipCacheHits());
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionConCacheConcurrente() throws Exception {
+
+        gica = new GrammarGenerator(9).setNonTerminalCount(10).generate();
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        gica.setRegularFastPath(false);
+
+        GrammarGenerator corpus = new GrammarGenerator(3);
+        List<String> palabras = new ArrayList<>(corpus.positiveWords(gica, 30, 20));
+        palabras.addAll(corpus.negativeWords(gica, 30, 20));
+        List<Boolean> esperados = new ArrayList<>();
+        for (String palabra : palabras) {
+            esperados.add(gica.isDerivedUsignCYK(palabra));
+        }
+
+        // Menos capacidad que palabras, para que haya expulsiones a la vez
+        // que aciertos
+        gica.setMembershipCacheSize(palabras.size() / 2);
+        int hilos = 4;
+        int vueltas = 20;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Void>> tareas = new ArrayList<>();
+            for (int t = 0; t < hilos; t++) {
+                long semilla = t;
+                tareas.add(ejecutor.submit(() -> {
+                    Random random = new Random(semilla);
+                    for (int i = 0; i < vueltas * palabras.size(); i++) {
+                        int k = random.nextInt(palabras.size());
+                        assertEquals(esperados.get(k), gica.isDerivedUsignCYK(palabras.get(k)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+
+        long consultas = (long) hilos * vueltas * palabras.size();
+        assertEquals(consultas, gica.getMembershipCacheHits() + gica.getMembershipCacheMisses());
+        assertTrue(gica.getMembershipCacheHits() > 0);
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionConcurrente() throws Exception {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        // Un hilo modifica la gramática mientras otros la consultan: cada
+        // lector debe ver siempre una de las dos versiones completas
+        String sin = gica.getGrammar();
+        gica.addProduction('S', "a");
+        String con = gica.getGrammar();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> lectores = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                lectores.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        assertTrue(gica.isCNF());
+                        assertTrue(gica.isDerivedUsignCYK("ab"));
+                        gica.isDerivedUsignCYK("a");
+                        String gramatica = gica.getGrammar();
+                        assertTrue(gramatica.equals(sin) || gramatica.equals(con));
+                    }
+                    return null;
+                }));
+            }
+            Future<Void> escritor = ejecutor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    gica.removeProduction('S', "a");
+                    gica.addProduction('S', "a");
+                }
+                return null;
+            });
+            escritor.get();
+            for (Future<Void> lector : lectores) {
+                lector.get();
+            }
+        } finally {
+            ejecutor.shutdown();
+        }
+        assertTrue(gica.isDerivedUsignCYK("a"));
+    }
+
+
+
+    @Test
+    public void comprobarEstadoCYK() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "BA");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        assertEquals("\ta\tb\ta\n"
+                     + "1\t{A}\t{B}\t{A}\n"
+                     + "2\t{S}\t{S}\n"
+                     + "3\t{}\n", gica.algorithmCYKStateToString("aba"));
+    }
+
+
+
+    @Test
+    public void comprobarEstadoCYKPorVentanas() throws CFGAlgorithmsException, IOException {
+
+        gica = new GrammarGenerator(21).setNonTerminalCount(8).generate();
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+
+        String palabra = new GrammarGenerator(6).positiveWords(gica, 1, 40).get(0);
+        int n = palabra.length();
+        StringWriter completa = new StringWriter();
+        gica.algorithmCYKStateToString(palabra, completa);
+        assertEquals(gica.algorithmCYKStateToString(palabra), completa.toString());
+
+        String[] filas = completa.toString().split("\n");
+        assertEquals(n + 1, filas.length);
+
+        // Cada ventana debe coincidir con el recorte de la tabla completa
+        int[][] ventanas = {{1, 3, 0, n}, {2, n + 1, n / 2, n}, {n / 3, n / 2, 1, n / 4}, {1, n + 5, -3, n + 7}};
+        for (int[] v : ventanas) {
+            int desdeFila = Math.max(1, v[0]);
+            int hastaFila = Math.min(n + 1, v[1]);
+            int desdeColumna = Math.max(0, v[2]);
+            int hastaColumna = Math.min(n, v[3]);
+
+            StringBuilder esperada = new StringBuilder();
+            for (int c = desdeColumna; c < hastaColumna; c++) {
+                esperada.append('\t').append(palabra.charAt(c));
+            }
+            esperada.append('\n');
+            for (int len = desdeFila; len < hastaFila; len++) {
+                String[] celdas = filas[len].split("\t");
+                esperada.append(len);
+                for (int c = desdeColumna; c < hastaColumna && c + len <= n; c++) {
+                    esperada.append('\t').append(celdas[c + 1]);
+                }
+                esperada.append('\n');
+            }
+
+            StringBuilder ventana = new StringBuilder();
+            gica.algorithmCYKStateToString(palabra, ventana, v[0], v[1], v[2], v[3]);
+            assertEquals(esperada.toString(), ventana.toString());
+        }
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionGramaticaRegular() throws CFGAlgorithmsException {
+
+        // Lineal por la derecha: (ab)*c y lineal por la izquierda: c(ab)*
+        String[][] gramaticas = {{"S", "abS", "c"}, {"S", "Sab", "c"}};
+        for (String[] producciones : gramaticas) {
+            gica = new CFGAlgorithms();
+
+            gica.addNonTerminal('S');
+
+            gica.addTerminal('a');
+            gica.addTerminal('b');
+            gica.addTerminal('c');
+
+            gica.setStartSymbol('S');
+
+            gica.addProduction('S', producciones[1]);
+            gica.addProduction('S', producciones[2]);
+            assertTrue(gica.isRegular());
+
+            gica.transformToWellFormedGrammar();
+            gica.transformIntoCNF();
+            assertTrue(gica.isRegular());
+
+            // Todas las palabras de hasta 7 símbolos, con y sin el autómata
+            List<String> palabras = new ArrayList<>();
+            palabras.add("");
+            for (int desde = 0; palabras.get(desde).length() < 7; desde++) {
+                for (char c : new char[]{'a', 'b', 'c'}) {
+                    palabras.add(palabras.get(desde) + c);
+                }
+            }
+            for (String palabra : palabras) {
+                gica.setRegularFastPath(true);
+                boolean conAutomata = gica.isDerivedUsignCYK(palabra);
+                gica.setRegularFastPath(false);
+                assertEquals(gica.isDerivedUsignCYK(palabra), conAutomata);
+                assertEquals(gica.isDerivedUsingEarley(palabra), conAutomata);
+            }
+            gica.setRegularFastPath(true);
+            assertTrue(gica.isDerivedUsignCYK(producciones[1].startsWith("S") ? "cabab" : "ababc"));
+            assertEquals(1, gica.isDerivedBatch(Arrays.asList(producciones[1].startsWith("S") ? "cab" : "abc", "cc")).cardinality());
+        }
+    }
+
+
+
+    @Test
+    public void comprobarGramaticaNoRegular() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "aSb");
+        gica.addProduction('S', "ab");
+        assertFalse(gica.isRegular());
+
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        assertFalse(gica.isRegular());
+        assertTrue(gica.isDerivedUsignCYK("aaabbb"));
+        assertFalse(gica.isDerivedUsignCYK("aabbb"));
+    }
+
+
+
+    /**
+     * Genera una gramática aleatoria por cada semilla de [desde, hasta), la
+     * pasa a FNC y comprueba que el reconocedor da el mismo resultado que
+     * isDerivedUsignCYK con palabras del lenguaje y de fuera de él.
+     *
+     * @param noTerminales Número de no terminales de cada gramática.
+     * @param palabras     Número de palabras de cada clase (dentro y fuera).
+     * @param longitud     Longitud máxima de las palabras.
+     */
+    private static void comprobarFrenteACYK(long desde, long hasta, int noTerminales, int palabras, int longitud,
+                                            DiferencialCYK.Reconocedor reconocedor) throws CFGAlgorithmsException {
+        DiferencialCYK.comprobar(desde, hasta, semilla -> new GrammarGenerator(semilla).setNonTerminalCount(noTerminales),
+                                 DiferencialCYK.corpus(palabras, longitud), false, reconocedor);
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionIncremental() throws CFGAlgorithmsException {
+
+        comprobarFrenteACYK(6, 8, 10, 20, 25, (g, palabra) -> {
+            StreamingRecognizer sesion = g.newStreamingRecognizer();
+            for (int i = 0; i < palabra.length(); i++) {
+                // Cada prefijo se compara con el reconocimiento desde cero
+                assertEquals(g.isDerivedUsignCYK(palabra.substring(0, i + 1)), sesion.append(palabra.charAt(i)));
+            }
+            assertEquals(palabra.length(), sesion.length());
+            return sesion.isMember();
+        });
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionIncrementalPrefijoVacio() throws CFGAlgorithmsException {
+
+        // S::=aSb|l: el prefijo vacío pertenece al lenguaje
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "aSb");
+        gica.addProduction('S', "l");
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+
+        StreamingRecognizer sesion = gica.newStreamingRecognizer();
+        assertEquals(0, sesion.length());
+        assertTrue(gica.isDerivedUsignCYK(""));
+        assertTrue(sesion.isMember());
+        assertTrue(sesion.append(""));
+        assertEquals(0, sesion.length());
+
+        assertFalse(sesion.append('a'));
+        assertTrue(sesion.append('b'));
+        sesion.reset();
+        assertEquals(0, sesion.length());
+        assertTrue(sesion.isMember());
+
+        // Sin la producción vacía, el prefijo vacío ya no pertenece
+        gica.removeProduction('S', "l");
+        gica.addProduction('S', "ab");
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        sesion = gica.newStreamingRecognizer();
+        assertFalse(gica.isDerivedUsignCYK(""));
+        assertFalse(sesion.isMember());
+        assertFalse(sesion.append(""));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionIncrementalNoTerminal() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "SS");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        StreamingRecognizer sesion = gica.newStreamingRecognizer();
+        assertTrue(sesion.append("ab"));
+
+        // Ni un no terminal ni un carácter desconocido se añaden al prefijo
+        for (char c : new char[]{'S', 'A', 'c', 'l'}) {
+            try {
+                sesion.append(c);
+                fail("Se esperaba que se rechazara " + c);
+            } catch (CFGAlgorithmsException e) {
+                assertEquals(2, sesion.length());
+                assertTrue(sesion.isMember());
+            }
+        }
+        assertFalse(sesion.append('a'));
+        assertTrue(sesion.append('b'));
+        assertEquals(4, sesion.length());
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionIncrementalGramaticaFija() throws CFGAlgorithmsException {
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "SS");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        StreamingRecognizer sesion = gica.newStreamingRecognizer();
+        assertFalse(sesion.append('a'));
+        assertTrue(sesion.append('b'));
+
+        // La sesión sigue con la gramática que había al crearla
+        gica.removeProduction('S', "SS");
+        assertFalse(sesion.append("a"));
+        assertTrue(sesion.append("b"));
+        assertFalse(gica.isDerivedUsignCYK("abab"));
+
+        thrown.expect(CFGAlgorithmsException.class);
+        sesion.append('c');
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionTrasEdicion() throws CFGAlgorithmsException {
+
+        Random random = new Random(13);
+        comprobarFrenteACYK(11, 13, 8, 10, 30, (g, palabra) -> {
+            CYKTable tabla = g.newCYKTable(palabra);
+            if (palabra.isEmpty()) {
+                return tabla.isMember();
+            }
+            List<Character> terminales = new ArrayList<>(g.getTerminals());
+            Collections.sort(terminales);
+            for (int e = 0; e < 30; e++) {
+                int posicion = random.nextInt(palabra.length());
+                char terminal = terminales.get(random.nextInt(terminales.size()));
+                boolean pertenece = tabla.replace(posicion, terminal);
+
+                // El resultado coincide con rellenar la tabla desde cero
+                assertEquals(g.isDerivedUsignCYK(tabla.getWord()), pertenece);
+            }
+            // Deshaciendo las ediciones se vuelve a la palabra original
+            for (int i = 0; i < palabra.length(); i++) {
+                tabla.replace(i, palabra.charAt(i));
+            }
+            assertEquals(palabra, tabla.getWord());
+            return tabla.isMember();
+        });
+    }
+
+
+
+    @Test
+    public void comprobarEdicionExtremos() throws CFGAlgorithmsException {
+
+        // S::=SS|AB, A::=a, B::=b: secuencias de "ab"
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SS");
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        CYKTable tabla = gica.newCYKTable("ababab");
+        assertTrue(tabla.isMember());
+
+        // Primera y última posición
+        assertFalse(tabla.replace(0, 'b'));
+        assertEquals("bbabab", tabla.getWord());
+        assertTrue(tabla.replace(0, 'a'));
+        assertFalse(tabla.replace(5, 'a'));
+        assertEquals("ababaa", tabla.getWord());
+        assertTrue(tabla.replace(5, 'b'));
+
+        // El mismo carácter no cambia la palabra ni el resultado, tampoco
+        // justo después de otra edición
+        assertTrue(tabla.replace(0, 'a'));
+        assertTrue(tabla.replace(5, 'b'));
+        assertFalse(tabla.replace(2, 'b'));
+        assertFalse(tabla.replace(2, 'b'));
+        assertEquals("abbbab", tabla.getWord());
+        assertTrue(tabla.replace(2, 'a'));
+        assertEquals("ababab", tabla.getWord());
+
+        // Palabra de un solo carácter: la primera posición es la última
+        tabla = gica.newCYKTable("a");
+        assertFalse(tabla.isMember());
+        assertFalse(tabla.replace(0, 'b'));
+        assertFalse(tabla.replace(0, 'b'));
+        assertEquals("b", tabla.getWord());
+
+        // Extremos de palabras aleatorias, con todos los terminales,
+        // incluido el que ya estaba
+        comprobarFrenteACYK(14, 16, 8, 10, 30, (g, palabra) -> {
+            CYKTable aleatoria = g.newCYKTable(palabra);
+            if (palabra.isEmpty()) {
+                return aleatoria.isMember();
+            }
+            for (int posicion : new int[]{0, palabra.length() - 1}) {
+                for (char terminal : g.getTerminals()) {
+                    assertEquals(g.isDerivedUsignCYK(aleatoria.getWord().substring(0, posicion) + terminal
+                                                      + aleatoria.getWord().substring(posicion + 1)),
+                                 aleatoria.replace(posicion, terminal));
+                }
+                aleatoria.replace(posicion, palabra.charAt(posicion));
+            }
+            return aleatoria.isMember();
+        });
+    }
+
+
+
+    @Test
+    public void comprobarEdicionNoValida() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        CYKTable tabla = gica.newCYKTable("ab");
+        assertTrue(tabla.isMember());
+        assertFalse(tabla.replace(1, 'a'));
+        assertTrue(tabla.replace(1, 'b'));
+
+        tabla.replace(0, 'c');
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionDescendente() throws CFGAlgorithmsException {
+
+        comprobarFrenteACYK(30, 34, 8, 15, 30, (g, palabra) -> g.isDerivedUsingTopDown(palabra));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionDescendenteNoFNC() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "aSb");
+        gica.addProduction('S', "ab");
+
+        gica.isDerivedUsingTopDown("aabb");
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionDescendentePalabraLarga() throws Exception {
+
+        // Paréntesis anidados: S::=BS|B, B::=aSb|ab
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('B');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "BS");
+        gica.addProduction('S', "B");
+        gica.addProduction('B', "aSb");
+        gica.addProduction('B', "ab");
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+
+        // La derivación anida miles de pares (A, subcadena): con una pila de
+        // hilo de 256 KB, una versión recursiva desbordaría la pila
+        String palabra = "a".repeat(5000) + "ab".repeat(500) + "b".repeat(5000);
+        boolean[] resultados = new boolean[3];
+        Throwable[] error = new Throwable[1];
+        Thread hilo = new Thread(null, () -> {
+            try {
+                resultados[0] = gica.isDerivedUsingTopDown(palabra);
+                resultados[1] = gica.isDerivedUsingTopDown(palabra + "a");
+                resultados[2] = gica.isDerivedUsingTopDown("b" + palabra);
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "pila-reducida", 256 * 1024);
+        hilo.start();
+        hilo.join();
+
+        assertEquals(null, error[0]);
+        assertTrue(resultados[0]);
+        assertFalse(resultados[1]);
+        assertFalse(resultados[2]);
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionMatricial() throws CFGAlgorithmsException {
+
+        comprobarFrenteACYK(40, 44, 10, 10, 150, (g, palabra) -> {
+            try {
+                g.setCYKParallelThreshold(0);
+                boolean secuencial = g.isDerivedUsingMatrixCYK(palabra);
+                // Con umbral 1 los bloques se reparten entre hilos
+                g.setCYKParallelThreshold(1);
+                assertEquals(palabra, secuencial, g.isDerivedUsingMatrixCYK(palabra));
+                return secuencial;
+            } finally {
+                g.setCYKParallelThreshold(CFGAlgorithms.DEFAULT_CYK_PARALLEL_THRESHOLD);
+            }
+        });
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionMatricialLimitesBloque() throws CFGAlgorithmsException {
+
+        // Longitudes alrededor de los bloques de 64 posiciones, con la
+        // palabra original y todas las que difieren en un carácter
+        int[] longitudes = {63, 64, 65, 128};
+        Random random = new Random(45);
+        for (int gramatica = 0; gramatica < 2; gramatica++) {
+            String alfabeto = gramatica == 0 ? "abc" : "ab";
+            gica = new CFGAlgorithms();
+            gica.addNonTerminal('S');
+            for (char c : alfabeto.toCharArray()) {
+                gica.addTerminal(c);
+            }
+            gica.setStartSymbol('S');
+            if (gramatica == 0) {
+                // Palíndromos de longitud impar con c en el centro
+                gica.addProduction('S', "aSa");
+                gica.addProduction('S', "bSb");
+                gica.addProduction('S', "c");
+            } else {
+                // Secuencias de "ab"
+                gica.addProduction('S', "SS");
+                gica.addProduction('S', "ab");
+            }
+            gica.transformToWellFormedGrammar();
+            gica.transformIntoCNF();
+            gica.setRegularFastPath(false);
+
+            for (int longitud : longitudes) {
+                String palabra;
+                if (gramatica == 0) {
+                    StringBuilder mitad = new StringBuilder();
+                    for (int i = 0; i < (longitud - 1) / 2; i++) {
+                        mitad.append(random.nextBoolean() ? 'a' : 'b');
+                    }
+                    palabra = mitad + "c" + new StringBuilder(mitad).reverse() + (longitud % 2 == 0 ? "a" : "");
+                } else {
+                    palabra = "ab".repeat(longitud / 2) + (longitud % 2 == 0 ? "" : "a");
+                }
+                assertEquals(longitud, palabra.length());
+                assertEquals(longitud % 2 == (gramatica == 0 ? 1 : 0), gica.isDerivedUsignCYK(palabra));
+
+                List<String> palabras = new ArrayList<>();
+                palabras.add(palabra);
+                for (int i = 0; i < longitud; i++) {
+                    char siguiente = alfabeto.charAt((alfabeto.indexOf(palabra.charAt(i)) + 1) % alfabeto.length());
+                    palabras.add(palabra.substring(0, i) + siguiente + palabra.substring(i + 1));
+                }
+                for (String p : palabras) {
+                    gica.setCYKParallelThreshold(CFGAlgorithms.DEFAULT_CYK_PARALLEL_THRESHOLD);
+                    boolean esperado = gica.isDerivedUsignCYK(p);
+                    // Secuencial, justo en el umbral paralelo y justo por debajo
+                    for (int umbral : new int[]{0, longitud, longitud + 1}) {
+                        gica.setCYKParallelThreshold(umbral);
+                        assertEquals(p + " con umbral " + umbral, esperado, gica.isDerivedUsingMatrixCYK(p));
+                    }
+                }
+                gica.setCYKParallelThreshold(CFGAlgorithms.DEFAULT_CYK_PARALLEL_THRESHOLD);
+            }
+        }
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionMatricialPalabraLarga() throws CFGAlgorithmsException {
+
+        // S::=SS|AB, A::=a, B::=b: secuencias de "ab"
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SS");
+        gica.addProduction('S', "AB");
+        gica.addProduction('A', "a");
+        gica.addProduction('B', "b");
+
+        String palabra = "ab".repeat(1000);
+        assertTrue(gica.isDerivedUsingMatrixCYK(palabra));
+        assertFalse(gica.isDerivedUsingMatrixCYK(palabra + "a"));
+        assertFalse(gica.isDerivedUsingMatrixCYK("b" + palabra.substring(1)));
+        assertFalse(gica.isDerivedUsingMatrixCYK(""));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionMatricialPalabraDemasiadoLarga() throws CFGAlgorithmsException {
+
+        // S::=SS|a: S necesita matriz de filas y de columnas
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "SS");
+        gica.addProduction('S', "a");
+
+        // Una matriz de n²/64 longs no cabe en el heap
+        double longs = Runtime.getRuntime().maxMemory() / (double) Long.BYTES;
+        int n = (int) Math.sqrt(64 * longs) + 64;
+        if (n < 360000) {
+            try {
+                gica.isDerivedUsingMatrixCYK("a".repeat(n));
+                fail("Se esperaba que se rechazara una palabra de " + n + " caracteres");
+            } catch (CFGAlgorithmsException e) {
+                assertTrue(e.getMessage().contains("demasiado larga"));
+            }
+        }
+
+        // (n + 1)·(n/64 + 1) longs ya no caben en un array, sea cual sea el heap
+        thrown.expect(CFGAlgorithmsException.class);
+        thrown.expectMessage("demasiado larga");
+        gica.isDerivedUsingMatrixCYK("a".repeat(400000));
+    }
 }
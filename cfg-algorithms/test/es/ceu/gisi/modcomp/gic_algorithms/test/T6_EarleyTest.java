@@ -0,0 +1,133 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarGenerator;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+
+
+/**
+ * Clase que testea el correcto funcionamiento del reconocedor de Earley, que
+ * trabaja directamente sobre la gramática sin transformarla a FNC.
+ */
+public class T6_EarleyTest {
+
+    private CFGAlgorithms gica;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+
+
+    @Test
+    public void comprobarDerivacionNoValido() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "aS");
+        gica.addProduction('S', "a");
+
+        gica.isDerivedUsingEarley("ab");
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionConLambda() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "aSb");
+        gica.addProduction('S', "l");
+
+        assertTrue(gica.isDerivedUsingEarley(""));
+        assertTrue(gica.isDerivedUsingEarley("ab"));
+        assertTrue(gica.isDerivedUsingEarley("aaabbb"));
+        assertFalse(gica.isDerivedUsingEarley("aabbb"));
+        assertFalse(gica.isDerivedUsingEarley("ba"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionRecursivaPorLaDerecha() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('T');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "aS");
+        gica.addProduction('S', "T");
+        gica.addProduction('T', "bT");
+        gica.addProduction('T', "l");
+
+        assertTrue(gica.isDerivedUsingEarley("a".repeat(20000) + "b".repeat(20000)));
+        assertFalse(gica.isDerivedUsingEarley("a".repeat(20000) + "b".repeat(20000) + "a"));
+    }
+
+
+
+    @Test
+    public void comprobarMismoResultadoQueCYK() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('C');
+
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "BC");
+
+        gica.addProduction('A', "BA");
+        gica.addProduction('A', "a");
+
+        gica.addProduction('B', "CC");
+        gica.addProduction('B', "b");
+
+        gica.addProduction('C', "AB");
+        gica.addProduction('C', "a");
+
+        String[] palabras = {"baaba", "bbb", "ab", "abab", "aabba", "babbaab"};
+        for (String palabra : palabras) {
+            assertEquals(gica.isDerivedUsignCYK(palabra), gica.isDerivedUsingEarley(palabra));
+        }
+    }
+
+
+
+    @Test
+    public void comprobarMismoResultadoQueCYKGramaticasAleatorias() throws CFGAlgorithmsException {
+
+        // Gramáticas sin transformar, con reglas lambda y cadenas de reglas
+        // unitarias: Earley trabaja sobre ellas y CYK sobre su FNC, con
+        // todas las palabras de hasta 8 símbolos
+        DiferencialCYK.comprobar(50, 62,
+                                 semilla -> new GrammarGenerator(semilla)
+                                         .setNonTerminalCount(6)
+                                         .setNullableRatio(0.4)
+                                         .setUnitChainDepth(3)
+                                         .setAmbiguity(0.3),
+                                 DiferencialCYK.todas(8), true,
+                                 (g, palabra) -> g.isDerivedUsingEarley(palabra));
+    }
+}
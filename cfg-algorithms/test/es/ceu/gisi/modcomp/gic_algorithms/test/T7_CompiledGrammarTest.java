@@ -0,0 +1,109 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.CompiledGrammar;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+
+/**
+ * Clase que testea la instantánea compilada de la gramática: numeración de
+ * símbolos, producciones planas y los conjuntos precalculados.
+ */
+public class T7_CompiledGrammarTest {
+
+    private CFGAlgorithms gica;
+
+
+
+    private void crearGramatica() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+
+        gica.addNonTerminal('S');
+        gica.addNonTerminal('A');
+        gica.addNonTerminal('B');
+        gica.addNonTerminal('C');
+        gica.addNonTerminal('D');
+
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "AB");
+        gica.addProduction('S', "C");
+        gica.addProduction('A', "aA");
+        gica.addProduction('A', "l");
+        gica.addProduction('B', "b");
+        gica.addProduction('C', "Cb");
+        gica.addProduction('D', "a");
+    }
+
+
+
+    @Test
+    public void comprobarSimbolosYProducciones() throws CFGAlgorithmsException {
+        crearGramatica();
+        CompiledGrammar g = gica.compile();
+
+        assertEquals(5, g.getNonTerminalCount());
+        assertEquals(2, g.getTerminalCount());
+        assertEquals(7, g.getProductionCount());
+        assertEquals('S', g.getSymbol(g.getStartSymbol()));
+        assertTrue(g.isNonTerminal(g.getSymbolId('C')));
+        assertFalse(g.isNonTerminal(g.getSymbolId('a')));
+        assertEquals(-1, g.getSymbolId('z'));
+
+        int a = g.getSymbolId('A');
+        assertEquals(2, g.getProductionsEnd(a) - g.getProductionsStart(a));
+        // Las producciones de cada no terminal están ordenadas: "aA" y "l"
+        int p = g.getProductionsStart(a);
+        assertEquals(2, g.getProductionLength(p));
+        assertEquals(g.getSymbolId('a'), g.getProductionSymbol(p, 0));
+        assertEquals(0, g.getProductionLength(p + 1));
+    }
+
+
+
+    @Test
+    public void comprobarConjuntosPrecalculados() throws CFGAlgorithmsException {
+        crearGramatica();
+        CompiledGrammar g = gica.compile();
+
+        assertTrue(g.isNullable(g.getSymbolId('A')));
+        assertFalse(g.isNullable(g.getSymbolId('S')));
+
+        assertTrue(g.isGenerating(g.getSymbolId('S')));
+        assertFalse(g.isGenerating(g.getSymbolId('C')));
+
+        assertTrue(g.isReachable(g.getSymbolId('C')));
+        assertFalse(g.isReachable(g.getSymbolId('D')));
+
+        assertTrue(g.isUnitReachable(g.getSymbolId('S'), g.getSymbolId('C')));
+        assertTrue(g.isUnitReachable(g.getSymbolId('S'), g.getSymbolId('S')));
+        assertFalse(g.isUnitReachable(g.getSymbolId('C'), g.getSymbolId('S')));
+
+        assertFalse(g.isCNF());
+    }
+
+
+
+    @Test
+    public void comprobarInstantaneaInmutable() throws CFGAlgorithmsException {
+        crearGramatica();
+        CompiledGrammar antes = gica.compile();
+        assertSame(antes, gica.compile());
+
+        gica.addProduction('C', "a");
+        CompiledGrammar despues = gica.compile();
+
+        assertNotSame(antes, despues);
+        assertFalse(antes.isGenerating(antes.getSymbolId('C')));
+        assertTrue(despues.isGenerating(despues.getSymbolId('C')));
+    }
+}
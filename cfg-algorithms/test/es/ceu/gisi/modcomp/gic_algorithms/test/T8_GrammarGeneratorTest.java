@@ -0,0 +1,83 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.GrammarGenerator;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+
+/**
+ * Clase que testea el generador de gramáticas y corpus: que sea
+ * reproducible y que los corpus positivos y negativos sean correctos también
+ * después de transformar la gramática a FNC.
+ */
+public class T8_GrammarGeneratorTest {
+
+    private GrammarGenerator crearGenerador(long semilla) {
+        return new GrammarGenerator(semilla)
+                .setNonTerminalCount(40)
+                .setMaxProductionLength(4)
+                .setNullableRatio(0.3)
+                .setUnitChainDepth(6)
+                .setAmbiguity(0.2);
+    }
+
+
+
+    @Test
+    public void comprobarGeneracionReproducible() throws CFGAlgorithmsException {
+        GrammarGenerator uno = crearGenerador(7);
+        GrammarGenerator otro = crearGenerador(7);
+        CFGAlgorithms g1 = uno.generate();
+        CFGAlgorithms g2 = otro.generate();
+
+        assertEquals(g1.getGrammar(), g2.getGrammar());
+        assertEquals(uno.positiveWords(g1, 20, 30), otro.positiveWords(g2, 20, 30));
+        assertEquals(uno.negativeWords(g1, 20, 10), otro.negativeWords(g2, 20, 10));
+    }
+
+
+
+    @Test
+    public void comprobarCorpusPositivo() throws CFGAlgorithmsException {
+        GrammarGenerator generador = crearGenerador(11);
+        CFGAlgorithms gica = generador.generate();
+        assertTrue(gica.hasLambdaProductions());
+        assertTrue(gica.hasUnitProductions());
+
+        List<String> positivas = generador.positiveWords(gica, 100, 40);
+        assertEquals(100, positivas.size());
+        for (String palabra : positivas) {
+            assertTrue(palabra.length() <= 40);
+            assertTrue(gica.isDerivedUsingEarley(palabra));
+        }
+
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        for (String palabra : positivas) {
+            assertTrue(gica.isDerivedUsignCYK(palabra));
+        }
+    }
+
+
+
+    @Test
+    public void comprobarCorpusNegativo() throws CFGAlgorithmsException {
+        GrammarGenerator generador = crearGenerador(13).setProductionsPerNonTerminal(2);
+        CFGAlgorithms gica = generador.generate();
+
+        List<String> negativas = generador.negativeWords(gica, 50, 12);
+        assertFalse(negativas.isEmpty());
+
+        gica.transformToWellFormedGrammar();
+        gica.transformIntoCNF();
+        for (String palabra : negativas) {
+            assertFalse(gica.isDerivedUsignCYK(palabra));
+        }
+    }
+}
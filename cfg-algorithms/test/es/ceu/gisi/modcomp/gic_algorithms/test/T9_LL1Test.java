@@ -0,0 +1,157 @@
+package es.ceu.gisi.modcomp.gic_algorithms.test;
+
+import es.ceu.gisi.modcomp.gic_algorithms.CFGAlgorithms;
+import es.ceu.gisi.modcomp.gic_algorithms.exceptions.CFGAlgorithmsException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+
+
+/**
+ * Clase que testea el análisis LL(1): los conjuntos PRIMERO y SIGUIENTE, la
+ * detección de conflictos y el reconocedor predictivo.
+ */
+public class T9_LL1Test {
+
+    private CFGAlgorithms gica;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+
+
+    /**
+     * Gramática de expresiones sin recursividad por la izquierda, con 's' como
+     * suma, 'm' como producto y 'a' y 'c' como paréntesis:
+     * E::=TX, X::=sTX|l, T::=FY, Y::=mFY|l, F::=aEc|i
+     */
+    private void crearGramaticaExpresiones() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        for (char nt : "EXTYF".toCharArray()) {
+            gica.addNonTerminal(nt);
+        }
+        for (char t : "smaci".toCharArray()) {
+            gica.addTerminal(t);
+        }
+        gica.setStartSymbol('E');
+
+        gica.addProduction('E', "TX");
+        gica.addProduction('X', "sTX");
+        gica.addProduction('X', "l");
+        gica.addProduction('T', "FY");
+        gica.addProduction('Y', "mFY");
+        gica.addProduction('Y', "l");
+        gica.addProduction('F', "aEc");
+        gica.addProduction('F', "i");
+    }
+
+
+
+    @Test
+    public void comprobarPrimerosYSiguientes() throws CFGAlgorithmsException {
+        crearGramaticaExpresiones();
+
+        assertEquals(new HashSet<>(Arrays.asList('a', 'i')), gica.getFirst('E'));
+        assertEquals(new HashSet<>(Arrays.asList('s', 'l')), gica.getFirst('X'));
+        assertEquals(new HashSet<>(Arrays.asList('m', 'l')), gica.getFirst('Y'));
+
+        assertEquals(new HashSet<>(Arrays.asList('c', '$')), gica.getFollow('E'));
+        assertEquals(new HashSet<>(Arrays.asList('c', '$')), gica.getFollow('X'));
+        assertEquals(new HashSet<>(Arrays.asList('s', 'c', '$')), gica.getFollow('T'));
+        assertEquals(new HashSet<>(Arrays.asList('s', 'm', 'c', '$')), gica.getFollow('F'));
+    }
+
+
+
+    @Test
+    public void comprobarPrimerosNoTerminalInexistente() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+        crearGramaticaExpresiones();
+
+        gica.getFirst('Z');
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionLL1() throws CFGAlgorithmsException {
+        crearGramaticaExpresiones();
+
+        assertTrue(gica.isLL1());
+        assertTrue(gica.getLL1Conflicts().isEmpty());
+
+        assertTrue(gica.isDerivedUsingLL1("i"));
+        assertTrue(gica.isDerivedUsingLL1("isimi"));
+        assertTrue(gica.isDerivedUsingLL1("aisicmaic"));
+        assertFalse(gica.isDerivedUsingLL1(""));
+        assertFalse(gica.isDerivedUsingLL1("is"));
+        assertFalse(gica.isDerivedUsingLL1("ai"));
+        assertFalse(gica.isDerivedUsingLL1("ic"));
+        assertFalse(gica.isDerivedUsingLL1("ii"));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionLL1PalabraLarga() throws CFGAlgorithmsException {
+        crearGramaticaExpresiones();
+
+        String palabra = "a".repeat(50000) + "i" + "sic".repeat(50000);
+        assertTrue(gica.isDerivedUsingLL1(palabra));
+        assertFalse(gica.isDerivedUsingLL1(palabra + "c"));
+        assertTrue(gica.isDerivedUsingLL1("imis".repeat(100000) + "i"));
+    }
+
+
+
+    @Test
+    public void comprobarConflictosLL1() throws CFGAlgorithmsException {
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.addTerminal('b');
+        gica.setStartSymbol('S');
+
+        gica.addProduction('S', "aS");
+        gica.addProduction('S', "ab");
+        gica.addProduction('S', "l");
+
+        assertFalse(gica.isLL1());
+        List<String> conflictos = gica.getLL1Conflicts();
+        assertEquals(1, conflictos.size());
+        assertEquals("M[S, a]: S::=aS | S::=ab", conflictos.get(0));
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionNoLL1() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+
+        gica = new CFGAlgorithms();
+        gica.addNonTerminal('S');
+        gica.addTerminal('a');
+        gica.setStartSymbol('S');
+        gica.addProduction('S', "Sa");
+        gica.addProduction('S', "a");
+
+        gica.isDerivedUsingLL1("aa");
+    }
+
+
+
+    @Test
+    public void comprobarDerivacionNoValido() throws CFGAlgorithmsException {
+        thrown.expect(CFGAlgorithmsException.class);
+        crearGramaticaExpresiones();
+
+        gica.isDerivedUsingLL1("isb");
+    }
+}